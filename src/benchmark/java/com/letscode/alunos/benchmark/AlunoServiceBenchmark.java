@@ -0,0 +1,96 @@
+package com.letscode.alunos.benchmark;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.FiltroAluno;
+import com.letscode.alunos.repository.AlunoRepository;
+import com.letscode.alunos.service.AlunoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminhos quentes do AlunoService contra o H2 em memoria com 1 mil, 100 mil e 1 milhão de alunos.
+ * Throughput e SampleTime (percentis de latencia); com -prof gc sai também a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AlunoServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int tamanho;
+
+    ContextoDeBenchmark contexto;
+    AlunoService alunoService;
+    AlunoRepository alunoRepository;
+    FiltroAluno filtro;
+    Pageable pagina;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        contexto = new ContextoDeBenchmark();
+        contexto.cadastraAlunos(tamanho);
+        alunoService = contexto.bean(AlunoService.class);
+        alunoRepository = contexto.bean(AlunoRepository.class);
+
+        filtro = new FiltroAluno();
+        filtro.setNomePrefixo("Aluno 1");
+        filtro.setIdadeMin(20L);
+        filtro.setIdadeMax(40L);
+        pagina = PageRequest.of(0, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Aluno salvar() {
+        long n = ThreadLocalRandom.current().nextLong();
+        return alunoService.salvar(new Aluno(null, "Novo " + n, 20L, "novo-" + n, "Rua"));
+    }
+
+    /**
+     * Passa pelo cache do buscaPorId.
+     */
+    @Benchmark
+    public Aluno buscaPorId() throws Exception {
+        return alunoService.buscaPorId(idAleatorio());
+    }
+
+    /**
+     * Mesmo acesso direto no repository, sem o cache, para comparar.
+     */
+    @Benchmark
+    public Optional<Aluno> buscaPorIdNoBanco() {
+        return alunoRepository.findById(idAleatorio());
+    }
+
+    @Benchmark
+    public List<Aluno> buscaTodos() {
+        return alunoService.buscaTodos();
+    }
+
+    @Benchmark
+    public List<Aluno> buscaPagina() {
+        return alunoService.buscaPagina(idAleatorio(), 100);
+    }
+
+    @Benchmark
+    public List<Aluno> filter() {
+        return alunoService.filter(filtro, pagina);
+    }
+
+    private long idAleatorio() {
+        return ThreadLocalRandom.current().nextLong(1, tamanho + 1);
+    }
+}
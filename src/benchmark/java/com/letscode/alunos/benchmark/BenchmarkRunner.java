@@ -0,0 +1,37 @@
+package com.letscode.alunos.benchmark;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Roda o JMH pelo exec:java:
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.args="AlunoServiceBenchmark -prof gc"
+ *
+ * Os argumentos são os do JMH (ex. -p tamanho=1000 para uma só quantidade de alunos, -rf json -rff resultado.json).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        // o exec:java roda dentro do Maven, e o JMH monta o classpath dos forks a partir do java.class.path
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader instanceof URLClassLoader) {
+            String classpath = Arrays.stream(((URLClassLoader) classLoader).getURLs())
+                    .map(BenchmarkRunner::caminho)
+                    .collect(Collectors.joining(File.pathSeparator));
+            System.setProperty("java.class.path", classpath);
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+
+    private static String caminho(URL url) {
+        try {
+            return new File(url.toURI()).getPath();
+        } catch (Exception e) {
+            return url.getPath();
+        }
+    }
+}
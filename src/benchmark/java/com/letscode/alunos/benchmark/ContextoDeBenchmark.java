@@ -0,0 +1,59 @@
+package com.letscode.alunos.benchmark;
+
+import com.letscode.alunos.AlunosApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contexto Spring sem servidor web, com um banco H2 proprio, para os benchmarks chamarem os beans direto.
+ */
+class ContextoDeBenchmark implements AutoCloseable {
+
+    private static final int LOTE_JDBC = 10_000;
+
+    private final ConfigurableApplicationContext context;
+
+    ContextoDeBenchmark(String... propriedades) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.main.web-application-type=none",
+                "--logging.level.root=WARN"));
+        for (String propriedade : propriedades) {
+            args.add("--" + propriedade);
+        }
+        // banco em memoria proprio, a menos que o benchmark escolha outro banco (ou o perfil arquivo)
+        if (args.stream().noneMatch(arg -> arg.startsWith("--spring.datasource.url=")
+                || arg.startsWith("--spring.profiles.active="))) {
+            args.add("--spring.datasource.url=jdbc:h2:mem:benchmark" + System.nanoTime());
+        }
+        this.context = new SpringApplication(AlunosApplication.class).run(args.toArray(String[]::new));
+    }
+
+    <T> T bean(Class<T> tipo) {
+        return context.getBean(tipo);
+    }
+
+    /**
+     * Cadastra alunos com ids 1..quantidade direto pelo JDBC, bem mais rapido que pelo JPA,
+     * e adianta a sequence para os proximos inserts não colidirem.
+     */
+    void cadastraAlunos(int quantidade) {
+        JdbcTemplate jdbc = bean(JdbcTemplate.class);
+        for (int inicio = 1; inicio <= quantidade; inicio += LOTE_JDBC) {
+            List<Object[]> linhas = new ArrayList<>(LOTE_JDBC);
+            for (long id = inicio; id < inicio + LOTE_JDBC && id <= quantidade; id++) {
+                linhas.add(new Object[]{id, "Aluno " + id, 18 + id % 50, "doc-" + id, "Rua " + id});
+            }
+            jdbc.batchUpdate("insert into alunos (id, nome, idade, documento, endereco) values (?, ?, ?, ?, ?)", linhas);
+        }
+        jdbc.execute("alter sequence alunos_seq restart with " + (quantidade + 1_000));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
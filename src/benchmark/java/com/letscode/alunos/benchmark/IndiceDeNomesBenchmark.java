@@ -0,0 +1,61 @@
+package com.letscode.alunos.benchmark;
+
+import com.letscode.alunos.service.IndiceDeNomes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pesquisa do GET /alunos/busca no IndiceDeNomes, com nomes gerados a partir de nomes e sobrenomes comuns.
+ * Buscas muito abertas (um prefixo curto) casam com boa parte da tabela e custam percorrer todos esses candidatos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IndiceDeNomesBenchmark {
+
+    private static final String[] NOMES = {"João", "Maria", "José", "Ana", "Antônio", "Francisca", "Carlos", "Paulo",
+            "Adriana", "Lucas", "Juliana", "Márcia", "Pedro", "Fernanda", "Marcos", "Patrícia", "Luiz", "Aline",
+            "Gabriel", "Sandra", "Rafael", "Camila", "Daniel", "Amanda", "Marcelo", "Bruna", "Bruno", "Jéssica",
+            "Eduardo", "Letícia", "Felipe", "Júlia", "Raimundo", "Luciana", "Rodrigo", "Vanessa", "Manoel", "Mariana"};
+    private static final String[] SOBRENOMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira",
+            "Alves", "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes",
+            "Soares", "Fernandes", "Vieira", "Barbosa", "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes",
+            "Marques", "Machado", "Mendes", "Freitas", "Cardoso", "Ramos", "Gonçalves", "Santana", "Teixeira"};
+
+    @Param({"100000", "1000000"})
+    int alunos;
+
+    IndiceDeNomes indice;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        indice = new IndiceDeNomes();
+        Random random = new Random(42);
+        for (long id = 1; id <= alunos; id++) {
+            indice.indexa(id, NOMES[random.nextInt(NOMES.length)] + " "
+                    + SOBRENOMES[random.nextInt(SOBRENOMES.length)] + " "
+                    + SOBRENOMES[random.nextInt(SOBRENOMES.length)]);
+        }
+    }
+
+    @Benchmark
+    public List<Long> nomeCompleto() {
+        return indice.busca("joao ferreira machado", 0, 20);
+    }
+
+    @Benchmark
+    public List<Long> duasPalavrasComErro() {
+        return indice.busca("marsia sousa", 0, 20);
+    }
+
+    @Benchmark
+    public List<Long> prefixoCurto() {
+        return indice.busca("mar", 0, 20);
+    }
+}
@@ -0,0 +1,70 @@
+package com.letscode.alunos.benchmark;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.ResultadoLote;
+import com.letscode.alunos.service.AlunoLoteService;
+import com.letscode.alunos.service.AlunoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alunos gravados por segundo: um save por aluno (POST /alunos) contra o lote do POST /alunos/batch.
+ * O score de cada operação já é por aluno (OperationsPerInvocation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class InsercaoBenchmark {
+
+    static final int ALUNOS_POR_OPERACAO = 1_000;
+
+    private final AtomicLong documentos = new AtomicLong();
+
+    ContextoDeBenchmark contexto;
+    AlunoService alunoService;
+    AlunoLoteService alunoLoteService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        contexto = new ContextoDeBenchmark();
+        alunoService = contexto.bean(AlunoService.class);
+        alunoLoteService = contexto.bean(AlunoLoteService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ALUNOS_POR_OPERACAO)
+    public long umPorVez() {
+        long soma = 0;
+        for (Aluno aluno : novosAlunos()) {
+            soma += alunoService.salvar(aluno).getId();
+        }
+        return soma;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ALUNOS_POR_OPERACAO)
+    public List<ResultadoLote> emLote() {
+        return alunoLoteService.salvarEmLote(novosAlunos().iterator());
+    }
+
+    private List<Aluno> novosAlunos() {
+        List<Aluno> alunos = new ArrayList<>(ALUNOS_POR_OPERACAO);
+        for (int i = 0; i < ALUNOS_POR_OPERACAO; i++) {
+            long n = documentos.incrementAndGet();
+            alunos.add(new Aluno(null, "Aluno " + n, 20L, "ins-" + n, "Rua " + n));
+        }
+        return alunos;
+    }
+}
@@ -0,0 +1,118 @@
+package com.letscode.alunos.benchmark;
+
+import com.letscode.alunos.repository.AlunoRepository;
+import com.letscode.alunos.service.IndiceDeNomes;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Compara o banco em memoria com o perfil arquivo (modos file e nioMapped) com a mesma quantidade de alunos:
+ * heap ocupado com os dados carregados, tempo para subir de novo sobre o arquivo já existente (e até o indice
+ * de nomes terminar de carregar em segundo plano), heap depois disso e latencia do findById depois do aquecimento
+ * (cache de paginas quente).
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dbenchmark.main=com.letscode.alunos.benchmark.PersistenciaEmArquivo \
+ *     -Dexec.args="alunos leituras"
+ */
+public class PersistenciaEmArquivo {
+
+    public static void main(String[] args) throws Exception {
+        int alunos = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int leituras = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        System.out.printf("%-10s %12s %12s %14s %12s %12s %12s %12s%n",
+                "modo", "carga ms", "heap MB", "reinicio ms", "indice ms", "heap MB", "p50 us", "p99 us");
+        System.out.println(rodadaEmMemoria(alunos, leituras));
+        for (String modo : new String[]{"file", "nioMapped"}) {
+            System.out.println(rodadaEmArquivo(modo, alunos, leituras));
+        }
+        System.out.printf("alunos=%d leituras=%d heap maximo=%d MB%n",
+                alunos, leituras, Runtime.getRuntime().maxMemory() / 1024 / 1024);
+    }
+
+    private static String rodadaEmMemoria(int alunos, int leituras) {
+        long inicio = System.nanoTime();
+        try (ContextoDeBenchmark contexto = new ContextoDeBenchmark()) {
+            contexto.cadastraAlunos(alunos);
+            long carga = milis(inicio);
+            long heap = heapUsadoMb();
+            long[] latencias = leituras(contexto, alunos, leituras);
+            // em memoria não há o que reabrir: subir de novo é cadastrar tudo outra vez
+            return String.format("%-10s %12d %12d %14s %12s %12s %12.1f %12.1f", "mem", carga, heap, "-", "-", "-",
+                    percentil(latencias, 0.50), percentil(latencias, 0.99));
+        }
+    }
+
+    private static String rodadaEmArquivo(String modo, int alunos, int leituras) throws Exception {
+        Path diretorio = Files.createTempDirectory("alunos-" + modo);
+        String[] propriedades = {
+                "spring.profiles.active=arquivo",
+                "alunos.arquivo.modo=" + modo,
+                "alunos.arquivo.diretorio=" + diretorio};
+        try {
+            long inicio = System.nanoTime();
+            long heapComCarga;
+            try (ContextoDeBenchmark contexto = new ContextoDeBenchmark(propriedades)) {
+                contexto.cadastraAlunos(alunos);
+                heapComCarga = heapUsadoMb();
+            }
+            long carga = milis(inicio);
+
+            inicio = System.nanoTime();
+            try (ContextoDeBenchmark contexto = new ContextoDeBenchmark(propriedades)) {
+                long reinicio = milis(inicio);
+                // a pesquisa por nome só fica disponivel depois que o indice carrega em segundo plano
+                IndiceDeNomes indice = contexto.bean(IndiceDeNomes.class);
+                while (indice.isCarregando()) {
+                    Thread.sleep(10);
+                }
+                long comIndice = milis(inicio);
+                long heap = heapUsadoMb();
+                long[] latencias = leituras(contexto, alunos, leituras);
+                return String.format("%-10s %12d %12d %14d %12d %12d %12.1f %12.1f", modo, carga, heapComCarga,
+                        reinicio, comIndice, heap, percentil(latencias, 0.50), percentil(latencias, 0.99));
+            }
+        } finally {
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * Metade das leituras aquece o JIT e o cache de paginas, a outra metade é medida.
+     */
+    private static long[] leituras(ContextoDeBenchmark contexto, int alunos, int leituras) {
+        AlunoRepository repository = contexto.bean(AlunoRepository.class);
+        for (int i = 0; i < leituras / 2; i++) {
+            repository.findById(ThreadLocalRandom.current().nextLong(1, alunos + 1));
+        }
+        long[] latencias = new long[leituras / 2];
+        for (int i = 0; i < latencias.length; i++) {
+            long inicio = System.nanoTime();
+            repository.findById(ThreadLocalRandom.current().nextLong(1, alunos + 1));
+            latencias[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(latencias);
+        return latencias;
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        return ordenadas[(int) Math.ceil(p * ordenadas.length) - 1] / 1_000.0;
+    }
+
+    private static long heapUsadoMb() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1024 / 1024;
+    }
+
+    private static long milis(long inicio) {
+        return (System.nanoTime() - inicio) / 1_000_000;
+    }
+}
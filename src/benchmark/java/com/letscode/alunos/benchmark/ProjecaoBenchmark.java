@@ -0,0 +1,80 @@
+package com.letscode.alunos.benchmark;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.AlunoResumo;
+import com.letscode.alunos.repository.AlunoRepository;
+import com.letscode.alunos.service.AlunoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesma pagina de alunos pelo cursor lida como entidade gerenciada, como entidade em transação readOnly,
+ * como AlunoResumo e como projeção de colunas. Rodar com -prof gc para comparar a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProjecaoBenchmark {
+
+    private static final int ALUNOS = 100_000;
+
+    @Param({"100", "1000"})
+    int limite;
+
+    ContextoDeBenchmark contexto;
+    AlunoService alunoService;
+    AlunoRepository alunoRepository;
+    TransactionTemplate transacao;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        contexto = new ContextoDeBenchmark();
+        contexto.cadastraAlunos(ALUNOS);
+        alunoService = contexto.bean(AlunoService.class);
+        alunoRepository = contexto.bean(AlunoRepository.class);
+        transacao = new TransactionTemplate(contexto.bean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        contexto.close();
+    }
+
+    /**
+     * Entidades em transação de escrita: o Hibernate guarda um snapshot de cada uma para o dirty checking.
+     */
+    @Benchmark
+    public List<Aluno> entidadesGerenciadas() {
+        return transacao.execute(status ->
+                alunoRepository.findByIdGreaterThanOrderByIdAsc(cursor(), PageRequest.of(0, limite)));
+    }
+
+    @Benchmark
+    public List<Aluno> entidadesSomenteLeitura() {
+        return alunoService.buscaPagina(cursor(), limite);
+    }
+
+    @Benchmark
+    public List<AlunoResumo> resumos() {
+        return alunoService.buscaResumos(cursor(), limite);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> campos() {
+        return alunoService.buscaPaginaCampos(cursor(), limite, List.of("id", "nome"));
+    }
+
+    private long cursor() {
+        return ThreadLocalRandom.current().nextLong(ALUNOS - limite);
+    }
+}
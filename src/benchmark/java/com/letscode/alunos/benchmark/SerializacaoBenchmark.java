@@ -0,0 +1,72 @@
+package com.letscode.alunos.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.letscode.alunos.entity.Aluno;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialização de listas de alunos, como o GET /alunos devolve, em JSON, Smile e CBOR, com e sem o gzip
+ * que o Tomcat aplica quando o cliente manda Accept-Encoding. O tamanho de cada resposta sai no fim do trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializacaoBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int tamanho;
+
+    @Param({"json", "smile", "cbor"})
+    String formato;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    ObjectMapper objectMapper;
+    List<Aluno> alunos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // mesma configuração dos conversores do Spring Boot (FormatosConfig)
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (formato.equals("smile")) {
+            builder.factory(new SmileFactory());
+        } else if (formato.equals("cbor")) {
+            builder.factory(new CBORFactory());
+        }
+        objectMapper = builder.build();
+        alunos = new ArrayList<>(tamanho);
+        for (long id = 1; id <= tamanho; id++) {
+            alunos.add(new Aluno(id, "Aluno " + id, 18 + id % 50, "doc-" + id, "Rua " + id));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tamanhoDaResposta() throws Exception {
+        byte[] resposta = lista();
+        System.out.printf("%n%s%s com %d alunos: %d bytes (%.1f por aluno)%n", formato, gzip ? "+gzip" : "",
+                tamanho, resposta.length, (double) resposta.length / tamanho);
+    }
+
+    @Benchmark
+    public byte[] lista() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream saida = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            objectMapper.writeValue(saida, alunos);
+        }
+        return bytes.toByteArray();
+    }
+}
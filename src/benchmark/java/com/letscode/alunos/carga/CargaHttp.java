@@ -0,0 +1,140 @@
+package com.letscode.alunos.carga;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Gerador de carga HTTP simples: N clientes em paralelo repetindo requisições durante um tempo fixo,
+ * medindo a latencia de cada uma.
+ */
+public class CargaHttp {
+
+    private final HttpClient client;
+    private final URI base;
+
+    public CargaHttp(URI base) {
+        this.base = base;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * @param caminhos gera o proximo caminho a ser chamado (ex. "/alunos/42")
+     * @param concorrencia quantidade de clientes simultaneos
+     * @param duracao tempo de medição
+     * @param duranteCarga chamado a cada segundo enquanto a carga roda, para amostrar memoria/threads
+     */
+    public Resultado executa(Supplier<String> caminhos, int concorrencia, Duration duracao,
+                             Runnable duranteCarga) throws Exception {
+        ExecutorService clientes = Executors.newFixedThreadPool(concorrencia);
+        long fim = System.nanoTime() + duracao.toNanos();
+        try {
+            List<Future<Medicoes>> futuros = new ArrayList<>(concorrencia);
+            for (int i = 0; i < concorrencia; i++) {
+                futuros.add(clientes.submit(() -> cliente(caminhos, fim)));
+            }
+            while (System.nanoTime() < fim) {
+                Thread.sleep(1000);
+                duranteCarga.run();
+            }
+            Medicoes total = new Medicoes();
+            for (Future<Medicoes> futuro : futuros) {
+                total.junta(futuro.get());
+            }
+            return total.resultado(duracao);
+        } finally {
+            clientes.shutdownNow();
+        }
+    }
+
+    private Medicoes cliente(Supplier<String> caminhos, long fim) {
+        Medicoes medicoes = new Medicoes();
+        while (System.nanoTime() < fim) {
+            HttpRequest request = HttpRequest.newBuilder(base.resolve(caminhos.get()))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                medicoes.registra(System.nanoTime() - inicio, response.statusCode() < 400);
+            } catch (Exception e) {
+                medicoes.registra(System.nanoTime() - inicio, false);
+            }
+        }
+        return medicoes;
+    }
+
+    public static String aleatorio(List<String> opcoes) {
+        return opcoes.get(ThreadLocalRandom.current().nextInt(opcoes.size()));
+    }
+
+    private static class Medicoes {
+        private long[] latencias = new long[1024];
+        private int quantidade;
+        private long erros;
+
+        void registra(long nanos, boolean sucesso) {
+            if (quantidade == latencias.length) {
+                latencias = Arrays.copyOf(latencias, latencias.length * 2);
+            }
+            latencias[quantidade++] = nanos;
+            if (!sucesso) {
+                erros++;
+            }
+        }
+
+        void junta(Medicoes outra) {
+            for (int i = 0; i < outra.quantidade; i++) {
+                registra(outra.latencias[i], true);
+            }
+            erros += outra.erros;
+        }
+
+        Resultado resultado(Duration duracao) {
+            long[] ordenadas = Arrays.copyOf(latencias, quantidade);
+            Arrays.sort(ordenadas);
+            return new Resultado(quantidade, erros, quantidade / (duracao.toMillis() / 1000.0),
+                    percentil(ordenadas, 0.50), percentil(ordenadas, 0.99), percentil(ordenadas, 1.0));
+        }
+
+        private static double percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+            return ordenadas[Math.max(0, indice)] / 1_000_000.0;
+        }
+    }
+
+    public static class Resultado {
+        public final long requisicoes;
+        public final long erros;
+        public final double porSegundo;
+        public final double p50Ms;
+        public final double p99Ms;
+        public final double maxMs;
+
+        Resultado(long requisicoes, long erros, double porSegundo, double p50Ms, double p99Ms, double maxMs) {
+            this.requisicoes = requisicoes;
+            this.erros = erros;
+            this.porSegundo = porSegundo;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+        }
+    }
+}
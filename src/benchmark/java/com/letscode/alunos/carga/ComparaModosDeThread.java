@@ -0,0 +1,79 @@
+package com.letscode.alunos.carga;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compara o modo de threads de plataforma com o de threads virtuais (alunos.threads.virtuais)
+ * com a mesma carga e o mesmo tamanho de pool JDBC.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dbenchmark.main=com.letscode.alunos.carga.ComparaModosDeThread \
+ *     -Dexec.args="concorrencia segundos alunos pool"
+ *
+ * O modo virtual precisa rodar o Maven com Java 21+.
+ */
+public class ComparaModosDeThread {
+
+    public static void main(String[] args) throws Exception {
+        int concorrencia = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int alunos = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int pool = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        List<String> linhas = new ArrayList<>();
+        linhas.add(String.format("%-11s %10s %10s %10s %10s %8s %14s %12s",
+                "modo", "req/s", "p50 ms", "p99 ms", "max ms", "erros", "KB/requisição", "threads"));
+
+        for (boolean virtuais : new boolean[]{false, true}) {
+            if (virtuais && Runtime.version().feature() < 21) {
+                linhas.add("virtual     (precisa de Java 21+, rodando em " + Runtime.version() + ")");
+                continue;
+            }
+            linhas.add(rodada(virtuais, concorrencia, segundos, alunos, pool));
+        }
+
+        System.out.printf("%nconcorrencia=%d duracao=%ds alunos=%d pool JDBC=%d%n", concorrencia, segundos, alunos, pool);
+        linhas.forEach(System.out::println);
+    }
+
+    private static String rodada(boolean virtuais, int concorrencia, int segundos, int alunos, int pool) throws Exception {
+        try (ServidorDeTeste servidor = new ServidorDeTeste(Map.of(
+                "alunos.threads.virtuais", virtuais,
+                "spring.datasource.hikari.maximum-pool-size", pool,
+                "server.tomcat.threads.max", 200))) {
+
+            List<String> caminhos = new ArrayList<>();
+            for (Long id : servidor.cadastraAlunos(alunos)) {
+                caminhos.add("/alunos/" + id);
+                caminhos.add("/alunos?after=" + id + "&limit=20");
+            }
+            CargaHttp carga = new CargaHttp(servidor.getBase());
+
+            // aquecimento do JIT e das conexões
+            carga.executa(() -> CargaHttp.aleatorio(caminhos), concorrencia, Duration.ofSeconds(5), () -> {});
+
+            MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            System.gc();
+            long emRepouso = memoria.getHeapMemoryUsage().getUsed() + memoria.getNonHeapMemoryUsage().getUsed();
+            long[] pico = {emRepouso, threads.getThreadCount()};
+
+            CargaHttp.Resultado resultado = carga.executa(() -> CargaHttp.aleatorio(caminhos), concorrencia,
+                    Duration.ofSeconds(segundos), () -> {
+                        long usada = memoria.getHeapMemoryUsage().getUsed() + memoria.getNonHeapMemoryUsage().getUsed();
+                        pico[0] = Math.max(pico[0], usada);
+                        pico[1] = Math.max(pico[1], threads.getThreadCount());
+                    });
+
+            double kbPorRequisicao = (pico[0] - emRepouso) / 1024.0 / concorrencia;
+            return String.format("%-11s %10.0f %10.2f %10.2f %10.2f %8d %14.1f %12d",
+                    virtuais ? "virtual" : "plataforma", resultado.porSegundo, resultado.p50Ms,
+                    resultado.p99Ms, resultado.maxMs, resultado.erros, kbPorRequisicao, pico[1]);
+        }
+    }
+}
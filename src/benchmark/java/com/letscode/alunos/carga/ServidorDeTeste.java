@@ -0,0 +1,90 @@
+package com.letscode.alunos.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letscode.alunos.AlunosApplication;
+import com.letscode.alunos.config.BulkheadConfig;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sobe a aplicação numa porta livre, com as propriedades informadas, e cadastra alunos pelo /alunos/batch.
+ */
+public class ServidorDeTeste implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final URI base;
+
+    public ServidorDeTeste(Map<String, Object> propriedades) {
+        Map<String, Object> todas = new LinkedHashMap<>();
+        todas.put("server.port", 0);
+        // cada servidor com o seu banco, para as rodadas não se misturarem
+        todas.put("spring.datasource.url", "jdbc:h2:mem:carga" + System.nanoTime());
+        todas.put("logging.level.root", "WARN");
+        // a carga sai toda do mesmo IP, o limite por cliente mediria só o proprio limite
+        todas.put("alunos.limite.habilitado", false);
+        // idem para os bulkheads: a carga quer medir o servidor, não o descarte
+        for (String bulkhead : List.of(BulkheadConfig.LEITURA_POR_ID, BulkheadConfig.LISTAGEM,
+                BulkheadConfig.ESCRITA, BulkheadConfig.LOTE)) {
+            todas.put("resilience4j.bulkhead.instances." + bulkhead + ".max-concurrent-calls", 100_000);
+        }
+        todas.putAll(propriedades);
+
+        // como argumentos de linha de comando para ter precedencia sobre o application.yml
+        String[] args = todas.entrySet().stream()
+                .map(propriedade -> "--" + propriedade.getKey() + "=" + propriedade.getValue())
+                .toArray(String[]::new);
+        this.context = new SpringApplication(AlunosApplication.class).run(args);
+        int porta = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.base = URI.create("http://localhost:" + porta);
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return context.getBean(tipo);
+    }
+
+    public URI getBase() {
+        return base;
+    }
+
+    /**
+     * @return ids gerados
+     */
+    public List<Long> cadastraAlunos(int quantidade) throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < quantidade; i++) {
+            ndjson.append("{\"nome\":\"Aluno ").append(i)
+                    .append("\",\"idade\":").append(18 + i % 50)
+                    .append(",\"documento\":\"").append(System.nanoTime()).append('-').append(i)
+                    .append("\",\"endereco\":\"Rua ").append(i).append("\"}\n");
+        }
+        HttpRequest request = HttpRequest.newBuilder(base.resolve("/alunos/batch"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build();
+        String body = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString()).body();
+
+        List<Long> ids = new ArrayList<>(quantidade);
+        for (JsonNode resultado : new ObjectMapper().readTree(body)) {
+            if (resultado.hasNonNull("id")) {
+                ids.add(resultado.get("id").asLong());
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,105 @@
+package com.letscode.alunos.carga;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sobe o servidor com o perfil prod uma vez para cada tamanho de pool JDBC e mede a mesma carga nos endpoints
+ * de /alunos (busca por id, pagina por cursor e filtro). No fim aponta o joelho: o menor pool que já entrega
+ * 95% do maior throughput medido. Acima dele as conexões a mais só esperam CPU do banco e a latencia sobe.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dbenchmark.main=com.letscode.alunos.carga.VarreTamanhoDoPool \
+ *     -Dexec.args="concorrencia segundos alunos pool1,pool2,..."
+ *
+ * O menor pool possivel é 2: o Flyway usa duas conexões ao subir.
+ */
+public class VarreTamanhoDoPool {
+
+    private static final double JOELHO = 0.95;
+
+    public static void main(String[] args) throws Exception {
+        int concorrencia = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        int alunos = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int[] pools = args.length > 3
+                ? Arrays.stream(args[3].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{2, 4, 8, 10, 16, 32};
+
+        List<CargaHttp.Resultado> resultados = new ArrayList<>();
+        List<String> linhas = new ArrayList<>();
+        for (int pool : pools) {
+            Rodada rodada = rodada(pool, concorrencia, segundos, alunos);
+            resultados.add(rodada.resultado);
+            linhas.add(String.format("%6d %10.0f %10.2f %10.2f %10.2f %8d %16.2f", pool,
+                    rodada.resultado.porSegundo, rodada.resultado.p50Ms, rodada.resultado.p99Ms,
+                    rodada.resultado.maxMs, rodada.resultado.erros, rodada.esperaMediaMs));
+        }
+
+        System.out.printf("%nconcorrencia=%d duracao=%ds alunos=%d perfil=prod cpus=%d%n",
+                concorrencia, segundos, alunos, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%6s %10s %10s %10s %10s %8s %16s%n",
+                "pool", "req/s", "p50 ms", "p99 ms", "max ms", "erros", "espera pool ms");
+        linhas.forEach(System.out::println);
+
+        double maior = resultados.stream().mapToDouble(r -> r.porSegundo).max().orElse(0);
+        for (int i = 0; i < pools.length; i++) {
+            if (resultados.get(i).porSegundo >= JOELHO * maior) {
+                System.out.printf("joelho: pool=%d (%.0f req/s, %.0f%% do maior, p99 %.2f ms)%n", pools[i],
+                        resultados.get(i).porSegundo, 100 * resultados.get(i).porSegundo / maior,
+                        resultados.get(i).p99Ms);
+                break;
+            }
+        }
+    }
+
+    private static Rodada rodada(int pool, int concorrencia, int segundos, int alunos) throws Exception {
+        try (ServidorDeTeste servidor = new ServidorDeTeste(Map.of(
+                "spring.profiles.active", "prod",
+                "spring.datasource.hikari.maximum-pool-size", pool,
+                "spring.datasource.hikari.minimum-idle", pool,
+                // na varredura a fila do pool é o que se quer medir, não o timeout
+                "spring.datasource.hikari.connection-timeout", 30_000))) {
+
+            List<String> caminhos = new ArrayList<>();
+            for (Long id : servidor.cadastraAlunos(alunos)) {
+                caminhos.add("/alunos/" + id);
+                caminhos.add("/alunos?after=" + id + "&limit=20");
+                caminhos.add("/alunos/fiters?idadeMin=" + (18 + id % 40) + "&idadeMax=" + (28 + id % 40) + "&size=20");
+            }
+            CargaHttp carga = new CargaHttp(servidor.getBase());
+
+            // aquecimento do JIT e dos caches de plano
+            carga.executa(() -> CargaHttp.aleatorio(caminhos), concorrencia, Duration.ofSeconds(5), () -> {});
+
+            Timer espera = servidor.bean(MeterRegistry.class).find("hikaricp.connections.acquire").timer();
+            long antes = espera != null ? espera.count() : 0;
+            double totalAntes = espera != null ? espera.totalTime(TimeUnit.MILLISECONDS) : 0;
+
+            CargaHttp.Resultado resultado = carga.executa(() -> CargaHttp.aleatorio(caminhos), concorrencia,
+                    Duration.ofSeconds(segundos), () -> {});
+
+            double esperaMedia = 0;
+            if (espera != null && espera.count() > antes) {
+                esperaMedia = (espera.totalTime(TimeUnit.MILLISECONDS) - totalAntes) / (espera.count() - antes);
+            }
+            return new Rodada(resultado, esperaMedia);
+        }
+    }
+
+    private static class Rodada {
+        final CargaHttp.Resultado resultado;
+        final double esperaMediaMs;
+
+        Rodada(CargaHttp.Resultado resultado, double esperaMediaMs) {
+            this.resultado = resultado;
+            this.esperaMediaMs = esperaMediaMs;
+        }
+    }
+}
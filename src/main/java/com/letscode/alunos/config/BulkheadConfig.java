@@ -0,0 +1,79 @@
+package com.letscode.alunos.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.bulkhead.ThreadPoolBulkheadRegistry;
+import io.github.resilience4j.bulkhead.configure.BulkheadAspect;
+import io.github.resilience4j.bulkhead.configure.BulkheadAspectExt;
+import io.github.resilience4j.bulkhead.configure.BulkheadConfigurationProperties;
+import io.github.resilience4j.core.registry.EntryAddedEvent;
+import io.github.resilience4j.core.registry.EntryRemovedEvent;
+import io.github.resilience4j.core.registry.EntryReplacedEvent;
+import io.github.resilience4j.core.registry.RegistryEventConsumer;
+import io.github.resilience4j.fallback.FallbackDecorators;
+import io.github.resilience4j.spelresolver.SpelResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.stream.Collectors;
+
+/**
+ * Nomes dos bulkheads dos servicos; limites e esperas ficam no application.yml (resilience4j.bulkhead.instances).
+ * As vagas livres aparecem em resilience4j.bulkhead.available.concurrent.calls, e as chamadas recusadas
+ * em alunos.bulkhead.rejeitadas.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    public static final String LEITURA_POR_ID = "leituraPorId";
+    public static final String LISTAGEM = "listagem";
+    public static final String ESCRITA = "escrita";
+    public static final String LOTE = "lote";
+
+    /**
+     * O aspecto padrão do resilience4j tem a mesma ordem da transação (LOWEST_PRECEDENCE) e acaba por dentro dela,
+     * esperando a vaga já com uma conexão do pool na mão. Este é o mesmo aspecto uma posição antes, por fora da transação.
+     */
+    @Bean
+    public BulkheadAspect bulkheadAspect(ThreadPoolBulkheadRegistry threadPoolBulkheadRegistry,
+                                         BulkheadRegistry bulkheadRegistry,
+                                         ObjectProvider<BulkheadAspectExt> extensoes,
+                                         FallbackDecorators fallbackDecorators,
+                                         SpelResolver spelResolver) {
+        BulkheadConfigurationProperties antesDaTransacao = new BulkheadConfigurationProperties() {
+            @Override
+            public int getBulkheadAspectOrder() {
+                return Ordered.LOWEST_PRECEDENCE - 1;
+            }
+        };
+        return new BulkheadAspect(antesDaTransacao, threadPoolBulkheadRegistry, bulkheadRegistry,
+                extensoes.orderedStream().collect(Collectors.toList()), fallbackDecorators, spelResolver);
+    }
+
+    @Bean
+    public RegistryEventConsumer<Bulkhead> contadorDeRejeicoes(MeterRegistry meterRegistry) {
+        return new RegistryEventConsumer<>() {
+            @Override
+            public void onEntryAddedEvent(EntryAddedEvent<Bulkhead> evento) {
+                Bulkhead bulkhead = evento.getAddedEntry();
+                Counter rejeitadas = Counter.builder("alunos.bulkhead.rejeitadas")
+                        .description("Chamadas recusadas porque o bulkhead estava cheio")
+                        .tag("name", bulkhead.getName())
+                        .register(meterRegistry);
+                bulkhead.getEventPublisher().onCallRejected(e -> rejeitadas.increment());
+            }
+
+            @Override
+            public void onEntryRemovedEvent(EntryRemovedEvent<Bulkhead> evento) {
+            }
+
+            @Override
+            public void onEntryReplacedEvent(EntryReplacedEvent<Bulkhead> evento) {
+            }
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.letscode.alunos.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Liga o cache do Spring. O CacheManager (Caffeine) e o tamanho/TTL vem do application.yml (spring.cache),
+ * e com o actuator os contadores de hit/miss/eviction aparecem em /actuator/metrics/cache.gets e cache.evictions.
+ * O cache roda antes do bulkhead e da transação: um hit não abre transação, e put/evict só acontecem depois do commit.
+ */
+@Configuration
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    public static final String ALUNOS = "alunos";
+}
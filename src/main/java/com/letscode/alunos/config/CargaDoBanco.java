@@ -0,0 +1,76 @@
+package com.letscode.alunos.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Fator de carga do banco para o LimitadorDeTaxa, recalculado no maximo uma vez por segundo.
+ * <p>
+ * Consulta lenta segura a conexão, então a latencia do banco aparece como espera no pool: se tem thread aguardando
+ * conexão no Hikari ou se a espera maxima por conexão (hikaricp.connections.acquire) passou do limite,
+ * o fator cai pela metade; com o pool folgado ele volta aos poucos, 0.1 por segundo, até 1.
+ */
+public class CargaDoBanco implements DoubleSupplier {
+
+    static final double FATOR_MINIMO = 0.1;
+    private static final double RECUPERACAO = 0.1;
+    private static final long INTERVALO_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final long esperaMaximaMs;
+    private final AtomicLong proximaLeitura = new AtomicLong(System.nanoTime());
+    private volatile double fator = 1.0;
+
+    public CargaDoBanco(DataSource dataSource, MeterRegistry meterRegistry, long esperaMaximaMs) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    @Override
+    public double getAsDouble() {
+        long agora = System.nanoTime();
+        long proxima = proximaLeitura.get();
+        if (agora - proxima >= 0 && proximaLeitura.compareAndSet(proxima, agora + INTERVALO_NANOS)) {
+            fator = recalcula(fator);
+        }
+        return fator;
+    }
+
+    double recalcula(double atual) {
+        boolean sobrecarregado = threadsAguardandoConexao() > 0 || esperaPorConexaoMs() > esperaMaximaMs;
+        return sobrecarregado
+                ? Math.max(FATOR_MINIMO, atual / 2)
+                : Math.min(1.0, atual + RECUPERACAO);
+    }
+
+    private int threadsAguardandoConexao() {
+        HikariPoolMXBean pool = pool();
+        return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+    }
+
+    private double esperaPorConexaoMs() {
+        Timer espera = meterRegistry.find("hikaricp.connections.acquire").timer();
+        return espera != null ? espera.max(TimeUnit.MILLISECONDS) : 0;
+    }
+
+    private HikariPoolMXBean pool() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            // sem o pool o fator fica só pela espera por conexão
+        }
+        return null;
+    }
+}
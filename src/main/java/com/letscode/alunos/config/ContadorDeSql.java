@@ -0,0 +1,27 @@
+package com.letscode.alunos.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta os statements SQL que o Hibernate prepara na thread atual.
+ * É registrado no Hibernate pelo application.yml (hibernate.session_factory.statement_inspector),
+ * e o SqlPorRequisicaoFilter lê e zera a contagem a cada requisição.
+ */
+public class ContadorDeSql implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CONTAGEM = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        CONTAGEM.get()[0]++;
+        return sql;
+    }
+
+    public static void zera() {
+        CONTAGEM.get()[0] = 0;
+    }
+
+    public static int contagem() {
+        return CONTAGEM.get()[0];
+    }
+}
@@ -0,0 +1,11 @@
+package com.letscode.alunos.config;
+
+/**
+ * Quanto uma requisição pesa no banco: cada custo tem o seu orçamento por cliente no LimitadorDeTaxa.
+ */
+public enum Custo {
+    /** busca por chave, escrita de um aluno */
+    BAIXO,
+    /** listagens, filtros, streams e operações em lote */
+    ALTO
+}
@@ -0,0 +1,36 @@
+package com.letscode.alunos.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letscode.alunos.service.ArquivoDeEventos;
+import com.letscode.alunos.service.FilaDeEventos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Liga o agendamento do RelayDeEventos e escolhe para onde ele publica (alunos.eventos.destino):
+ * nenhum (padrão, os consumidores leem pelo GET /alunos/changes), memoria (FilaDeEventos)
+ * ou arquivo (ArquivoDeEventos, NDJSON).
+ */
+@Configuration
+@EnableScheduling
+public class EventosConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "alunos.eventos.destino", havingValue = "memoria")
+    public FilaDeEventos filaDeEventos(@Value("${alunos.eventos.fila.capacidade:10000}") int capacidade) {
+        return new FilaDeEventos(capacidade);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "alunos.eventos.destino", havingValue = "arquivo")
+    public ArquivoDeEventos arquivoDeEventos(@Value("${alunos.eventos.arquivo:./data/eventos.ndjson}") Path arquivo,
+                                             ObjectMapper objectMapper) throws IOException {
+        return new ArquivoDeEventos(arquivo, objectMapper);
+    }
+}
@@ -0,0 +1,101 @@
+package com.letscode.alunos.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket por cliente e por custo, sem locks.
+ * <p>
+ * Cada balde é um unico long com o instante teorico em que ele volta a ficar cheio (GCRA), atualizado por CAS,
+ * então requisições concorrentes do mesmo cliente não se bloqueiam e clientes diferentes não disputam nada
+ * além do ConcurrentHashMap do Caffeine. Clientes parados saem do mapa sozinhos.
+ * <p>
+ * O fator de carga (0 a 1) divide a taxa de todos os clientes: com o banco sob pressão os baldes enchem mais devagar.
+ */
+public class LimitadorDeTaxa {
+
+    private static final Custo[] CUSTOS = Custo.values();
+
+    private final long[] intervaloNanos = new long[CUSTOS.length];
+    private final int[] rajada = new int[CUSTOS.length];
+    private final DoubleSupplier fatorDeCarga;
+    private final LongSupplier relogio;
+    private final Cache<String, AtomicLongArray> clientes;
+
+    /**
+     * @param porSegundo requisições por segundo de cada custo
+     * @param rajadas    quantas requisições seguidas cada custo aceita com o balde cheio
+     */
+    public LimitadorDeTaxa(Map<Custo, Double> porSegundo, Map<Custo, Integer> rajadas,
+                           DoubleSupplier fatorDeCarga, LongSupplier relogio) {
+        for (Custo custo : CUSTOS) {
+            double taxa = porSegundo.get(custo);
+            int tamanho = rajadas.get(custo);
+            if (taxa <= 0 || tamanho < 1) {
+                throw new IllegalArgumentException("Limite invalido para o custo " + custo);
+            }
+            this.intervaloNanos[custo.ordinal()] = (long) (TimeUnit.SECONDS.toNanos(1) / taxa);
+            this.rajada[custo.ordinal()] = tamanho;
+        }
+        this.fatorDeCarga = fatorDeCarga;
+        this.relogio = relogio;
+        this.clientes = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public static Map<Custo, Double> porCusto(double baixo, double alto) {
+        Map<Custo, Double> valores = new EnumMap<>(Custo.class);
+        valores.put(Custo.BAIXO, baixo);
+        valores.put(Custo.ALTO, alto);
+        return valores;
+    }
+
+    public static Map<Custo, Integer> porCusto(int baixo, int alto) {
+        Map<Custo, Integer> valores = new EnumMap<>(Custo.class);
+        valores.put(Custo.BAIXO, baixo);
+        valores.put(Custo.ALTO, alto);
+        return valores;
+    }
+
+    /**
+     * @return 0 se a requisição pode seguir, senão quantos nanos o cliente precisa esperar
+     */
+    public long tenta(String cliente, Custo custo) {
+        int i = custo.ordinal();
+        AtomicLongArray baldes = clientes.get(cliente, chave -> novosBaldes());
+        double fator = Math.max(fatorDeCarga.getAsDouble(), CargaDoBanco.FATOR_MINIMO);
+        long intervalo = (long) (intervaloNanos[i] / fator);
+        long tolerancia = intervalo * rajada[i];
+        long agora = relogio.getAsLong();
+
+        while (true) {
+            long cheio = baldes.get(i);
+            long proximo = Math.max(cheio, agora) + intervalo;
+            long espera = proximo - agora - tolerancia;
+            if (espera > 0) {
+                return espera;
+            }
+            if (baldes.compareAndSet(i, cheio, proximo)) {
+                return 0;
+            }
+        }
+    }
+
+    private static AtomicLongArray novosBaldes() {
+        AtomicLongArray baldes = new AtomicLongArray(CUSTOS.length);
+        for (int i = 0; i < CUSTOS.length; i++) {
+            baldes.set(i, Long.MIN_VALUE);
+        }
+        return baldes;
+    }
+}
@@ -0,0 +1,17 @@
+package com.letscode.alunos.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limita o endpoint por cliente de acordo com o custo. Na classe vale para todos os metodos,
+ * e a anotação no metodo tem precedencia.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LimiteDeTaxa {
+
+    Custo value() default Custo.BAIXO;
+}
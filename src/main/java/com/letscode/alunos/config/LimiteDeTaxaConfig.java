@@ -0,0 +1,53 @@
+package com.letscode.alunos.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Limite de requisições por cliente (alunos.limite.*). Desligado com alunos.limite.habilitado=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "alunos.limite.habilitado", havingValue = "true", matchIfMissing = true)
+public class LimiteDeTaxaConfig {
+
+    @Bean
+    public CargaDoBanco cargaDoBanco(DataSource dataSource, MeterRegistry meterRegistry,
+                                     @Value("${alunos.limite.espera-maxima-conexao-ms:50}") long esperaMaximaMs) {
+        CargaDoBanco carga = new CargaDoBanco(dataSource, meterRegistry, esperaMaximaMs);
+        Gauge.builder("alunos.limite.fator", carga, CargaDoBanco::getAsDouble)
+                .description("Fração dos limites por cliente em vigor, conforme a carga do banco")
+                .register(meterRegistry);
+        return carga;
+    }
+
+    @Bean
+    public LimitadorDeTaxa limitadorDeTaxa(CargaDoBanco cargaDoBanco,
+                                           @Value("${alunos.limite.baixo.por-segundo:50}") double baixoPorSegundo,
+                                           @Value("${alunos.limite.baixo.rajada:100}") int baixoRajada,
+                                           @Value("${alunos.limite.alto.por-segundo:5}") double altoPorSegundo,
+                                           @Value("${alunos.limite.alto.rajada:10}") int altoRajada) {
+        return new LimitadorDeTaxa(
+                LimitadorDeTaxa.porCusto(baixoPorSegundo, altoPorSegundo),
+                LimitadorDeTaxa.porCusto(baixoRajada, altoRajada),
+                cargaDoBanco, System::nanoTime);
+    }
+
+    @Bean
+    public WebMvcConfigurer limiteDeTaxaWebMvcConfigurer(LimitadorDeTaxa limitadorDeTaxa, MeterRegistry meterRegistry) {
+        LimiteDeTaxaInterceptor interceptor = new LimiteDeTaxaInterceptor(limitadorDeTaxa, meterRegistry);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.letscode.alunos.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica o LimitadorDeTaxa nos handlers anotados com @LimiteDeTaxa. O cliente é o header X-API-Key
+ * ou, sem ele, o IP. Acima do limite responde 429 com Retry-After em segundos.
+ */
+public class LimiteDeTaxaInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER_API_KEY = "X-API-Key";
+
+    private final LimitadorDeTaxa limitador;
+    private final Map<Custo, Counter> rejeitadas = new EnumMap<>(Custo.class);
+
+    public LimiteDeTaxaInterceptor(LimitadorDeTaxa limitador, MeterRegistry meterRegistry) {
+        this.limitador = limitador;
+        for (Custo custo : Custo.values()) {
+            rejeitadas.put(custo, Counter.builder("alunos.limite.rejeitadas")
+                    .description("Requisições recusadas com 429 pelo limite por cliente")
+                    .tag("custo", custo.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // o dispatch assincrono (streams, Mono/Flux) é a mesma requisição, já contada
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        LimiteDeTaxa limite = limiteDo((HandlerMethod) handler);
+        if (limite == null) {
+            return true;
+        }
+
+        long espera = limitador.tenta(cliente(request), limite.value());
+        if (espera == 0) {
+            return true;
+        }
+
+        rejeitadas.get(limite.value()).increment();
+        long segundos = Math.max(1, (espera + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(segundos));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Limite de requisições excedido, tente novamente em " + segundos + "s");
+        return false;
+    }
+
+    private static LimiteDeTaxa limiteDo(HandlerMethod handler) {
+        LimiteDeTaxa doMetodo = handler.getMethodAnnotation(LimiteDeTaxa.class);
+        return doMetodo != null ? doMetodo : handler.getBeanType().getAnnotation(LimiteDeTaxa.class);
+    }
+
+    private static String cliente(HttpServletRequest request) {
+        String apiKey = request.getHeader(HEADER_API_KEY);
+        return apiKey != null && !apiKey.isBlank() ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,24 @@
+package com.letscode.alunos.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * As metricas de endpoints (http.server.requests), repository (spring.data.repository.invocations),
+ * Hibernate (hibernate.*) e pool JDBC (hikaricp.*) vem do actuator; aqui entra só a contagem de SQL por requisição.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public FilterRegistrationBean<SqlPorRequisicaoFilter> sqlPorRequisicaoFilter(
+            MeterRegistry meterRegistry, @Value("${alunos.sql.limite-por-requisicao:10}") int limite) {
+        FilterRegistrationBean<SqlPorRequisicaoFilter> registro =
+                new FilterRegistrationBean<>(new SqlPorRequisicaoFilter(meterRegistry, limite));
+        registro.addUrlPatterns("/*");
+        return registro;
+    }
+}
@@ -0,0 +1,56 @@
+package com.letscode.alunos.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Registra quantos statements SQL cada requisição fez (alunos.sql.por.requisicao, por endpoint)
+ * e loga as que passam do limite, que normalmente são um N+1.
+ */
+public class SqlPorRequisicaoFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlPorRequisicaoFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int limite;
+
+    public SqlPorRequisicaoFilter(MeterRegistry meterRegistry, int limite) {
+        this.meterRegistry = meterRegistry;
+        this.limite = limite;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ContadorDeSql.zera();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = ContadorDeSql.contagem();
+            Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = padrao != null ? padrao.toString() : "UNKNOWN";
+
+            DistributionSummary.builder("alunos.sql.por.requisicao")
+                    .description("Statements SQL executados por requisição")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+
+            if (statements > limite) {
+                log.warn("{} {} executou {} statements SQL (limite {}), possivel N+1",
+                        request.getMethod(), request.getRequestURI(), statements, limite);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.letscode.alunos.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Endpoint que responde com StreamingResponseBody e dura o quanto o cliente levar para baixar a tabela inteira.
+ * O timeout das respostas assincronas (spring.mvc.async.request-timeout, ou os 30s do Tomcat sem ele) cortaria o
+ * arquivo no meio; nesses endpoints vale alunos.stream.timeout-ms.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StreamLongo {
+}
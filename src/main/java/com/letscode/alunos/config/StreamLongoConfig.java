@@ -0,0 +1,25 @@
+package com.letscode.alunos.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Timeout dos endpoints @StreamLongo (alunos.stream.timeout-ms).
+ */
+@Configuration
+public class StreamLongoConfig {
+
+    @Bean
+    public WebMvcConfigurer streamLongoWebMvcConfigurer(@Value("${alunos.stream.timeout-ms:-1}") long timeoutMs) {
+        StreamLongoInterceptor interceptor = new StreamLongoInterceptor(timeoutMs);
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.registerCallableInterceptors(interceptor);
+            }
+        };
+    }
+}
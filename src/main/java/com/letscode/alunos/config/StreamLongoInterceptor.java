@@ -0,0 +1,35 @@
+package com.letscode.alunos.config;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Troca o timeout da requisição assincrona dos handlers anotados com @StreamLongo. Roda antes do startAsync,
+ * quando o timeout ainda pode mudar; os demais (long-poll do /alunos/changes, Mono/Flux) ficam com o padrão.
+ */
+public class StreamLongoInterceptor implements CallableProcessingInterceptor {
+
+    private final long timeoutMs;
+
+    /**
+     * @param timeoutMs zero ou negativo: sem timeout
+     */
+    public StreamLongoInterceptor(long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (request instanceof AsyncWebRequest && handler instanceof HandlerMethod
+                && ((HandlerMethod) handler).hasMethodAnnotation(StreamLongo.class)) {
+            ((AsyncWebRequest) request).setTimeout(timeoutMs);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.letscode.alunos.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo de execução com threads virtuais (alunos.threads.virtuais=true).
+ * Cada requisição do Tomcat, e as chamadas ao AlunoService que ela faz, rodam em uma thread virtual,
+ * então uma requisição esperando o JDBC não prende uma thread de plataforma.
+ * O pool de conexões continua com o tamanho próprio (spring.datasource.hikari.maximum-pool-size).
+ *
+ * O projeto compila com Java 17, por isso o executor é obtido por reflexão e precisa de Java 21+ em tempo de execução.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "alunos.threads", name = "virtuais", havingValue = "true")
+public class ThreadsVirtuaisConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadsVirtuaisConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService executorThreadsVirtuais() {
+        ExecutorService executor = novoExecutorVirtual();
+        log.info("Requisições rodando em threads virtuais");
+        return executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> threadsVirtuaisNoTomcat(ExecutorService executorThreadsVirtuais) {
+        return protocolHandler -> protocolHandler.setExecutor(executorThreadsVirtuais);
+    }
+
+    /**
+     * Usado pelo Spring MVC nas respostas assincronas (StreamingResponseBody do /alunos/stream).
+     */
+    @Bean(name = "applicationTaskExecutor")
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService executorThreadsVirtuais) {
+        return new TaskExecutorAdapter(executorThreadsVirtuais);
+    }
+
+    static ExecutorService novoExecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("alunos.threads.virtuais=true precisa de Java 21 ou superior, versão atual: "
+                    + Runtime.version(), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Não foi possivel criar o executor de threads virtuais", e);
+        }
+    }
+}
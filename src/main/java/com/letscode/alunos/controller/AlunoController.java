@@ -1,73 +1,380 @@
 package com.letscode.alunos.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.letscode.alunos.config.Custo;
+import com.letscode.alunos.config.LimiteDeTaxa;
+import com.letscode.alunos.config.StreamLongo;
 import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.AlunoResumo;
+import com.letscode.alunos.model.EstatisticasAlunos;
+import com.letscode.alunos.model.FiltroAluno;
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.model.ResultadoLote;
+import com.letscode.alunos.model.StatusImportacao;
+import com.letscode.alunos.service.AlunoExportacaoService;
+import com.letscode.alunos.service.AlunoImportacaoService;
+import com.letscode.alunos.service.AlunoLoteService;
 import com.letscode.alunos.service.AlunoService;
+import com.letscode.alunos.service.AlunoSincronizacaoService;
+import com.letscode.alunos.service.SincronizacaoExpiradaException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController // Fala controller
 @RequestMapping("/alunos") // localhost:8080/alunos
+@LimiteDeTaxa(Custo.BAIXO)
 public class AlunoController {
 
+    static final String APPLICATION_MERGE_PATCH_JSON = "application/merge-patch+json";
+
     private final AlunoService alunoService;
+    private final AlunoLoteService alunoLoteService;
+    private final AlunoSincronizacaoService alunoSincronizacaoService;
+    private final AlunoExportacaoService alunoExportacaoService;
+    private final AlunoImportacaoService alunoImportacaoService;
+    private final ObjectReader alunoReader;
+    private final ObjectWriter alunoWriter;
 
-    public AlunoController(AlunoService alunoService) {
+    public AlunoController(AlunoService alunoService, AlunoLoteService alunoLoteService,
+                           AlunoSincronizacaoService alunoSincronizacaoService,
+                           AlunoExportacaoService alunoExportacaoService,
+                           AlunoImportacaoService alunoImportacaoService, ObjectMapper objectMapper) {
         this.alunoService = alunoService;
+        this.alunoLoteService = alunoLoteService;
+        this.alunoSincronizacaoService = alunoSincronizacaoService;
+        this.alunoExportacaoService = alunoExportacaoService;
+        this.alunoImportacaoService = alunoImportacaoService;
+        this.alunoReader = objectMapper.readerFor(Aluno.class);
+        this.alunoWriter = objectMapper.writerFor(Aluno.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
+    /**
+     * Com id de um aluno existente substitui o aluno inteiro. Com If-Match só substitui se o aluno ainda estiver na
+     * versão lida, senão 412; a versão do corpo é ignorada.
+     */
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Aluno salvar(@Valid @RequestBody Aluno aluno) {
-        return alunoService.salvar(aluno);
+    public Aluno salvar(@Valid @RequestBody Aluno aluno,
+                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return alunoService.salvar(aluno, versao(ifMatch));
     }
 
+    /**
+     * Recebe um array JSON ou NDJSON (um aluno por linha). O corpo é lido aos poucos e gravado em lotes,
+     * e a resposta traz o resultado de cada linha na ordem em que chegou.
+     */
+    @LimiteDeTaxa(Custo.ALTO)
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.OK)
+    public List<ResultadoLote> salvarEmLote(InputStream body) throws IOException {
+        try (MappingIterator<Aluno> alunos = alunoReader.readValues(body)) {
+            return alunoLoteService.salvarEmLote(alunos);
+        } catch (RuntimeJsonMappingException e) {
+            // os lotes anteriores ao erro já foram gravados
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "JSON invalido no lote", e);
+        }
+    }
+
+    /**
+     * Com ?fields=id,nome traz só esses campos de cada aluno, direto das colunas, sem montar entidades.
+     * Vale também para /nomes, /idades e /fiters.
+     * Com ?modifiedSince= traz só o que mudou desde a ultima sincronização, alunos e lapides dos apagados
+     * (itens com removidoEm); a proxima chamada leva a hora e o id do ultimo item em modifiedSince e after.
+     */
     @GetMapping
-//    @RateLimiter(name="alunoService")
+    @LimiteDeTaxa(Custo.ALTO)
     @ResponseStatus(HttpStatus.OK)
-    public List<Aluno> consultaTodos() {
-        return alunoService.buscaTodos();
+    public List<?> consultaTodos(@RequestParam(required = false) Long after,
+                                 @RequestParam(required = false) Integer limit,
+                                 @RequestParam(required = false) List<String> fields,
+                                 @RequestParam(required = false) Instant modifiedSince) {
+        if (modifiedSince != null) {
+            if (fields != null) {
+                throw new IllegalArgumentException("fields não vale com modifiedSince, a copia precisa do aluno inteiro");
+            }
+            return alunoSincronizacaoService.buscaAlteracoes(modifiedSince, after, limit);
+        }
+        if (after == null && limit == null) {
+            return fields != null
+                    ? alunoService.buscaCampos(new FiltroAluno(), Pageable.unpaged(), fields)
+                    : alunoService.buscaTodos();
+        }
+        // Paginação por cursor: o cliente manda o id do ultimo aluno recebido em "after"
+        return fields != null
+                ? alunoService.buscaPaginaCampos(after, limit, fields)
+                : alunoService.buscaPagina(after, limit);
     }
 
-    @GetMapping("/{id}")
+    /**
+     * Id e nome dos alunos, paginado por cursor como o GET /alunos.
+     */
+    @GetMapping("/resumo")
+    @LimiteDeTaxa(Custo.ALTO)
     @ResponseStatus(HttpStatus.OK)
-    public Aluno buscaPorId(@PathVariable(value = "id") Long id) throws Exception {
-        return alunoService.buscaPorId(id);
+    public List<AlunoResumo> consultaResumos(@RequestParam(required = false) Long after,
+                                             @RequestParam(required = false) Integer limit) {
+        return alunoService.buscaResumos(after, limit);
+    }
+
+    /**
+     * Total, idade minima/maxima/media e contagens por faixa de idade e por cidade, das contagens em memoria:
+     * o custo não cresce com a quantidade de alunos.
+     */
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public EstatisticasAlunos estatisticas() {
+        return alunoService.estatisticas();
+    }
+
+    /**
+     * Devolve todos os alunos em NDJSON (um JSON por linha), escrevendo conforme as linhas chegam do banco.
+     */
+    @GetMapping("/stream")
+    @LimiteDeTaxa(Custo.ALTO)
+    @StreamLongo
+    public ResponseEntity<StreamingResponseBody> streamTodos() {
+        StreamingResponseBody body = outputStream -> alunoService.paraCadaAluno(aluno -> {
+            try {
+                alunoWriter.writeValue(outputStream, aluno);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Exporta todos os alunos para download, em CSV (com cabeçalho) ou NDJSON, escrevendo conforme as linhas
+     * chegam do banco. Com gzip=true o arquivo sai comprimido na hora (alunos.csv.gz), sem passar pelo tamanho
+     * minimo da compressão do servidor.
+     */
+    @GetMapping("/export")
+    @LimiteDeTaxa(Custo.ALTO)
+    @StreamLongo
+    public ResponseEntity<StreamingResponseBody> exporta(@RequestParam(defaultValue = "ndjson") String format,
+                                                         @RequestParam(defaultValue = "false") boolean gzip) {
+        FormatoArquivo formato = FormatoArquivo.de(format);
+        String arquivo = "alunos." + formato.getExtensao() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = outputStream -> {
+            if (!gzip) {
+                alunoExportacaoService.exporta(formato, outputStream);
+                return;
+            }
+            // syncFlush: cada flush da exportação também empurra o que o gzip já comprimiu
+            GZIPOutputStream comprimido = new GZIPOutputStream(outputStream, 8192, true);
+            alunoExportacaoService.exporta(formato, comprimido);
+            comprimido.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : formato.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(arquivo).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Importa um arquivo CSV (cabeçalho com as colunas do /export) ou NDJSON, inserindo ou atualizando os alunos
+     * pelo documento. Responde 202 assim que o arquivo foi recebido; o andamento e as linhas rejeitadas ficam
+     * em GET /alunos/import/{id} (header Location). Sem ?format= o formato vem do Content-Type.
+     */
+    @LimiteDeTaxa(Custo.ALTO)
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<StatusImportacao> importa(InputStream body,
+                                                    @RequestParam(required = false) String format,
+                                                    @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType)
+            throws IOException {
+        FormatoArquivo formato = format != null ? FormatoArquivo.de(format)
+                : FormatoArquivo.CSV.getMediaType().isCompatibleWith(contentType) ? FormatoArquivo.CSV
+                : FormatoArquivo.NDJSON;
+        StatusImportacao status = alunoImportacaoService.importa(formato, body);
+        return ResponseEntity.accepted()
+                .location(URI.create("/alunos/import/" + status.id()))
+                .body(status);
+    }
+
+    @GetMapping("/import/{id}")
+    public StatusImportacao statusImportacao(@PathVariable String id) {
+        return alunoImportacaoService.status(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Importação não encontrada"));
+    }
+
+    /**
+     * Responde com ETag = versão do aluno. Com If-None-Match igual o Spring devolve 304 sem escrever o corpo.
+     * Cache-Control no-cache: o cliente pode guardar a resposta, mas confirma a versão a cada uso.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Aluno> buscaPorId(@PathVariable(value = "id") Long id) throws Exception {
+        Aluno aluno = alunoService.buscaPorId(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag(aluno.getVersao()))
+                .body(aluno);
     }
 
     @PatchMapping("/{id}/{nome}")
-    @ResponseStatus(HttpStatus.PARTIAL_CONTENT)
-    public Aluno altera(@PathVariable(value = "id") Long id,
-                        @PathVariable(value = "nome") String nome) throws Exception {
-        return alunoService.alterarAluno(id, nome);
+    public ResponseEntity<Aluno> altera(@PathVariable(value = "id") Long id,
+                                        @PathVariable(value = "nome") String nome,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws Exception {
+        Aluno aluno = alunoService.alterarAluno(id, nome, versao(ifMatch));
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).eTag(etag(aluno.getVersao())).body(aluno);
+    }
+
+    /**
+     * JSON Merge Patch: envia só os campos que mudam, ex. {"idade": 21, "documento": null}
+     * Com If-Match só altera se o aluno ainda estiver na versão lida, senão 412.
+     */
+    @PatchMapping(value = "/{id}", consumes = {APPLICATION_MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> alteraCampos(@PathVariable(value = "id") Long id,
+                                             @RequestBody Map<String, Object> patch,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)
+            throws Exception {
+        long versao = alunoService.alterarCampos(id, patch, versao(ifMatch));
+        return ResponseEntity.noContent().eTag(etag(versao)).build();
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public String deleta(@PathVariable(value = "id") Long id) throws Exception {
-        return alunoService.delete(id);
+    public String deleta(@PathVariable(value = "id") Long id,
+                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws Exception {
+        return alunoService.delete(id, versao(ifMatch));
+    }
+
+    private static String etag(long versao) {
+        return "\"" + versao + "\"";
+    }
+
+    /**
+     * Versão pedida no If-Match ("3" ou W/"3"). Sem header ou com * a escrita vale para qualquer versão.
+     */
+    private static Long versao(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        if (etag.length() < 2 || !etag.startsWith("\"") || !etag.endsWith("\"")) {
+            throw new IllegalArgumentException("If-Match deve ter um unico ETag, ex. \"3\"");
+        }
+        try {
+            return Long.parseLong(etag.substring(1, etag.length() - 1));
+        } catch (NumberFormatException e) {
+            // ETag que este servidor nunca gerou não casa com nenhuma versão
+            throw new OptimisticLockingFailureException("If-Match não corresponde a nenhuma versão do aluno");
+        }
+    }
+
+    /**
+     * Deleta varios alunos em um unico comando: pelos ids (?ids=1,2,3) ou pelos mesmos parametros do /fiters.
+     */
+    @DeleteMapping
+    @LimiteDeTaxa(Custo.ALTO)
+    @ResponseStatus(HttpStatus.OK)
+    public String deletaVarios(@RequestParam(required = false) List<Long> ids, FiltroAluno filtro) {
+        int deletados = ids != null
+                ? alunoService.deletaPorIds(ids)
+                : alunoService.deletaPorFiltro(filtro);
+        return deletados + " alunos deletados";
     }
 
     @GetMapping("/nomes")
     @ResponseStatus(HttpStatus.OK)
-    public List<Aluno> buscaPorNome(@RequestParam String nome) {
+    public List<?> buscaPorNome(@RequestParam String nome,
+                                @RequestParam(required = false) List<String> fields) {
+        if (fields != null) {
+            return alunoService.buscaCampos(new FiltroAluno(nome, null, null), Pageable.unpaged(), fields);
+        }
         return alunoService.buscaPorNome(nome);
     }
 
     @GetMapping("/idades")
     @ResponseStatus(HttpStatus.OK)
-    public List<Aluno> buscaPorIdade(@RequestParam Long idade) {
+    public List<?> buscaPorIdade(@RequestParam Long idade,
+                                 @RequestParam(required = false) List<String> fields) {
+        if (fields != null) {
+            return alunoService.buscaCampos(new FiltroAluno(null, idade, null), Pageable.unpaged(), fields);
+        }
         return alunoService.buscaPorIdade(idade);
     }
 
+    /**
+     * Pesquisa por nome com prefixo, sem diferenciar acentos e tolerando erros de digitação,
+     * do mais relevante para o menos relevante (?q=joao sil&page=0&size=20).
+     */
+    @GetMapping("/busca")
+    @ResponseStatus(HttpStatus.OK)
+    public List<Aluno> pesquisaPorNome(@RequestParam String q,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "20") int size) {
+        return alunoService.pesquisaPorNome(q, page, size);
+    }
+
+    /**
+     * Filtra por qualquer combinação de nome, nomePrefixo, idade, idadeMin, idadeMax, documento, cidade e cep,
+     * com paginação e ordenação (?page=0&size=20&sort=nome,asc).
+     */
     @GetMapping("/fiters")
+    @LimiteDeTaxa(Custo.ALTO)
     @ResponseStatus(HttpStatus.OK)
-    public List<Aluno> filterAluno(@RequestParam(required = false) String nome,
-                                   @RequestParam(required = false) Long idade,
-                                   @RequestParam(required = false) String documento){
-        return alunoService.filter(nome, idade, documento);
+    public List<?> filterAluno(FiltroAluno filtro,
+                               @PageableDefault(size = 100, sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+                               @RequestParam(required = false) List<String> fields) {
+        if (fields != null) {
+            return alunoService.buscaCampos(filtro, pageable, fields);
+        }
+        return alunoService.filter(filtro, pageable);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String trataArgumentoInvalido(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+
+    @ExceptionHandler(SincronizacaoExpiradaException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    public String trataSincronizacaoExpirada(SincronizacaoExpiradaException e) {
+        return e.getMessage();
+    }
+
+    /**
+     * If-Match com versão antiga, ou escrita concorrente detectada pelo @Version.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public String trataVersaoDesatualizada(OptimisticLockingFailureException e) {
+        return e.getMessage();
     }
 }
@@ -0,0 +1,73 @@
+package com.letscode.alunos.controller;
+
+import com.letscode.alunos.config.Custo;
+import com.letscode.alunos.config.LimiteDeTaxa;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.service.EsperaDeEventos;
+import com.letscode.alunos.service.EventoAlunoService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alterações de alunos em ordem de seq, para quem mantém uma copia sincronizada buscar só o que mudou
+ * em vez de listar a tabela de novo: GET /alunos/changes?since=<ultimo seq recebido>.
+ * Com wait=<segundos> vira long-poll: sem eventos novos a resposta espera até sair um ou o tempo acabar,
+ * sem segurar thread do servidor nem conexão do banco enquanto espera.
+ */
+@RestController
+@RequestMapping("/alunos/changes")
+@LimiteDeTaxa(Custo.BAIXO)
+public class AlunoEventosController {
+
+    static final int ESPERA_MAXIMA_SEGUNDOS = 30;
+
+    private final EventoAlunoService eventoAlunoService;
+    private final EsperaDeEventos esperaDeEventos;
+
+    public AlunoEventosController(EventoAlunoService eventoAlunoService, EsperaDeEventos esperaDeEventos) {
+        this.eventoAlunoService = eventoAlunoService;
+        this.esperaDeEventos = esperaDeEventos;
+    }
+
+    @GetMapping
+    public DeferredResult<List<EventoAluno>> changes(@RequestParam(defaultValue = "0") long since,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(defaultValue = "0") int wait) {
+        int segundos = Math.max(0, Math.min(wait, ESPERA_MAXIMA_SEGUNDOS));
+        DeferredResult<List<EventoAluno>> resultado = segundos == 0
+                ? new DeferredResult<>()
+                : new DeferredResult<>(TimeUnit.SECONDS.toMillis(segundos), List.of());
+        if (segundos == 0) {
+            resultado.setResult(eventoAlunoService.buscaEventos(since, limit));
+            return resultado;
+        }
+
+        // registra a espera antes de consultar: um lote publicado entre a consulta e o registro não se perde
+        EsperaDeEventos.Espera espera = esperaDeEventos.aguarda(since, () -> {
+            try {
+                resultado.setResult(eventoAlunoService.buscaEventos(since, limit));
+            } catch (RuntimeException e) {
+                resultado.setErrorResult(e);
+            }
+        });
+        resultado.onCompletion(() -> esperaDeEventos.desiste(espera));
+        List<EventoAluno> eventos;
+        try {
+            eventos = eventoAlunoService.buscaEventos(since, limit);
+        } catch (RuntimeException e) {
+            esperaDeEventos.desiste(espera);
+            throw e;
+        }
+        if (!eventos.isEmpty() || espera == null) {
+            esperaDeEventos.desiste(espera);
+            resultado.setResult(eventos);
+        }
+        return resultado;
+    }
+}
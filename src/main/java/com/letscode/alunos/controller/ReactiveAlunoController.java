@@ -0,0 +1,62 @@
+package com.letscode.alunos.controller;
+
+import com.letscode.alunos.config.Custo;
+import com.letscode.alunos.config.LimiteDeTaxa;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.service.ReactiveAlunoService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/**
+ * Mesmas rotas do /alunos com retorno Mono/Flux. O Spring MVC assina o publisher e libera a thread do
+ * Tomcat; a listagem completa sai em NDJSON item a item, no ritmo em que o cliente consome.
+ */
+@RestController
+@RequestMapping("/reativo/alunos")
+@LimiteDeTaxa(Custo.BAIXO)
+public class ReactiveAlunoController {
+
+    private final ReactiveAlunoService reactiveAlunoService;
+
+    public ReactiveAlunoController(ReactiveAlunoService reactiveAlunoService) {
+        this.reactiveAlunoService = reactiveAlunoService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Aluno> salvar(@Valid @RequestBody Aluno aluno) {
+        return reactiveAlunoService.salvar(aluno);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @LimiteDeTaxa(Custo.ALTO)
+    public Flux<Aluno> consultaTodos() {
+        return reactiveAlunoService.buscaTodos();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Aluno> buscaPorId(@PathVariable(value = "id") Long id) {
+        return reactiveAlunoService.buscaPorId(id);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<String> deleta(@PathVariable(value = "id") Long id) {
+        return reactiveAlunoService.delete(id);
+    }
+
+    @GetMapping("/nomes")
+    public Flux<Aluno> buscaPorNome(@RequestParam String nome) {
+        return reactiveAlunoService.buscaPorNome(nome);
+    }
+
+    @GetMapping("/idades")
+    public Flux<Aluno> buscaPorIdade(@RequestParam Long idade) {
+        return reactiveAlunoService.buscaPorIdade(idade);
+    }
+}
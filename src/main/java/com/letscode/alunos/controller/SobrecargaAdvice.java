@@ -0,0 +1,42 @@
+package com.letscode.alunos.controller;
+
+import com.letscode.alunos.service.IndiceEmCargaException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Bulkhead cheio, consulta que passou do timeout ou pesquisa antes do indice de nomes carregar viram 503
+ * com Retry-After, para o cliente tentar de novo em vez de segurar uma thread esperando.
+ */
+@RestControllerAdvice
+public class SobrecargaAdvice {
+
+    static final String RETRY_AFTER_SEGUNDOS = "1";
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<String> trataBulkheadCheio(BulkheadFullException e) {
+        return indisponivel("Servico sobrecarregado, tente novamente");
+    }
+
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class})
+    public ResponseEntity<String> trataTimeout(RuntimeException e) {
+        return indisponivel("A consulta demorou mais que o permitido, tente novamente");
+    }
+
+    @ExceptionHandler(IndiceEmCargaException.class)
+    public ResponseEntity<String> trataIndiceEmCarga(IndiceEmCargaException e) {
+        return indisponivel(e.getMessage());
+    }
+
+    private static ResponseEntity<String> indisponivel(String mensagem) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SEGUNDOS)
+                .body(mensagem);
+    }
+}
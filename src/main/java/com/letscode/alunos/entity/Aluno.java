@@ -1,12 +1,25 @@
 package com.letscode.alunos.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 
 @Entity // Indentifico que sera minha entidade
-@Table(name = "alunos") // nome da minha tabela
+@DynamicUpdate // o update só leva as colunas que mudaram
+@Table(name = "alunos", indexes = { // nome da minha tabela
+        @Index(name = "uk_alunos_documento", columnList = "documento", unique = true),
+        @Index(name = "idx_alunos_idade", columnList = "idade"),
+        @Index(name = "idx_alunos_nome_idade_documento", columnList = "nome, idade, documento"),
+        @Index(name = "idx_alunos_endereco_cidade", columnList = "endereco_cidade"),
+        @Index(name = "idx_alunos_endereco_cep", columnList = "endereco_cep"),
+        @Index(name = "idx_alunos_atualizado_em_id", columnList = "atualizado_em, id")
+})
 public class Aluno {
 
     public Aluno() {}
@@ -15,18 +28,52 @@ public class Aluno {
         this.nome = nome;
         this.idade = idade;
         this.documento = documento;
-        this.endereco = endereco;
+        this.endereco = endereco != null ? new Endereco(endereco) : null;
     }
 
     @Id //chave da tabela
-    @GeneratedValue(strategy = GenerationType.AUTO) // gera randomicamente
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alunos_seq")
+    @SequenceGenerator(name = "alunos_seq", sequenceName = "alunos_seq", allocationSize = 50) // reserva 50 ids por vez
     private Long id;
 
     @NotNull(message = "Campo nome é obrigatorio")
     private String nome;
     private Long idade;
     private String documento;
-    private String endereco;
+    @Embedded // colunas endereco_* da propria tabela, vem junto com o aluno sem join
+    private Endereco endereco;
+
+    // lock otimista: o update leva "where versao = ?" e soma 1, vira o ETag do GET /alunos/{id}.
+    // O cliente não escreve a versão pelo corpo: a que ele leu vai no If-Match
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long versao;
+
+    // mantidos pelo proprio aluno no insert/update; os updates em massa do repository gravam current_timestamp
+    @Column(name = "criado_em", updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant criadoEm;
+    @Column(name = "atualizado_em")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant atualizadoEm;
+
+    /**
+     * Hora na precisão da coluna (microssegundos), assim o valor em memoria é o mesmo que volta do banco.
+     */
+    public static Instant agora() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PrePersist
+    void aoCriar() {
+        criadoEm = agora();
+        atualizadoEm = criadoEm;
+    }
+
+    @PreUpdate
+    void aoAlterar() {
+        atualizadoEm = agora();
+    }
 
     public Long getId() {
         return id;
@@ -60,11 +107,35 @@ public class Aluno {
         this.documento = documento;
     }
 
-    public String getEndereco() {
+    public Endereco getEndereco() {
         return endereco;
     }
 
-    public void setEndereco(String endereco) {
+    public void setEndereco(Endereco endereco) {
         this.endereco = endereco;
     }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    public Instant getCriadoEm() {
+        return criadoEm;
+    }
+
+    public void setCriadoEm(Instant criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+
+    public Instant getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(Instant atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
 }
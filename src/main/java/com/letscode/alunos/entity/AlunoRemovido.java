@@ -0,0 +1,43 @@
+package com.letscode.alunos.entity;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Lapide de um aluno apagado. Quem sincroniza por GET /alunos?modifiedSince recebe as lapides junto com os
+ * alunos alterados, na mesma ordem de tempo, e apaga da sua copia os ids que vierem com removidoEm.
+ */
+@Entity
+@Table(name = "alunos_removidos", indexes = {
+        @Index(name = "idx_alunos_removidos_removido_em_id", columnList = "removido_em, id")
+})
+public class AlunoRemovido {
+
+    public AlunoRemovido() {}
+    public AlunoRemovido(Long id, Instant removidoEm) {
+        this.id = id;
+        this.removidoEm = removidoEm;
+    }
+
+    @Id // o mesmo id do aluno apagado
+    private Long id;
+
+    @Column(name = "removido_em")
+    private Instant removidoEm;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Instant getRemovidoEm() {
+        return removidoEm;
+    }
+
+    public void setRemovidoEm(Instant removidoEm) {
+        this.removidoEm = removidoEm;
+    }
+}
@@ -1,9 +1,81 @@
 package com.letscode.alunos.entity;
 
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * Endereço do aluno, gravado nas colunas da propria tabela alunos: ler um aluno nunca custa uma consulta a mais.
+ * A coluna endereco, que antes guardava o endereço inteiro em texto, continua sendo o logradouro.
+ */
+@Embeddable
 public class Endereco {
+
+    @Column(name = "endereco")
     private String nome;
+    @Column(name = "endereco_numero")
     private Long numero;
+    @Column(name = "endereco_complemento")
     private String complemento;
+    @Column(name = "endereco_cep")
     private String cep;
+    @Column(name = "endereco_cidade")
     private String cidade;
+
+    public Endereco() {}
+
+    /**
+     * Endereço antigo, só texto ("endereco": "Rua teste 2242"). Sem anotação o Jackson usa este construtor
+     * para valores em texto e o construtor vazio com os setters para objetos.
+     */
+    public Endereco(String logradouro) {
+        this.nome = logradouro;
+    }
+
+    public Endereco(String nome, Long numero, String complemento, String cep, String cidade) {
+        this.nome = nome;
+        this.numero = numero;
+        this.complemento = complemento;
+        this.cep = cep;
+        this.cidade = cidade;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public Long getNumero() {
+        return numero;
+    }
+
+    public void setNumero(Long numero) {
+        this.numero = numero;
+    }
+
+    public String getComplemento() {
+        return complemento;
+    }
+
+    public void setComplemento(String complemento) {
+        this.complemento = complemento;
+    }
+
+    public String getCep() {
+        return cep;
+    }
+
+    public void setCep(String cep) {
+        this.cep = cep;
+    }
+
+    public String getCidade() {
+        return cidade;
+    }
+
+    public void setCidade(String cidade) {
+        this.cidade = cidade;
+    }
 }
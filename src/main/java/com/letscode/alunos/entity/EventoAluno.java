@@ -0,0 +1,109 @@
+package com.letscode.alunos.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Evento do outbox: uma alteração de aluno, gravada na mesma transação da alteração.
+ * O id só ordena a fila de pendentes; seq é a posição publicada, atribuida pelo RelayDeEventos
+ * depois do commit, então um evento de uma transação mais lenta nunca fica atrás de um seq já entregue.
+ */
+@Entity
+@Table(name = "alunos_eventos", indexes = {
+        @Index(name = "uk_alunos_eventos_seq", columnList = "seq", unique = true)
+})
+public class EventoAluno {
+
+    /**
+     * ALTERADO é parcial (PATCH): quem consome aplica só os campos que vieram. SUBSTITUIDO é o aluno inteiro
+     * gravado por cima do anterior (POST /alunos com id, POST /alunos/import): quem consome troca a copia toda,
+     * e um campo ausente ou null ficou mesmo sem valor.
+     */
+    public enum Tipo { CRIADO, ALTERADO, SUBSTITUIDO, REMOVIDO }
+
+    public EventoAluno() {}
+    public EventoAluno(Long alunoId, Tipo tipo, Long versao, String dados, Instant criadoEm) {
+        this.alunoId = alunoId;
+        this.tipo = tipo;
+        this.versao = versao;
+        this.dados = dados;
+        this.criadoEm = criadoEm;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alunos_eventos_seq")
+    @SequenceGenerator(name = "alunos_eventos_seq", sequenceName = "alunos_eventos_seq", allocationSize = 50)
+    @JsonIgnore
+    private Long id;
+
+    private Long seq;
+    @Column(name = "aluno_id")
+    private Long alunoId;
+    @Enumerated(EnumType.STRING)
+    private Tipo tipo;
+    private Long versao;
+    // JSON: o aluno inteiro no CRIADO e no SUBSTITUIDO, só os campos alterados no ALTERADO, null no REMOVIDO
+    @JsonRawValue
+    private String dados;
+    @Column(name = "criado_em")
+    private Instant criadoEm;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public Long getAlunoId() {
+        return alunoId;
+    }
+
+    public void setAlunoId(Long alunoId) {
+        this.alunoId = alunoId;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(Tipo tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    public String getDados() {
+        return dados;
+    }
+
+    public void setDados(String dados) {
+        this.dados = dados;
+    }
+
+    public Instant getCriadoEm() {
+        return criadoEm;
+    }
+
+    public void setCriadoEm(Instant criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+}
@@ -0,0 +1,7 @@
+package com.letscode.alunos.model;
+
+/**
+ * Só id e nome do aluno, montado direto pela consulta (select new ...), sem passar por entidade gerenciada.
+ */
+public record AlunoResumo(Long id, String nome) {
+}
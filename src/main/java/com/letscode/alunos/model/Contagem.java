@@ -0,0 +1,7 @@
+package com.letscode.alunos.model;
+
+/**
+ * Uma linha de select valor, count(*) ... group by valor, montada direto pela consulta.
+ */
+public record Contagem(Object valor, Long quantidade) {
+}
@@ -0,0 +1,14 @@
+package com.letscode.alunos.model;
+
+import com.letscode.alunos.entity.Aluno;
+
+/**
+ * Só o que entra nas estatisticas do aluno (EstatisticasDeAlunos): idade e cidade do endereço.
+ */
+public record DimensoesAluno(Long id, Long idade, String cidade) {
+
+    public static DimensoesAluno de(Aluno aluno) {
+        String cidade = aluno.getEndereco() == null ? null : aluno.getEndereco().getCidade();
+        return new DimensoesAluno(aluno.getId(), aluno.getIdade(), cidade);
+    }
+}
@@ -0,0 +1,12 @@
+package com.letscode.alunos.model;
+
+import java.util.Map;
+
+/**
+ * Resposta do GET /alunos/stats. As faixas de idade vêm em ordem ("10-19") e as cidades da mais para a menos comum;
+ * alunos sem idade ou sem cidade contam no total e em semIdade/semCidade.
+ */
+public record EstatisticasAlunos(long total, Long idadeMinima, Long idadeMaxima, Double idadeMedia,
+                                 Map<String, Long> porFaixaDeIdade, Map<String, Long> porCidade,
+                                 long semIdade, long semCidade) {
+}
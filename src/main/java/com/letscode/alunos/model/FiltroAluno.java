@@ -0,0 +1,97 @@
+package com.letscode.alunos.model;
+
+/**
+ * Parametros opcionais do filtro de alunos. Apenas os campos preenchidos viram condição na consulta.
+ * Todos os campos vêm da query string do /fiters e do DELETE /alunos: nada interno (como o cursor da paginação)
+ * entra aqui.
+ */
+public class FiltroAluno {
+
+    private String nome;
+    private String nomePrefixo;
+    private Long idade;
+    private Long idadeMin;
+    private Long idadeMax;
+    private String documento;
+    private String cidade;
+    private String cep;
+
+    public FiltroAluno() {}
+
+    public FiltroAluno(String nome, Long idade, String documento) {
+        this.nome = nome;
+        this.idade = idade;
+        this.documento = documento;
+    }
+
+    public boolean isVazio() {
+        return nome == null && nomePrefixo == null && idade == null
+                && idadeMin == null && idadeMax == null && documento == null
+                && cidade == null && cep == null;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public String getNomePrefixo() {
+        return nomePrefixo;
+    }
+
+    public void setNomePrefixo(String nomePrefixo) {
+        this.nomePrefixo = nomePrefixo;
+    }
+
+    public Long getIdade() {
+        return idade;
+    }
+
+    public void setIdade(Long idade) {
+        this.idade = idade;
+    }
+
+    public Long getIdadeMin() {
+        return idadeMin;
+    }
+
+    public void setIdadeMin(Long idadeMin) {
+        this.idadeMin = idadeMin;
+    }
+
+    public Long getIdadeMax() {
+        return idadeMax;
+    }
+
+    public void setIdadeMax(Long idadeMax) {
+        this.idadeMax = idadeMax;
+    }
+
+    public String getDocumento() {
+        return documento;
+    }
+
+    public void setDocumento(String documento) {
+        this.documento = documento;
+    }
+
+    public String getCidade() {
+        return cidade;
+    }
+
+    public void setCidade(String cidade) {
+        this.cidade = cidade;
+    }
+
+    public String getCep() {
+        return cep;
+    }
+
+    public void setCep(String cep) {
+        this.cep = cep;
+    }
+
+}
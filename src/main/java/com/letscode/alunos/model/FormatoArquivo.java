@@ -0,0 +1,38 @@
+package com.letscode.alunos.model;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Formatos de arquivo do GET /alunos/export e do POST /alunos/import (?format=), com o tipo e a extensão.
+ */
+public enum FormatoArquivo {
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+    private final String extensao;
+
+    FormatoArquivo(MediaType mediaType, String extensao) {
+        this.mediaType = mediaType;
+        this.extensao = extensao;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+
+    public static FormatoArquivo de(String formato) {
+        for (FormatoArquivo valor : values()) {
+            if (valor.extensao.equals(formato.toLowerCase(Locale.ROOT))) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Formato " + formato + " não existe, use csv ou ndjson");
+    }
+}
@@ -0,0 +1,64 @@
+package com.letscode.alunos.model;
+
+/**
+ * Resultado de uma linha do POST /alunos/batch ou, só as rejeitadas, do POST /alunos/import.
+ */
+public class ResultadoLote {
+
+    public static final String CRIADO = "CRIADO";
+    public static final String REJEITADO = "REJEITADO";
+
+    private int linha;
+    private Long id;
+    private String status;
+    private String erro;
+
+    public ResultadoLote() {}
+
+    public ResultadoLote(int linha, Long id, String status, String erro) {
+        this.linha = linha;
+        this.id = id;
+        this.status = status;
+        this.erro = erro;
+    }
+
+    public static ResultadoLote criado(int linha, Long id) {
+        return new ResultadoLote(linha, id, CRIADO, null);
+    }
+
+    public static ResultadoLote rejeitado(int linha, String erro) {
+        return new ResultadoLote(linha, null, REJEITADO, erro);
+    }
+
+    public int getLinha() {
+        return linha;
+    }
+
+    public void setLinha(int linha) {
+        this.linha = linha;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getErro() {
+        return erro;
+    }
+
+    public void setErro(String erro) {
+        this.erro = erro;
+    }
+}
@@ -0,0 +1,22 @@
+package com.letscode.alunos.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Andamento de um POST /alunos/import, consultado em GET /alunos/import/{id}. A linha de cada rejeição é a do
+ * arquivo enviado, a partir de 1, contando o cabeçalho do CSV e as linhas em branco; rejeicoes traz só as primeiras (alunos.importacao.max-rejeicoes), rejeitadas o total.
+ */
+public record StatusImportacao(String id, Estado estado, FormatoArquivo formato, long lidas, long criadas,
+                               long atualizadas, long rejeitadas, List<ResultadoLote> rejeicoes,
+                               Instant inicio, Instant fim, String erro) {
+
+    public enum Estado {
+        /** arquivo recebido, esperando uma vaga entre as importações simultaneas */
+        NA_FILA,
+        PROCESSANDO,
+        CONCLUIDA,
+        /** o arquivo não pôde mais ser lido (ex.: CSV malformado); os lotes anteriores continuam gravados */
+        FALHOU
+    }
+}
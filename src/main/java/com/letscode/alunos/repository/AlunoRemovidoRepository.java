@@ -0,0 +1,30 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.entity.AlunoRemovido;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface AlunoRemovidoRepository extends JpaRepository<AlunoRemovido, Long> {
+
+    /**
+     * Mesmo cursor do AlunoRepository.buscaAlteradosDepoisDe, pelo indice idx_alunos_removidos_removido_em_id.
+     */
+    @Query("select r from AlunoRemovido r where r.removidoEm >= :desde and (r.removidoEm > :desde or r.id > :id) " +
+            "and r.removidoEm <= :ate order by r.removidoEm, r.id")
+    List<AlunoRemovido> buscaRemovidosDepoisDe(@Param("desde") Instant desde, @Param("id") Long id,
+                                               @Param("ate") Instant ate, Pageable pageable);
+
+    /**
+     * delete from alunos_removidos where removido_em < :limite
+     * @return quantidade de lapides removidas
+     */
+    @Modifying
+    @Query("delete from AlunoRemovido r where r.removidoEm < :limite")
+    int apagaAntesDe(@Param("limite") Instant limite);
+}
@@ -1,14 +1,30 @@
 package com.letscode.alunos.repository;
 
 import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.AlunoResumo;
+import com.letscode.alunos.model.Contagem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AlunoRepository extends JpaRepository<Aluno, Long> {
+public interface AlunoRepository extends JpaRepository<Aluno, Long>, AlunoRepositoryCustom {
+
+    /**
+     * Quantidade de linhas que o driver busca por ida ao banco quando o resultado é percorrido como Stream.
+     */
+    String TAMANHO_FETCH = "500";
 
     @Query(value = "select * from alunos as a where a.nome = :nome",
             nativeQuery = true)
@@ -32,4 +48,91 @@ public interface AlunoRepository extends JpaRepository<Aluno, Long> {
             "and a.documento = :documento",
             nativeQuery = true)
     Aluno filters(@Param("nome") String nome, @Param("idade") Long idade, @Param("documento") String documento);
+
+    /**
+     * Paginação por cursor (keyset): select * from alunos where id > :id order by id limit :limite
+     * O banco usa a chave primaria para pular direto ao cursor, sem OFFSET.
+     * @param id ultimo id da pagina anterior
+     * @param pageable apenas o tamanho da pagina é considerado
+     * @return
+     */
+    List<Aluno> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Mesma paginação por cursor, trazendo só id e nome direto para o record, sem montar entidades.
+     * @param id ultimo id da pagina anterior
+     * @param pageable apenas o tamanho da pagina é considerado
+     * @return
+     */
+    @Query("select new com.letscode.alunos.model.AlunoResumo(a.id, a.nome) from Aluno a where a.id > :id order by a.id")
+    List<AlunoResumo> buscaResumos(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Percorre a tabela inteira em ordem de id sem carregar tudo em memoria.
+     * Precisa ser consumido dentro de uma transação e fechado ao final.
+     * @return
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = TAMANHO_FETCH),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select a from Aluno a order by a.id")
+    Stream<Aluno> streamTodos();
+
+    /**
+     * update alunos set nome = :nome, versao = versao + 1, atualizado_em = current_timestamp
+     * where id = :id [and versao = :versao], sem buscar o aluno antes.
+     * @param versao versão que o cliente leu, null altera qualquer versão
+     * @return quantidade de linhas alteradas, 0 quando o aluno não existe ou está em outra versão
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Aluno a set a.nome = :nome, a.versao = a.versao + 1, a.atualizadoEm = current_timestamp " +
+            "where a.id = :id and (:versao is null or a.versao = :versao)")
+    int atualizaNome(@Param("id") Long id, @Param("nome") String nome, @Param("versao") Long versao);
+
+    /**
+     * select versao from alunos where id = :id, para separar aluno inexistente de versão desatualizada.
+     */
+    @Query("select a.versao from Aluno a where a.id = :id")
+    Optional<Long> buscaVersao(@Param("id") Long id);
+
+    /**
+     * Paginação por cursor (keyset) na ordem de alteração, pelo indice idx_alunos_atualizado_em_id:
+     * os alterados depois de (desde, id) e até o horizonte, em ordem de atualizado_em e id.
+     * @param desde atualizadoEm do ultimo aluno recebido
+     * @param id id do ultimo aluno recebido, desempata alunos alterados no mesmo instante
+     * @param ate horizonte: alterações mais novas ainda podem ter transações abertas antes delas
+     * @param pageable apenas o tamanho da pagina é considerado
+     * @return
+     */
+    @Query("select a from Aluno a where a.atualizadoEm >= :desde and (a.atualizadoEm > :desde or a.id > :id) " +
+            "and a.atualizadoEm <= :ate order by a.atualizadoEm, a.id")
+    List<Aluno> buscaAlteradosDepoisDe(@Param("desde") Instant desde, @Param("id") Long id, @Param("ate") Instant ate,
+                                       Pageable pageable);
+
+    /**
+     * select idade, count(*) from alunos group by idade, lido só do indice idx_alunos_idade.
+     * Carga inicial das EstatisticasDeAlunos; os alunos sem idade vêm na linha de valor null.
+     * @return
+     */
+    @Query("select new com.letscode.alunos.model.Contagem(a.idade, count(a)) from Aluno a group by a.idade")
+    List<Contagem> contaPorIdade();
+
+    /**
+     * select endereco_cidade, count(*) from alunos group by endereco_cidade, pelo indice idx_alunos_endereco_cidade.
+     * @return
+     */
+    @Query("select new com.letscode.alunos.model.Contagem(a.endereco.cidade, count(a)) from Aluno a " +
+            "group by a.endereco.cidade")
+    List<Contagem> contaPorCidade();
+
+    /**
+     * Alunos de um lote do POST /alunos/import que já existem, travados (select ... for update) pelo indice
+     * uk_alunos_documento até o commit do lote: o upsert e as estatisticas leem os valores de antes sem corrida.
+     * @param documentos
+     * @return
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Aluno a where a.documento in :documentos")
+    List<Aluno> buscaPorDocumentosTravando(@Param("documentos") Collection<String> documentos);
 }
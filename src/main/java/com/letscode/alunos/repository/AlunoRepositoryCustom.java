@@ -0,0 +1,51 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.DimensoesAluno;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface AlunoRepositoryCustom {
+
+    /**
+     * Executa o filtro em um unico select com limit/offset, sem o select count que o findAll(spec, pageable) faz.
+     * @param spec condições do filtro, pode ser null
+     * @param pageable pagina e ordenação
+     * @return
+     */
+    List<Aluno> filtra(Specification<Aluno> spec, Pageable pageable);
+
+    /**
+     * Mesmo filtro de filtra, mas só com as colunas pedidas: select campo1, campo2 from alunos where ...
+     * Cada linha vira um mapa campo -> valor na ordem pedida, sem entidade nem contexto de persistencia.
+     * @param spec condições do filtro, pode ser null
+     * @param pageable pagina e ordenação
+     * @param campos atributos de Aluno a trazer
+     * @return
+     */
+    List<Map<String, Object>> projeta(Specification<Aluno> spec, Pageable pageable, List<String> campos);
+
+    /**
+     * Um unico update só com as colunas informadas:
+     * update alunos set campo1 = ?, campo2 = ?, versao = versao + 1, atualizado_em = current_timestamp
+     * where id = ? [and versao = ?]
+     * @param id id do aluno
+     * @param campos nome do atributo (partes do endereço como "endereco.cep") e novo valor (pode ser null)
+     * @param versao versão que o cliente leu, null altera qualquer versão
+     * @return quantidade de linhas alteradas, 0 quando o aluno não existe ou está em outra versão
+     */
+    int atualizaCampos(Long id, Map<String, Object> campos, Long versao);
+
+    /**
+     * delete from alunos where id in (:ids) [and versao = :versao] devolvendo id, idade e cidade de quem existia,
+     * no mesmo comando (data change delta table do H2): um evento por aluno realmente apagado, e as
+     * estatisticas descontam o aluno sem um select antes.
+     * @param versao versão que o cliente leu, null apaga qualquer versão
+     * @return alunos removidos
+     */
+    List<DimensoesAluno> apagaDevolvendoDimensoes(Collection<Long> ids, Long versao);
+}
@@ -0,0 +1,153 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.DimensoesAluno;
+import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * O Spring Data junta essa implementação ao AlunoRepository pelo sufixo Impl.
+ */
+class AlunoRepositoryCustomImpl implements AlunoRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    AlunoRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Aluno> filtra(Specification<Aluno> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Aluno> query = cb.createQuery(Aluno.class);
+        Root<Aluno> root = query.from(Aluno.class);
+
+        if (spec != null) {
+            var predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Aluno> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<Map<String, Object>> projeta(Specification<Aluno> spec, Pageable pageable, List<String> campos) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Aluno> root = query.from(Aluno.class);
+
+        List<Selection<?>> colunas = new ArrayList<>(campos.size());
+        for (String campo : campos) {
+            colunas.add(root.get(campo).alias(campo));
+        }
+        query.multiselect(colunas);
+        if (spec != null) {
+            var predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Tuple> tuplas = typedQuery.getResultList();
+        List<Map<String, Object>> linhas = new ArrayList<>(tuplas.size());
+        for (Tuple tupla : tuplas) {
+            Map<String, Object> linha = new LinkedHashMap<>();
+            for (int i = 0; i < campos.size(); i++) {
+                linha.put(campos.get(i), tupla.get(i));
+            }
+            linhas.add(linha);
+        }
+        return linhas;
+    }
+
+    @Override
+    public int atualizaCampos(Long id, Map<String, Object> campos, Long versao) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Aluno> update = cb.createCriteriaUpdate(Aluno.class);
+        Root<Aluno> root = update.from(Aluno.class);
+
+        campos.forEach((campo, valor) -> update.set(caminho(root, campo), valor));
+        // update em massa não passa pelo @Version nem pelo @PreUpdate, versão e hora da alteração são gravadas aqui
+        Path<Long> versaoAtual = root.get("versao");
+        update.set(versaoAtual, cb.sum(versaoAtual, 1L));
+        Path<Timestamp> atualizadoEm = root.get("atualizadoEm");
+        update.set(atualizadoEm, cb.currentTimestamp());
+        update.where(versao == null
+                ? cb.equal(root.get("id"), id)
+                : cb.and(cb.equal(root.get("id"), id), cb.equal(versaoAtual, versao)));
+
+        entityManager.flush();
+        int linhas = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return linhas;
+    }
+
+    /**
+     * "endereco.cidade" -> root.get("endereco").get("cidade")
+     */
+    private static Path<Object> caminho(Root<Aluno> root, String campo) {
+        Path<Object> caminho = null;
+        for (String parte : campo.split("\\.")) {
+            caminho = caminho == null ? root.get(parte) : caminho.get(parte);
+        }
+        return caminho;
+    }
+
+    @Override
+    public List<DimensoesAluno> apagaDevolvendoDimensoes(Collection<Long> ids, Long versao) {
+        entityManager.flush();
+        List<?> linhas = entityManager.createNativeQuery("select id, idade, endereco_cidade from old table " +
+                        "(delete from alunos where id in (:ids) and (cast(:versao as bigint) is null or versao = :versao))")
+                .setParameter("ids", ids)
+                // versao null precisa ir com o tipo, senão o Hibernate não sabe como mandar o parametro
+                .setParameter("versao", new TypedParameterValue(StandardBasicTypes.LONG, versao))
+                .getResultList();
+        entityManager.clear();
+        // o Hibernate devolve bigint de consulta nativa como BigInteger
+        List<DimensoesAluno> apagados = new ArrayList<>(linhas.size());
+        for (Object linha : linhas) {
+            Object[] colunas = (Object[]) linha;
+            apagados.add(new DimensoesAluno(((Number) colunas[0]).longValue(),
+                    colunas[1] == null ? null : ((Number) colunas[1]).longValue(), (String) colunas[2]));
+        }
+        return apagados;
+    }
+}
@@ -0,0 +1,102 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.FiltroAluno;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicados do filtro de alunos. Cada metodo devolve null quando o valor não foi informado,
+ * e o Specification.and ignora os nulos, então a consulta final só tem as condições pedidas.
+ */
+public final class AlunoSpecifications {
+
+    private static final char ESCAPE = '\\';
+
+    private AlunoSpecifications() {}
+
+    public static Specification<Aluno> comFiltro(FiltroAluno filtro) {
+        return Specification.where(nomeIgual(filtro.getNome()))
+                .and(nomeComecaCom(filtro.getNomePrefixo()))
+                .and(idadeIgual(filtro.getIdade()))
+                .and(idadeMinima(filtro.getIdadeMin()))
+                .and(idadeMaxima(filtro.getIdadeMax()))
+                .and(documentoIgual(filtro.getDocumento()))
+                .and(cidadeIgual(filtro.getCidade()))
+                .and(cepIgual(filtro.getCep()));
+    }
+
+    public static Specification<Aluno> nomeIgual(String nome) {
+        if (nome == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("nome"), nome);
+    }
+
+    /**
+     * where nome like 'prefixo%' -> o H2 resolve com range no indice de nome.
+     */
+    public static Specification<Aluno> nomeComecaCom(String prefixo) {
+        if (prefixo == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.like(root.get("nome"), escapaLike(prefixo) + "%", ESCAPE);
+    }
+
+    public static Specification<Aluno> idadeIgual(Long idade) {
+        if (idade == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("idade"), idade);
+    }
+
+    public static Specification<Aluno> idadeMinima(Long idade) {
+        if (idade == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("idade"), idade);
+    }
+
+    public static Specification<Aluno> idadeMaxima(Long idade) {
+        if (idade == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("idade"), idade);
+    }
+
+    public static Specification<Aluno> documentoIgual(String documento) {
+        if (documento == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("documento"), documento);
+    }
+
+    /**
+     * where endereco_cidade = :cidade -> indice idx_alunos_endereco_cidade, sem join: o endereço fica na tabela alunos.
+     */
+    public static Specification<Aluno> cidadeIgual(String cidade) {
+        if (cidade == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("endereco").get("cidade"), cidade);
+    }
+
+    public static Specification<Aluno> cepIgual(String cep) {
+        if (cep == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("endereco").get("cep"), cep);
+    }
+
+    public static Specification<Aluno> idMaiorQue(Long id) {
+        if (id == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    private static String escapaLike(String valor) {
+        return valor.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,42 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.entity.EventoAluno;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface EventoAlunoRepository extends JpaRepository<EventoAluno, Long> {
+
+    /**
+     * Eventos ainda não publicados, na ordem em que foram gravados:
+     * select * from alunos_eventos where seq is null order by id limit :limite
+     * @param pageable apenas o tamanho da pagina é considerado
+     * @return
+     */
+    List<EventoAluno> findBySeqIsNullOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Eventos publicados depois do seq informado, pelo indice uk_alunos_eventos_seq, sem OFFSET.
+     * @param seq ultimo seq que o consumidor já recebeu
+     * @param pageable apenas o tamanho da pagina é considerado
+     * @return
+     */
+    List<EventoAluno> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("select max(e.seq) from EventoAluno e")
+    Optional<Long> buscaUltimoSeq();
+
+    /**
+     * delete from alunos_eventos where seq is not null and criado_em < :limite, os pendentes nunca são apagados.
+     * @return quantidade de eventos removidos
+     */
+    @Modifying
+    @Query("delete from EventoAluno e where e.seq is not null and e.criadoEm < :limite")
+    int apagaPublicadosAntesDe(@Param("limite") Instant limite);
+}
@@ -0,0 +1,10 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.model.FormatoArquivo;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface AlunoExportacaoService {
+    void exporta(FormatoArquivo formato, OutputStream saida) throws IOException;
+}
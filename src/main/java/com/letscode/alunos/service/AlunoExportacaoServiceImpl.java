@@ -0,0 +1,120 @@
+package com.letscode.alunos.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.letscode.alunos.config.BulkheadConfig;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.Endereco;
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.repository.AlunoRepository;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Exporta a tabela inteira em CSV ou NDJSON com memoria constante: as linhas vêm do cursor do
+ * AlunoRepository.streamTodos (fetch size, somente leitura) e vão direto para a saida. A cada lote
+ * (alunos.exportacao.lote) o que foi escrito é mandado ao cliente e o contexto de persistencia é limpo,
+ * então nem o buffer nem os alunos gerenciados crescem com a quantidade de linhas.
+ */
+@Service
+public class AlunoExportacaoServiceImpl implements AlunoExportacaoService {
+
+    /**
+     * Colunas do CSV, na ordem. As partes do endereço com o mesmo nome do merge patch.
+     */
+    static final List<String> COLUNAS_CSV = List.of("id", "nome", "idade", "documento", "endereco.nome",
+            "endereco.numero", "endereco.complemento", "endereco.cep", "endereco.cidade", "versao",
+            "criadoEm", "atualizadoEm");
+
+    private final AlunoRepository alunoRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectWriter csvWriter;
+    private final int lote;
+
+    public AlunoExportacaoServiceImpl(AlunoRepository alunoRepository, EntityManager entityManager,
+                                      ObjectMapper objectMapper,
+                                      @Value("${alunos.exportacao.lote:500}") int lote) {
+        this.alunoRepository = alunoRepository;
+        this.entityManager = entityManager;
+        this.lote = lote;
+        this.ndjsonWriter = objectMapper.writerFor(Aluno.class)
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        CsvSchema.Builder colunas = CsvSchema.builder();
+        COLUNAS_CSV.forEach(colunas::addColumn);
+        this.csvWriter = new CsvMapper().writerFor(Map.class)
+                .with(colunas.build().withHeader())
+                // aspas só em celula com virgula, aspas ou quebra de linha
+                .with(CsvGenerator.Feature.STRICT_CHECK_FOR_QUOTING)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Sem timeout de transação, como o GET /alunos/stream: a duração depende do ritmo de quem baixa. Pelo mesmo
+     * motivo o endpoint é @StreamLongo, fora do timeout das respostas assincronas.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true)
+    public void exporta(FormatoArquivo formato, OutputStream saida) throws IOException {
+        int escritos = 0;
+        try (Stream<Aluno> alunos = alunoRepository.streamTodos();
+             SequenceWriter linhas = (formato == FormatoArquivo.CSV ? csvWriter : ndjsonWriter).writeValues(saida)) {
+            Iterator<Aluno> cursor = alunos.iterator();
+            while (cursor.hasNext()) {
+                Aluno aluno = cursor.next();
+                linhas.write(formato == FormatoArquivo.CSV ? linhaCsv(aluno) : aluno);
+                if (++escritos % lote == 0) {
+                    linhas.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        if (formato == FormatoArquivo.NDJSON && escritos > 0) {
+            // o separador só vai entre os alunos, a ultima linha também termina em \n
+            saida.write('\n');
+        }
+        saida.flush();
+    }
+
+    /**
+     * Linha pelo nome das colunas: como array o CsvMapper pula os nulls e as colunas seguintes andariam para a
+     * esquerda; pelo nome cada null vira uma celula vazia na sua coluna.
+     */
+    private static Map<String, Object> linhaCsv(Aluno aluno) {
+        Endereco endereco = aluno.getEndereco() != null ? aluno.getEndereco() : new Endereco();
+        Object[] valores = {aluno.getId(), aluno.getNome(), aluno.getIdade(), aluno.getDocumento(),
+                endereco.getNome(), endereco.getNumero(), endereco.getComplemento(), endereco.getCep(),
+                endereco.getCidade(), aluno.getVersao(), texto(aluno.getCriadoEm()), texto(aluno.getAtualizadoEm())};
+        Map<String, Object> linha = new HashMap<>(COLUNAS_CSV.size() * 2);
+        for (int i = 0; i < valores.length; i++) {
+            linha.put(COLUNAS_CSV.get(i), valores[i]);
+        }
+        return linha;
+    }
+
+    /**
+     * Instant no mesmo formato ISO-8601 do JSON; o CsvMapper não tem o modulo de datas do Spring.
+     */
+    private static String texto(Instant instante) {
+        return instante == null ? null : instante.toString();
+    }
+}
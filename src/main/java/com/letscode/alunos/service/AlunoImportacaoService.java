@@ -0,0 +1,13 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.model.StatusImportacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+public interface AlunoImportacaoService {
+    StatusImportacao importa(FormatoArquivo formato, InputStream arquivo) throws IOException;
+    Optional<StatusImportacao> status(String id);
+}
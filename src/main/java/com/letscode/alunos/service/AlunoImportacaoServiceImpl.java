@@ -0,0 +1,396 @@
+package com.letscode.alunos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.Endereco;
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.model.ResultadoLote;
+import com.letscode.alunos.model.StatusImportacao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importa um arquivo CSV ou NDJSON grande sem segurar a requisição: o corpo vai para um arquivo temporario
+ * (alunos.importacao.diretorio) e a importação roda em segundo plano, com o andamento em status(id).
+ * <p>
+ * Cada importação passa por tres etapas, ligadas por lotes de alunos.importacao.lote linhas:
+ * <ul>
+ *     <li>leitura, numa thread por importação: só separa as linhas do arquivo, sem montar alunos;</li>
+ *     <li>validação, no pool de alunos.importacao.threads: converte cada linha em Aluno e confere as
+ *     anotações (@NotNull no nome), os lotes em paralelo;</li>
+ *     <li>gravação, um lote por vez e na ordem do arquivo (UpsertDeAlunos): documento repetido em lotes diferentes
+ *     fica com o valor da ultima linha, como se o arquivo fosse gravado linha a linha.</li>
+ * </ul>
+ * No maximo alunos.importacao.lotes-pendentes lotes ficam lidos e ainda não gravados; com a gravação atrasada a
+ * leitura espera, então a memoria não cresce com o tamanho do arquivo.
+ * <p>
+ * Só alunos.importacao.simultaneas importações rodam ao mesmo tempo, cada uma gravando numa conexão; as demais
+ * esperam NA_FILA. Por isso não passa pelo bulkhead de lote, que recusaria em vez de enfileirar.
+ */
+@Service
+public class AlunoImportacaoServiceImpl implements AlunoImportacaoService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlunoImportacaoServiceImpl.class);
+
+    /**
+     * Linha do arquivo ainda sem converter: o texto da linha no NDJSON, as colunas pelo nome no CSV.
+     * O numero é o da linha no arquivo, a partir de 1; no CSV, a linha onde o registro começa.
+     */
+    private record LinhaLida(int numero, Object conteudo) {}
+
+    /**
+     * Linha do CSV como veio, com o cabeçalho do arquivo para achar cada coluna pelo nome.
+     */
+    private record LinhaCsv(String[] cabecalho, String[] valores) {}
+
+    private record Validacao(List<UpsertDeAlunos.Linha> validas, List<ResultadoLote> rejeicoes) {}
+
+    private final UpsertDeAlunos upsert;
+    private final Validator validator;
+    private final ObjectReader alunoReader;
+    private final ObjectReader csvReader;
+    private final int tamanhoLote;
+    private final int lotesPendentes;
+    private final int maxRejeicoes;
+    private final Path diretorio;
+    private final Duration retencao;
+    private final ExecutorService leitura;
+    private final ExecutorService validacao;
+    private final ExecutorService gravacao;
+    private final Map<String, ImportacaoDeAlunos> importacoes = new ConcurrentHashMap<>();
+
+    public AlunoImportacaoServiceImpl(UpsertDeAlunos upsert, Validator validator, ObjectMapper objectMapper,
+                                      @Value("${alunos.importacao.threads:4}") int threads,
+                                      @Value("${alunos.importacao.simultaneas:1}") int simultaneas,
+                                      @Value("${alunos.importacao.lote:1000}") int tamanhoLote,
+                                      @Value("${alunos.importacao.lotes-pendentes:8}") int lotesPendentes,
+                                      @Value("${alunos.importacao.max-rejeicoes:1000}") int maxRejeicoes,
+                                      @Value("${alunos.importacao.diretorio:${java.io.tmpdir}}") String diretorio,
+                                      @Value("${alunos.importacao.retencao:24h}") Duration retencao) {
+        this.upsert = upsert;
+        this.validator = validator;
+        this.alunoReader = objectMapper.readerFor(Aluno.class);
+        // cada linha como array, cabeçalho inclusive: o tamanho de cada uma é conferido com o do cabeçalho
+        this.csvReader = new CsvMapper().readerFor(String[].class)
+                .with(CsvSchema.emptySchema())
+                .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                .with(CsvParser.Feature.SKIP_EMPTY_LINES);
+        this.tamanhoLote = tamanhoLote;
+        this.lotesPendentes = lotesPendentes;
+        this.maxRejeicoes = maxRejeicoes;
+        this.diretorio = Path.of(diretorio);
+        this.retencao = retencao;
+        this.leitura = Executors.newFixedThreadPool(simultaneas, new CustomizableThreadFactory("importacao-leitura-"));
+        this.validacao = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("importacao-validacao-"));
+        this.gravacao = Executors.newFixedThreadPool(simultaneas, new CustomizableThreadFactory("importacao-gravacao-"));
+    }
+
+    /**
+     * Volta assim que o arquivo inteiro foi recebido, com a importação NA_FILA.
+     */
+    @Override
+    public StatusImportacao importa(FormatoArquivo formato, InputStream arquivo) throws IOException {
+        Files.createDirectories(diretorio);
+        Path copia = Files.createTempFile(diretorio, "importacao-", "." + formato.getExtensao());
+        try {
+            Files.copy(arquivo, copia, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(copia);
+            throw e;
+        }
+        ImportacaoDeAlunos importacao = new ImportacaoDeAlunos(formato, maxRejeicoes);
+        importacoes.put(importacao.getId(), importacao);
+        try {
+            leitura.execute(() -> executa(importacao, formato, copia));
+        } catch (RejectedExecutionException e) {
+            importacoes.remove(importacao.getId());
+            Files.deleteIfExists(copia);
+            throw e;
+        }
+        return importacao.status();
+    }
+
+    @Override
+    public Optional<StatusImportacao> status(String id) {
+        return Optional.ofNullable(importacoes.get(id)).map(ImportacaoDeAlunos::status);
+    }
+
+    private void executa(ImportacaoDeAlunos importacao, FormatoArquivo formato, Path arquivo) {
+        importacao.inicia();
+        Semaphore pendentes = new Semaphore(lotesPendentes);
+        CompletableFuture<Void> escrita = CompletableFuture.completedFuture(null);
+        String erro = null;
+        try (Leitor leitor = formato == FormatoArquivo.CSV ? new LeitorCsv(arquivo) : new LeitorNdjson(arquivo)) {
+            List<LinhaLida> lote;
+            while (!(lote = leitor.proximoLote()).isEmpty() && espera(pendentes, escrita)) {
+                importacao.leu(lote.size());
+                List<LinhaLida> lidas = lote;
+                CompletableFuture<Validacao> validado =
+                        CompletableFuture.supplyAsync(() -> valida(lidas, formato), validacao);
+                // cada gravação só começa depois da anterior, qualquer que seja a thread
+                escrita = escrita
+                        .thenCombineAsync(validado, (anterior, validas) -> grava(importacao, validas), gravacao)
+                        .whenComplete((nada, e) -> pendentes.release());
+            }
+        } catch (IOException | RuntimeException e) {
+            erro = "Arquivo invalido: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        } finally {
+            apaga(arquivo);
+        }
+        try {
+            // os lotes lidos antes de um erro de leitura também são gravados
+            escrita.join();
+        } catch (CompletionException e) {
+            if (erro == null) {
+                erro = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            }
+        }
+        if (erro == null) {
+            importacao.conclui();
+        } else {
+            log.warn("Importação {} falhou: {}", importacao.getId(), erro);
+            importacao.falha(erro);
+        }
+    }
+
+    /**
+     * Espera uma vaga entre os lotes pendentes. Se a gravação falhou não vem mais vaga útil: para de ler.
+     */
+    private static boolean espera(Semaphore pendentes, CompletableFuture<Void> escrita) {
+        try {
+            while (!pendentes.tryAcquire(1, TimeUnit.SECONDS)) {
+                if (escrita.isCompletedExceptionally()) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importação interrompida", e);
+        }
+        return !escrita.isCompletedExceptionally();
+    }
+
+    /**
+     * Não lança: linha que não vira aluno, ou vira um aluno invalido, sai como rejeitada.
+     */
+    private Validacao valida(List<LinhaLida> lote, FormatoArquivo formato) {
+        List<UpsertDeAlunos.Linha> validas = new ArrayList<>(lote.size());
+        List<ResultadoLote> rejeicoes = new ArrayList<>();
+        for (LinhaLida linha : lote) {
+            Aluno aluno;
+            try {
+                aluno = formato == FormatoArquivo.CSV ? alunoCsv(linha.conteudo()) : alunoJson(linha.conteudo());
+            } catch (IllegalArgumentException e) {
+                rejeicoes.add(ResultadoLote.rejeitado(linha.numero(), e.getMessage()));
+                continue;
+            }
+            // o upsert é pelo documento; id e versão de um arquivo exportado não valem aqui
+            aluno.setId(null);
+            aluno.setVersao(null);
+            Set<ConstraintViolation<Aluno>> violacoes = validator.validate(aluno);
+            if (violacoes.isEmpty()) {
+                validas.add(new UpsertDeAlunos.Linha(linha.numero(), aluno));
+            } else {
+                rejeicoes.add(ResultadoLote.rejeitado(linha.numero(), AlunoLoteServiceImpl.mensagem(violacoes)));
+            }
+        }
+        return new Validacao(validas, rejeicoes);
+    }
+
+    private Void grava(ImportacaoDeAlunos importacao, Validacao lote) {
+        UpsertDeAlunos.Gravacao gravacao = upsert.grava(lote.validas());
+        importacao.gravou(gravacao.criadas(), gravacao.atualizadas());
+        List<ResultadoLote> rejeicoes = new ArrayList<>(lote.rejeicoes());
+        rejeicoes.addAll(gravacao.rejeicoes());
+        rejeicoes.sort(Comparator.comparingInt(ResultadoLote::getLinha));
+        importacao.rejeitou(rejeicoes);
+        return null;
+    }
+
+    private Aluno alunoJson(Object linha) {
+        try {
+            Aluno aluno = alunoReader.readValue((String) linha);
+            if (aluno == null) {
+                throw new IllegalArgumentException("Linha sem aluno");
+            }
+            return aluno;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON invalido: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Colunas com os nomes do GET /alunos/export (AlunoExportacaoServiceImpl.COLUNAS_CSV); as que faltarem
+     * ficam null, e id, versao, criadoEm e atualizadoEm são ignoradas. Celula vazia é null, como na exportação.
+     * Linha com mais ou menos celulas que o cabeçalho é rejeitada: com uma coluna deslocada os valores iriam
+     * para os campos errados.
+     */
+    private static Aluno alunoCsv(Object linha) {
+        LinhaCsv csv = (LinhaCsv) linha;
+        if (csv.valores().length != csv.cabecalho().length) {
+            throw new IllegalArgumentException("Linha com " + csv.valores().length + " colunas, o cabeçalho tem "
+                    + csv.cabecalho().length);
+        }
+        Map<String, String> colunas = new HashMap<>(csv.cabecalho().length * 2);
+        for (int i = 0; i < csv.cabecalho().length; i++) {
+            colunas.put(csv.cabecalho()[i], csv.valores()[i]);
+        }
+        Aluno aluno = new Aluno();
+        aluno.setNome(texto(colunas, "nome"));
+        aluno.setIdade(numero(colunas, "idade"));
+        aluno.setDocumento(texto(colunas, "documento"));
+        Endereco endereco = new Endereco(texto(colunas, "endereco.nome"), numero(colunas, "endereco.numero"),
+                texto(colunas, "endereco.complemento"), texto(colunas, "endereco.cep"),
+                texto(colunas, "endereco.cidade"));
+        if (endereco.getNome() != null || endereco.getNumero() != null || endereco.getComplemento() != null
+                || endereco.getCep() != null || endereco.getCidade() != null) {
+            aluno.setEndereco(endereco);
+        }
+        return aluno;
+    }
+
+    private static String texto(Map<String, String> colunas, String coluna) {
+        String valor = colunas.get(coluna);
+        return valor == null || valor.isEmpty() ? null : valor;
+    }
+
+    private static Long numero(Map<String, String> colunas, String coluna) {
+        String valor = texto(colunas, coluna);
+        try {
+            return valor == null ? null : Long.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Campo " + coluna + " não é um numero: " + valor);
+        }
+    }
+
+    private static void apaga(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Arquivo temporario {} não foi apagado", arquivo, e);
+        }
+    }
+
+    /**
+     * O status de uma importação terminada fica disponivel por alunos.importacao.retencao.
+     */
+    @Scheduled(fixedDelayString = "${alunos.importacao.limpeza-ms:3600000}")
+    public void esqueceTerminadas() {
+        Instant limite = Instant.now().minus(retencao);
+        importacoes.values().removeIf(importacao -> importacao.terminouAntesDe(limite));
+    }
+
+    @PreDestroy
+    void encerra() {
+        leitura.shutdownNow();
+        validacao.shutdownNow();
+        gravacao.shutdownNow();
+    }
+
+    private interface Leitor extends Closeable {
+        /**
+         * @return as proximas linhas, até o tamanho do lote; vazia no fim do arquivo
+         */
+        List<LinhaLida> proximoLote() throws IOException;
+    }
+
+    /**
+     * Um aluno por linha; linhas em branco são puladas, mas contam na numeração.
+     */
+    private class LeitorNdjson implements Leitor {
+        private final BufferedReader linhas;
+        private int numero;
+
+        LeitorNdjson(Path arquivo) throws IOException {
+            this.linhas = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public List<LinhaLida> proximoLote() throws IOException {
+            List<LinhaLida> lote = new ArrayList<>(tamanhoLote);
+            String linha;
+            while (lote.size() < tamanhoLote && (linha = linhas.readLine()) != null) {
+                numero++;
+                if (!linha.isBlank()) {
+                    lote.add(new LinhaLida(numero, linha));
+                }
+            }
+            return lote;
+        }
+
+        @Override
+        public void close() throws IOException {
+            linhas.close();
+        }
+    }
+
+    /**
+     * A primeira linha é o cabeçalho com os nomes das colunas, em qualquer ordem.
+     */
+    private class LeitorCsv implements Leitor {
+        private final MappingIterator<String[]> linhas;
+        private final String[] cabecalho;
+
+        LeitorCsv(Path arquivo) throws IOException {
+            this.linhas = csvReader.readValues(Files.newBufferedReader(arquivo, StandardCharsets.UTF_8));
+            this.cabecalho = linhas.hasNext() ? linhas.next() : new String[0];
+        }
+
+        @Override
+        public List<LinhaLida> proximoLote() {
+            List<LinhaLida> lote = new ArrayList<>(tamanhoLote);
+            while (lote.size() < tamanhoLote && linhas.hasNext()) {
+                // o hasNext já parou o parser no inicio do registro: celula com quebra de linha e linha em branco
+                // pulada entram na conta
+                int numero = linhas.getParser().getCurrentLocation().getLineNr();
+                lote.add(new LinhaLida(numero, new LinhaCsv(cabecalho, linhas.next())));
+            }
+            return lote;
+        }
+
+        @Override
+        public void close() throws IOException {
+            linhas.close();
+        }
+    }
+}
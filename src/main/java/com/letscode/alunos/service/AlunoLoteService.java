@@ -0,0 +1,11 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.ResultadoLote;
+
+import java.util.Iterator;
+import java.util.List;
+
+public interface AlunoLoteService {
+    List<ResultadoLote> salvarEmLote(Iterator<Aluno> alunos);
+}
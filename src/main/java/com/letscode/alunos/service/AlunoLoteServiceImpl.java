@@ -0,0 +1,159 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.config.BulkheadConfig;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.model.ResultadoLote;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Grava muitos alunos de uma vez. Os alunos são lidos do iterator conforme chegam e gravados em lotes,
+ * cada lote na sua propria transação, com os inserts agrupados pelo batch do JDBC (hibernate.jdbc.batch_size).
+ * Os eventos CRIADO dos alunos do lote vão para o outbox na mesma transação, também em batch.
+ */
+@Service
+public class AlunoLoteServiceImpl implements AlunoLoteService {
+
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoLote;
+    private final IndiceDeNomes indiceDeNomes;
+    private final RegistroDeEventos eventos;
+    private final EstatisticasDeAlunos estatisticas;
+
+    public AlunoLoteServiceImpl(EntityManager entityManager, Validator validator,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${alunos.lote.tamanho:500}") int tamanhoLote,
+                                IndiceDeNomes indiceDeNomes, RegistroDeEventos eventos,
+                                EstatisticasDeAlunos estatisticas,
+                                @Value("${alunos.timeout.lote:8}") int timeoutLote) {
+        this.entityManager = entityManager;
+        this.indiceDeNomes = indiceDeNomes;
+        this.eventos = eventos;
+        this.estatisticas = estatisticas;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // abaixo da margem da sincronização por modifiedSince (AlunoSincronizacaoServiceImpl)
+        this.transactionTemplate.setTimeout(timeoutLote);
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Importações têm bulkhead proprio: uma carga grande não ocupa as vagas das escritas avulsas.
+     * Os resultados saem na ordem das linhas: as rejeitadas na validação esperam o lote em que cairam ser gravado.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.LOTE)
+    public List<ResultadoLote> salvarEmLote(Iterator<Aluno> alunos) {
+        List<ResultadoLote> resultados = new ArrayList<>();
+        List<Aluno> lote = new ArrayList<>(tamanhoLote);
+        List<Integer> linhas = new ArrayList<>(tamanhoLote);
+        List<ResultadoLote> invalidas = new ArrayList<>();
+        int linha = 0;
+
+        while (alunos.hasNext()) {
+            Aluno aluno = alunos.next();
+            Set<ConstraintViolation<Aluno>> violacoes = validator.validate(aluno);
+            if (violacoes.isEmpty()) {
+                // o lote só faz insert, o id sempre vem da sequence
+                aluno.setId(null);
+                lote.add(aluno);
+                linhas.add(linha);
+            } else {
+                invalidas.add(ResultadoLote.rejeitado(linha, mensagem(violacoes)));
+            }
+            linha++;
+
+            if (lote.size() == tamanhoLote) {
+                intercala(gravaLote(lote, linhas), invalidas, resultados);
+                lote.clear();
+                linhas.clear();
+                invalidas.clear();
+            }
+        }
+        intercala(lote.isEmpty() ? List.of() : gravaLote(lote, linhas), invalidas, resultados);
+        return resultados;
+    }
+
+    /**
+     * Junta em resultados, pela linha, os gravados de um lote e as rejeitadas na validação entre as linhas dele;
+     * as duas listas já vêm em ordem.
+     */
+    private static void intercala(List<ResultadoLote> gravados, List<ResultadoLote> invalidas,
+                                  List<ResultadoLote> resultados) {
+        int i = 0;
+        int j = 0;
+        while (i < gravados.size() || j < invalidas.size()) {
+            if (j == invalidas.size()
+                    || (i < gravados.size() && gravados.get(i).getLinha() < invalidas.get(j).getLinha())) {
+                resultados.add(gravados.get(i++));
+            } else {
+                resultados.add(invalidas.get(j++));
+            }
+        }
+    }
+
+    private List<ResultadoLote> gravaLote(List<Aluno> lote, List<Integer> linhas) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persiste(lote));
+        } catch (RuntimeException e) {
+            // algum aluno do lote foi recusado pelo banco (ex.: documento repetido), grava um a um para saber qual
+            return gravaUmAUm(lote, linhas);
+        }
+        List<ResultadoLote> resultados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            Aluno aluno = lote.get(i);
+            indiceDeNomes.indexa(aluno.getId(), aluno.getNome());
+            estatisticas.inclui(DimensoesAluno.de(aluno));
+            resultados.add(ResultadoLote.criado(linhas.get(i), aluno.getId()));
+        }
+        return resultados;
+    }
+
+    private List<ResultadoLote> gravaUmAUm(List<Aluno> lote, List<Integer> linhas) {
+        List<ResultadoLote> resultados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            Aluno aluno = lote.get(i);
+            aluno.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> persiste(List.of(aluno)));
+                indiceDeNomes.indexa(aluno.getId(), aluno.getNome());
+                estatisticas.inclui(DimensoesAluno.de(aluno));
+                resultados.add(ResultadoLote.criado(linhas.get(i), aluno.getId()));
+            } catch (RuntimeException e) {
+                resultados.add(ResultadoLote.rejeitado(linhas.get(i), NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+        return resultados;
+    }
+
+    private void persiste(List<Aluno> lote) {
+        lote.forEach(entityManager::persist);
+        // o persist já trouxe o id da sequence, os eventos entram no mesmo flush
+        lote.forEach(aluno -> eventos.registra(EventoAluno.Tipo.CRIADO, aluno.getId(), aluno.getVersao(), aluno));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    static String mensagem(Set<ConstraintViolation<Aluno>> violacoes) {
+        return violacoes.stream()
+                .map(ConstraintViolation::getMessage)
+                .collect(Collectors.joining(", "));
+    }
+}
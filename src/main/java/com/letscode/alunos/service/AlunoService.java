@@ -1,19 +1,41 @@
 package com.letscode.alunos.service;
 
 import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.AlunoResumo;
+import com.letscode.alunos.model.EstatisticasAlunos;
+import com.letscode.alunos.model.FiltroAluno;
+import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AlunoService {
-    Aluno salvar(Aluno aluno);
+    /**
+     * @param versao versão do If-Match; null salva sobre qualquer versão
+     */
+    Aluno salvar(Aluno aluno, Long versao);
     Aluno buscaPorId(Long id) throws Exception;
     List<Aluno> buscaTodos();
-    Aluno alterarAluno(Long id, String nome) throws Exception;
-    String delete(Long id) throws Exception;
+    List<Aluno> buscaPagina(Long after, Integer limit);
+    List<AlunoResumo> buscaResumos(Long after, Integer limit);
+    List<Map<String, Object>> buscaCampos(FiltroAluno filtro, Pageable pageable, List<String> campos);
+    List<Map<String, Object>> buscaPaginaCampos(Long after, Integer limit, List<String> campos);
+    void paraCadaAluno(Consumer<Aluno> consumidor);
+    Aluno alterarAluno(Long id, String nome, Long versao) throws Exception;
+    long alterarCampos(Long id, Map<String, Object> patch, Long versao) throws Exception;
+    String delete(Long id, Long versao) throws Exception;
+    int deletaPorIds(Collection<Long> ids);
+    int deletaPorFiltro(FiltroAluno filtro);
 
     List<Aluno> buscaPorNome(String nome);
 
     List<Aluno> buscaPorIdade(Long idade);
 
-    List<Aluno> filter(String nome, Long idade, String documento);
+    List<Aluno> pesquisaPorNome(String texto, int pagina, int tamanho);
+
+    List<Aluno> filter(FiltroAluno filtro, Pageable pageable);
+
+    EstatisticasAlunos estatisticas();
 }
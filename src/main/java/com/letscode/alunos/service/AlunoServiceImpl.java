@@ -1,87 +1,537 @@
 package com.letscode.alunos.service;
 
+import com.letscode.alunos.config.BulkheadConfig;
+import com.letscode.alunos.config.CacheConfig;
 import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.AlunoRemovido;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.model.AlunoResumo;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.model.EstatisticasAlunos;
+import com.letscode.alunos.model.FiltroAluno;
 import com.letscode.alunos.repository.AlunoRepository;
+import com.letscode.alunos.repository.AlunoSpecifications;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
+ * Cada grupo de metodos tem o seu bulkhead (BulkheadConfig) e o seu timeout de transação em segundos
+ * (alunos.timeout.*), assim listagens pesadas e escritas em massa não tomam as conexões das buscas por id.
+ * O cache fica por fora dos dois: um hit não ocupa vaga nem conexão.
+ * Toda escrita grava também o seu evento no outbox (RegistroDeEventos), na mesma transação, e toda exclusão
+ * deixa uma lapide (AlunoRemovido) para a sincronização por modifiedSince. Inclusões, exclusões e alterações de
+ * idade ou cidade também atualizam as EstatisticasDeAlunos.
+ *
  * O Spring percebe que temos a classe anotada com @Service, e irá instanciar essa classe e registrá-la em seu ApplicationContext
  * tornando nossa classe um Bean Spring-managed.
  */
 @Service
 public class AlunoServiceImpl implements AlunoService {
 
+    static final String ALUNO_NAO_ENCONTRADO = "Aluno não foi encontrado";
+    static final String VERSAO_DESATUALIZADA = "Aluno foi alterado por outra requisição, busque a versão atual";
+    static final int LIMITE_PADRAO = 100;
+    static final int LIMITE_MAXIMO = 1000;
+    static final List<String> CAMPOS = List.of("id", "nome", "idade", "documento", "endereco");
+    private static final List<String> PARTES_ENDERECO = List.of("nome", "numero", "complemento", "cep", "cidade");
+
+    private static final String TIMEOUT_LEITURA_POR_ID = "${alunos.timeout.leitura-por-id:2}";
+    private static final String TIMEOUT_LISTAGEM = "${alunos.timeout.listagem:10}";
+    private static final String TIMEOUT_ESCRITA = "${alunos.timeout.escrita:5}";
+
     private final AlunoRepository alunoRepository;
+    private final EntityManager entityManager;
+    private final IndiceDeNomes indiceDeNomes;
+    private final RegistroDeEventos eventos;
+    private final EstatisticasDeAlunos estatisticas;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
 
-    public AlunoServiceImpl(AlunoRepository alunoRepository) {
+    public AlunoServiceImpl(AlunoRepository alunoRepository, EntityManager entityManager, IndiceDeNomes indiceDeNomes,
+                            RegistroDeEventos eventos, EstatisticasDeAlunos estatisticas,
+                            PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                            @Value(TIMEOUT_ESCRITA) int timeoutEscrita) {
         this.alunoRepository = alunoRepository;
+        this.entityManager = entityManager;
+        this.indiceDeNomes = indiceDeNomes;
+        this.eventos = eventos;
+        this.estatisticas = estatisticas;
+        // uma transação por pagina do deletaPorFiltro, cada uma dentro do timeout de escrita
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(timeoutEscrita);
+        this.cacheManager = cacheManager;
     }
 
     @Override
-    public Aluno salvar(Aluno aluno) {
-        return alunoRepository.save(aluno);
+    @CachePut(cacheNames = CacheConfig.ALUNOS, key = "#result.id")
+    @Bulkhead(name = BulkheadConfig.ESCRITA)
+    @Transactional(timeoutString = TIMEOUT_ESCRITA)
+    public Aluno salvar(Aluno aluno, Long versao) {
+        Long idInformado = aluno.getId();
+        // o merge usa o aluno já carregado (e travado) aqui, e as estatisticas descontam os valores antigos
+        Aluno atual = idInformado == null ? null
+                : entityManager.find(Aluno.class, idInformado, LockModeType.PESSIMISTIC_WRITE);
+        if (versao != null && (atual == null || !versao.equals(atual.getVersao()))) {
+            throw new OptimisticLockingFailureException(VERSAO_DESATUALIZADA);
+        }
+        DimensoesAluno antes = atual == null ? null : DimensoesAluno.de(atual);
+        if (atual == null) {
+            // com id de um aluno que não existe insere com um id novo da sequence
+            aluno.setId(null);
+        }
+        // a versão não vem do corpo: o merge confere contra a do aluno travado, o If-Match já foi conferido acima
+        aluno.setVersao(atual == null ? null : atual.getVersao());
+        Aluno salvo = alunoRepository.save(aluno);
+        boolean novo = atual == null;
+        if (!novo) {
+            // a versão só soma no flush do update, e o evento leva a versão nova. O merge copiou o criadoEm
+            // que veio do cliente (nenhum), o refresh traz o gravado
+            entityManager.flush();
+            entityManager.refresh(salvo);
+        }
+        indiceDeNomes.indexa(salvo.getId(), salvo.getNome());
+        if (novo) {
+            estatisticas.inclui(DimensoesAluno.de(salvo));
+        } else if (antes != null) {
+            estatisticas.altera(antes, DimensoesAluno.de(salvo));
+        }
+        eventos.registra(novo ? EventoAluno.Tipo.CRIADO : EventoAluno.Tipo.SUBSTITUIDO, salvo.getId(), salvo.getVersao(), salvo);
+        return salvo;
     }
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.ALUNOS, key = "#id")
+    @Bulkhead(name = BulkheadConfig.LEITURA_POR_ID)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LEITURA_POR_ID)
     public Aluno buscaPorId(Long id) throws Exception {
         var aluno =  alunoRepository.findById(id);
 
         if (aluno.isEmpty()) {
-            throw new Exception("Aluno não foi encontrado");
+            throw new Exception(ALUNO_NAO_ENCONTRADO);
         }
 
         return aluno.get();
     }
 
     @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
     public List<Aluno> buscaTodos() {
         return alunoRepository.findAll();
     }
 
     @Override
-    public Aluno alterarAluno(Long id, String nome) throws Exception {
-        Aluno aluno = buscaPorId(id);
-        aluno.setNome(nome);
-        alunoRepository.save(aluno);
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
+    public List<Aluno> buscaPagina(Long after, Integer limit) {
+        return alunoRepository.findByIdGreaterThanOrderByIdAsc(cursor(after), PageRequest.of(0, tamanhoPagina(limit)));
+    }
+
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
+    public List<AlunoResumo> buscaResumos(Long after, Integer limit) {
+        return alunoRepository.buscaResumos(cursor(after), PageRequest.of(0, tamanhoPagina(limit)));
+    }
+
+    /**
+     * Só as colunas pedidas (?fields=id,nome), sem montar entidades. Sem paginação traz todos, como o buscaTodos.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
+    public List<Map<String, Object>> buscaCampos(FiltroAluno filtro, Pageable pageable, List<String> campos) {
+        validaCampos(campos);
+        Pageable limitado = pageable.isPaged() && pageable.getPageSize() > LIMITE_MAXIMO
+                ? PageRequest.of(pageable.getPageNumber(), LIMITE_MAXIMO, pageable.getSort())
+                : pageable;
+        return alunoRepository.projeta(AlunoSpecifications.comFiltro(filtro), limitado, campos);
+    }
+
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
+    public List<Map<String, Object>> buscaPaginaCampos(Long after, Integer limit, List<String> campos) {
+        validaCampos(campos);
+        return alunoRepository.projeta(AlunoSpecifications.idMaiorQue(cursor(after)),
+                PageRequest.of(0, tamanhoPagina(limit), Sort.by("id")), campos);
+    }
+
+    private static long cursor(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    /**
+     * Tamanho de pagina dos parametros limit: LIMITE_PADRAO quando não informado, senão entre 1 e LIMITE_MAXIMO.
+     */
+    static int tamanhoPagina(Integer limit) {
+        return limit == null ? LIMITE_PADRAO : limita(limit);
+    }
+
+    static int limita(int tamanho) {
+        return Math.max(1, Math.min(tamanho, LIMITE_MAXIMO));
+    }
+
+    private static void validaCampos(List<String> campos) {
+        if (campos.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um campo em fields");
+        }
+        for (String campo : campos) {
+            if (!CAMPOS.contains(campo)) {
+                throw new IllegalArgumentException("Campo " + campo + " não existe, use " + String.join(",", CAMPOS));
+            }
+        }
+    }
+
+    /**
+     * Entrega os alunos um a um para o consumidor. Cada aluno é desanexado do contexto de persistencia
+     * depois de consumido, assim a memoria usada não cresce com o tamanho da tabela.
+     * Sem timeout: a duração depende do ritmo de quem consome, mas ocupa uma vaga da listagem enquanto roda.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true)
+    public void paraCadaAluno(Consumer<Aluno> consumidor) {
+        try (Stream<Aluno> alunos = alunoRepository.streamTodos()) {
+            alunos.forEach(aluno -> {
+                consumidor.accept(aluno);
+                entityManager.detach(aluno);
+            });
+        }
+    }
+
+    /**
+     * Altera só o nome com um unico update, sem buscar o aluno antes para o merge.
+     * Devolve o aluno inteiro, lido pelo id depois do update (o update limpa o contexto de persistencia, então a
+     * leitura já traz o nome e a versão novos), e ele já entra no cache no lugar do antigo.
+     * Com versao informada o update só acontece se o aluno ainda estiver nela.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.ESCRITA)
+    @Transactional(timeoutString = TIMEOUT_ESCRITA)
+    @CachePut(cacheNames = CacheConfig.ALUNOS, key = "#id")
+    public Aluno alterarAluno(Long id, String nome, Long versao) throws Exception {
+        if (alunoRepository.atualizaNome(id, nome, versao) == 0) {
+            throw naoAlterado(id);
+        }
+        indiceDeNomes.indexa(id, nome);
+        Aluno aluno = alunoRepository.findById(id).orElseThrow(() -> new Exception(ALUNO_NAO_ENCONTRADO));
+        eventos.registra(EventoAluno.Tipo.ALTERADO, id, aluno.getVersao(), Map.of("nome", nome));
         return aluno;
     }
 
+    /**
+     * O update/delete condicional não afetou nenhuma linha: ou o aluno não existe, ou outra requisição
+     * já gravou uma versão mais nova (lost update evitado).
+     */
+    private Exception naoAlterado(Long id) {
+        if (alunoRepository.buscaVersao(id).isPresent()) {
+            return new OptimisticLockingFailureException(VERSAO_DESATUALIZADA);
+        }
+        return new Exception(ALUNO_NAO_ENCONTRADO);
+    }
+
+    /**
+     * Versão depois do update: quem mandou a versão lida já sabe que é a seguinte, sem ir ao banco.
+     */
+    private long novaVersao(Long id, Long versao) throws Exception {
+        if (versao != null) {
+            return versao + 1;
+        }
+        return alunoRepository.buscaVersao(id).orElseThrow(() -> new Exception(ALUNO_NAO_ENCONTRADO));
+    }
+
+    /**
+     * JSON Merge Patch (RFC 7396): campo presente com valor altera, campo presente com null limpa,
+     * campo ausente fica como está. Tudo em um unico update só com as colunas enviadas.
+     */
     @Override
-    public String delete(Long id) throws Exception {
-        alunoRepository.deleteById(buscaPorId(id).getId());
+    @Bulkhead(name = BulkheadConfig.ESCRITA)
+    @Transactional(timeoutString = TIMEOUT_ESCRITA)
+    @CacheEvict(cacheNames = CacheConfig.ALUNOS, key = "#id")
+    public long alterarCampos(Long id, Map<String, Object> patch, Long versao) throws Exception {
+        Map<String, Object> campos = new LinkedHashMap<>();
+        patch.forEach((campo, valor) -> {
+            if ("endereco".equals(campo)) {
+                adicionaEndereco(campos, valor);
+            } else {
+                campos.put(campo, converteCampo(campo, valor));
+            }
+        });
+
+        if (campos.isEmpty()) {
+            // patch vazio não grava nada, só confere se o aluno existe e está na versão informada
+            long atual = alunoRepository.buscaVersao(id).orElseThrow(() -> new Exception(ALUNO_NAO_ENCONTRADO));
+            if (versao != null && versao != atual) {
+                throw new OptimisticLockingFailureException(VERSAO_DESATUALIZADA);
+            }
+            return atual;
+        }
+        DimensoesAluno antes = campos.containsKey("idade") || campos.containsKey("endereco.cidade")
+                ? dimensoesTravando(id) : null;
+        if (alunoRepository.atualizaCampos(id, campos, versao) == 0) {
+            throw naoAlterado(id);
+        }
+        if (antes != null) {
+            estatisticas.altera(antes, new DimensoesAluno(id,
+                    campos.containsKey("idade") ? (Long) campos.get("idade") : antes.idade(),
+                    campos.containsKey("endereco.cidade") ? (String) campos.get("endereco.cidade") : antes.cidade()));
+        }
+        if (campos.containsKey("nome")) {
+            indiceDeNomes.indexa(id, (String) campos.get("nome"));
+        }
+        long nova = novaVersao(id, versao);
+        // os campos já convertidos, partes do endereço como "endereco.cep"
+        eventos.registra(EventoAluno.Tipo.ALTERADO, id, nova, campos);
+        return nova;
+    }
+
+    /**
+     * Idade e cidade atuais com a linha travada (select ... for update) até o fim da transação,
+     * assim nenhuma escrita concorrente muda o aluno entre a leitura e o update. null se o aluno não existe.
+     */
+    private DimensoesAluno dimensoesTravando(Long id) {
+        Aluno atual = entityManager.find(Aluno.class, id, LockModeType.PESSIMISTIC_WRITE);
+        return atual == null ? null : DimensoesAluno.de(atual);
+    }
+
+    private Object converteCampo(String campo, Object valor) {
+        switch (campo) {
+            case "nome":
+                if (valor == null) {
+                    throw new IllegalArgumentException("Campo nome é obrigatorio");
+                }
+                return texto(campo, valor);
+            case "documento":
+                return valor == null ? null : texto(campo, valor);
+            case "idade":
+                return numero(campo, valor);
+            default:
+                throw new IllegalArgumentException("Campo " + campo + " não pode ser alterado");
+        }
+    }
+
+    /**
+     * null limpa o endereço inteiro, texto troca só o logradouro (formato antigo)
+     * e objeto altera só as partes enviadas, como o resto do merge patch.
+     */
+    private void adicionaEndereco(Map<String, Object> campos, Object valor) {
+        if (valor == null) {
+            PARTES_ENDERECO.forEach(parte -> campos.put("endereco." + parte, null));
+        } else if (valor instanceof String) {
+            campos.put("endereco.nome", valor);
+        } else if (valor instanceof Map) {
+            ((Map<?, ?>) valor).forEach((parte, valorParte) ->
+                    campos.put("endereco." + parte, converteParteEndereco("endereco." + parte, valorParte)));
+        } else {
+            throw new IllegalArgumentException("Campo endereco deve ser texto ou objeto");
+        }
+    }
+
+    private Object converteParteEndereco(String campo, Object valor) {
+        switch (campo) {
+            case "endereco.nome":
+            case "endereco.complemento":
+            case "endereco.cep":
+            case "endereco.cidade":
+                return valor == null ? null : texto(campo, valor);
+            case "endereco.numero":
+                return numero(campo, valor);
+            default:
+                throw new IllegalArgumentException("Campo " + campo + " não pode ser alterado");
+        }
+    }
+
+    private Long numero(String campo, Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (!(valor instanceof Number)) {
+            throw new IllegalArgumentException("Campo " + campo + " deve ser numerico");
+        }
+        return ((Number) valor).longValue();
+    }
+
+    private String texto(String campo, Object valor) {
+        if (!(valor instanceof String)) {
+            throw new IllegalArgumentException("Campo " + campo + " deve ser texto");
+        }
+        return (String) valor;
+    }
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.ALUNOS, key = "#id")
+    @Bulkhead(name = BulkheadConfig.ESCRITA)
+    @Transactional(timeoutString = TIMEOUT_ESCRITA)
+    public String delete(Long id, Long versao) throws Exception {
+        List<DimensoesAluno> apagados = alunoRepository.apagaDevolvendoDimensoes(List.of(id), versao);
+        if (apagados.isEmpty()) {
+            throw naoAlterado(id);
+        }
+        removido(apagados.get(0));
         return "Aluno deletado";
     }
 
     @Override
+    @Bulkhead(name = BulkheadConfig.ESCRITA)
+    @Transactional(timeoutString = TIMEOUT_ESCRITA)
+    @CacheEvict(cacheNames = CacheConfig.ALUNOS, allEntries = true)
+    public int deletaPorIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return apaga(new ArrayList<>(ids));
+    }
+
+    /**
+     * Apaga em paginas de LIMITE_MAXIMO ids pela ordem do id, cada pagina na sua transação: um filtro que pega a
+     * tabela inteira não junta todos os ids em memoria nem estoura o timeout de escrita. Cada pagina busca os ids
+     * do filtro e apaga por eles, então o que foi apagado é exatamente o que vira evento e lapide. Se uma pagina
+     * falhar, as anteriores continuam apagadas.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.ESCRITA)
+    public int deletaPorFiltro(FiltroAluno filtro) {
+        if (filtro.isVazio()) {
+            throw new IllegalArgumentException("Informe ids ou ao menos um filtro para deletar");
+        }
+        int deletados = 0;
+        Long ultimo = null;
+        while (true) {
+            List<Long> ids = new ArrayList<>(LIMITE_MAXIMO);
+            Long cursor = ultimo;
+            Integer apagados = transactionTemplate.execute(status -> {
+                alunoRepository.projeta(AlunoSpecifications.comFiltro(filtro).and(AlunoSpecifications.idMaiorQue(cursor)),
+                                PageRequest.of(0, LIMITE_MAXIMO, Sort.by("id")), List.of("id"))
+                        .forEach(linha -> ids.add((Long) linha.get("id")));
+                return ids.isEmpty() ? 0 : apaga(ids);
+            });
+            deletados += apagados;
+            tiraDoCache(ids);
+            if (ids.size() < LIMITE_MAXIMO) {
+                return deletados;
+            }
+            ultimo = ids.get(ids.size() - 1);
+        }
+    }
+
+    private void tiraDoCache(List<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.ALUNOS);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+
+    /**
+     * Apaga em blocos de LIMITE_MAXIMO ids; cada aluno que existia gera evento e lapide e sai das estatisticas.
+     */
+    private int apaga(List<Long> ids) {
+        int deletados = 0;
+        for (int inicio = 0; inicio < ids.size(); inicio += LIMITE_MAXIMO) {
+            List<Long> bloco = ids.subList(inicio, Math.min(ids.size(), inicio + LIMITE_MAXIMO));
+            for (DimensoesAluno apagado : alunoRepository.apagaDevolvendoDimensoes(bloco, null)) {
+                removido(apagado);
+                deletados++;
+            }
+        }
+        return deletados;
+    }
+
+    private void removido(DimensoesAluno apagado) {
+        Long id = apagado.id();
+        indiceDeNomes.remove(id);
+        estatisticas.remove(apagado);
+        eventos.registra(EventoAluno.Tipo.REMOVIDO, id, null, null);
+        entityManager.persist(new AlunoRemovido(id, Aluno.agora()));
+    }
+
+    /**
+     * Sai das EstatisticasDeAlunos em memoria: não ocupa vaga de bulkhead nem conexão.
+     */
+    @Override
+    public EstatisticasAlunos estatisticas() {
+        return estatisticas.resumo();
+    }
+
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
     public List<Aluno> buscaPorNome(String nome) {
         return alunoRepository.findByNome(nome);
     }
 
     @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
     public List<Aluno> buscaPorIdade(Long idade) {
         return alunoRepository.findAllByIdade(idade);
     }
 
+    /**
+     * Pesquisa no IndiceDeNomes e busca no banco só os alunos da pagina, na ordem de relevancia.
+     * Ids que o indice ainda tem mas o banco não (ex.: apagados por filtro) são tirados do indice.
+     */
     @Override
-    public List<Aluno> filter(String nome, Long idade, String documento) {
-        if (nome != null && idade == null && documento == null) {
-            return alunoRepository.findByNome(nome);
+    @Bulkhead(name = BulkheadConfig.LEITURA_POR_ID)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LEITURA_POR_ID)
+    public List<Aluno> pesquisaPorNome(String texto, int pagina, int tamanho) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("Informe o texto da pesquisa");
         }
-        if (nome == null && idade != null && documento == null) {
-            return alunoRepository.findAllByIdade(idade);
+        if (indiceDeNomes.isCarregando()) {
+            throw new IndiceEmCargaException();
         }
-
-        Optional<Aluno> aluno = alunoRepository
-                .findByNomeAndIdadeAndDocumento(nome, idade, documento);
-
-        if (aluno.isEmpty()) {
+        int limite = limita(tamanho);
+        List<Long> ids = indiceDeNomes.busca(texto, Math.max(0, pagina), limite);
+        if (ids.isEmpty()) {
             return List.of();
         }
 
-        return List.of(aluno.get());
+        Map<Long, Aluno> porId = new HashMap<>();
+        alunoRepository.findAllById(ids).forEach(aluno -> porId.put(aluno.getId(), aluno));
+        List<Aluno> alunos = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Aluno aluno = porId.get(id);
+            if (aluno != null) {
+                alunos.add(aluno);
+            } else {
+                indiceDeNomes.remove(id);
+            }
+        }
+        return alunos;
+    }
+
+    /**
+     * Monta uma unica consulta só com as condições informadas no filtro.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = TIMEOUT_LISTAGEM)
+    public List<Aluno> filter(FiltroAluno filtro, Pageable pageable) {
+        return alunoRepository.filtra(AlunoSpecifications.comFiltro(filtro), pageable);
     }
 }
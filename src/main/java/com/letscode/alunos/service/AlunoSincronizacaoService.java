@@ -0,0 +1,8 @@
+package com.letscode.alunos.service;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface AlunoSincronizacaoService {
+    List<Object> buscaAlteracoes(Instant modifiedSince, Long after, Integer limit);
+}
@@ -0,0 +1,100 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.config.BulkheadConfig;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.AlunoRemovido;
+import com.letscode.alunos.repository.AlunoRemovidoRepository;
+import com.letscode.alunos.repository.AlunoRepository;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sincronização incremental para quem mantém uma copia dos alunos: GET /alunos?modifiedSince=&after=
+ * traz os alunos alterados e as lapides dos apagados depois do cursor, juntos e em ordem de (hora, id).
+ * O cliente guarda a hora (atualizadoEm ou removidoEm) e o id do ultimo item e manda na proxima chamada.
+ * <p>
+ * Só entram alterações até agora - margem: uma transação que gravou a hora antes de outra pode commitar depois
+ * dela, e sem a margem o cursor do cliente passaria por cima. A margem precisa ser maior que o timeout de escrita.
+ */
+@Service
+public class AlunoSincronizacaoServiceImpl implements AlunoSincronizacaoService {
+
+    private final AlunoRepository alunoRepository;
+    private final AlunoRemovidoRepository alunoRemovidoRepository;
+    private final Duration margem;
+    private final Duration retencaoRemovidos;
+
+    public AlunoSincronizacaoServiceImpl(AlunoRepository alunoRepository, AlunoRemovidoRepository alunoRemovidoRepository,
+                                         @Value("${alunos.sincronizacao.margem:10s}") Duration margem,
+                                         @Value("${alunos.sincronizacao.retencao-removidos:30d}") Duration retencaoRemovidos,
+                                         @Value("${alunos.timeout.escrita:5}") int timeoutEscrita,
+                                         @Value("${alunos.timeout.lote:8}") int timeoutLote) {
+        // a margem só vale se nenhuma transação que grava alunos dura mais que ela: toda escrita tem timeout,
+        // as avulsas alunos.timeout.escrita e as de lote (batch e import) alunos.timeout.lote
+        if (margem.compareTo(Duration.ofSeconds(Math.max(timeoutEscrita, timeoutLote))) <= 0) {
+            throw new IllegalArgumentException("alunos.sincronizacao.margem deve ser maior que alunos.timeout.escrita "
+                    + "e alunos.timeout.lote");
+        }
+        this.alunoRepository = alunoRepository;
+        this.alunoRemovidoRepository = alunoRemovidoRepository;
+        this.margem = margem;
+        this.retencaoRemovidos = retencaoRemovidos;
+    }
+
+    /**
+     * @param modifiedSince hora do ultimo item recebido; 1970-01-01T00:00:00Z traz todos os alunos (copia inicial)
+     * @param after id do ultimo item recebido, desempata itens com a mesma hora
+     * @return Aluno para incluir/atualizar e AlunoRemovido para apagar, até limit itens
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.LISTAGEM)
+    @Transactional(readOnly = true, timeoutString = "${alunos.timeout.listagem:10}")
+    public List<Object> buscaAlteracoes(Instant modifiedSince, Long after, Integer limit) {
+        Instant agora = Aluno.agora();
+        if (modifiedSince.isAfter(Instant.EPOCH) && modifiedSince.isBefore(agora.minus(retencaoRemovidos))) {
+            throw new SincronizacaoExpiradaException();
+        }
+        Instant ate = agora.minus(margem);
+        long id = after == null ? 0L : after;
+        int limite = AlunoServiceImpl.tamanhoPagina(limit);
+        PageRequest pagina = PageRequest.of(0, limite);
+
+        // cada consulta anda no seu indice; juntando as duas paginas os primeiros "limite" itens saem na ordem certa
+        List<Aluno> alterados = alunoRepository.buscaAlteradosDepoisDe(modifiedSince, id, ate, pagina);
+        List<AlunoRemovido> removidos = alunoRemovidoRepository.buscaRemovidosDepoisDe(modifiedSince, id, ate, pagina);
+        List<Object> itens = new ArrayList<>(Math.min(limite, alterados.size() + removidos.size()));
+        int a = 0;
+        int r = 0;
+        while (itens.size() < limite && (a < alterados.size() || r < removidos.size())) {
+            if (r == removidos.size() || (a < alterados.size() && antes(alterados.get(a), removidos.get(r)))) {
+                itens.add(alterados.get(a++));
+            } else {
+                itens.add(removidos.get(r++));
+            }
+        }
+        return itens;
+    }
+
+    private static boolean antes(Aluno aluno, AlunoRemovido removido) {
+        int comparacao = aluno.getAtualizadoEm().compareTo(removido.getRemovidoEm());
+        return comparacao != 0 ? comparacao < 0 : aluno.getId() < removido.getId();
+    }
+
+    /**
+     * Lapides mais antigas que a retenção não servem mais: quem estiver tão atrasado recebe 410 e refaz a copia.
+     */
+    @Scheduled(fixedDelayString = "${alunos.sincronizacao.limpeza-ms:3600000}")
+    @Transactional
+    public void apagaRemovidosAntigos() {
+        alunoRemovidoRepository.apagaAntesDe(Aluno.agora().minus(retencaoRemovidos));
+    }
+}
@@ -0,0 +1,60 @@
+package com.letscode.alunos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.letscode.alunos.entity.EventoAluno;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Log local em NDJSON (alunos.eventos.destino=arquivo), um evento por linha, só acrescentando no fim do arquivo.
+ * Cada lote vira uma unica escrita e um unico fsync: o relay só marca o lote como publicado depois
+ * que ele está no disco.
+ */
+public class ArquivoDeEventos implements DestinoDeEventos, Closeable {
+
+    private final FileChannel canal;
+    private final ObjectWriter writer;
+
+    public ArquivoDeEventos(Path arquivo, ObjectMapper objectMapper) throws IOException {
+        Path diretorio = arquivo.toAbsolutePath().getParent();
+        if (diretorio != null) {
+            Files.createDirectories(diretorio);
+        }
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.writer = objectMapper.writerFor(EventoAluno.class);
+    }
+
+    @Override
+    public synchronized void publica(List<EventoAluno> eventos) {
+        try {
+            ByteArrayOutputStream linhas = new ByteArrayOutputStream(eventos.size() * 256);
+            for (EventoAluno evento : eventos) {
+                linhas.write(writer.writeValueAsBytes(evento));
+                linhas.write('\n');
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(linhas.toByteArray());
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+}
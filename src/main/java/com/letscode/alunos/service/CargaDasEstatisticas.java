@@ -0,0 +1,35 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.repository.AlunoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monta as EstatisticasDeAlunos com os group by do AlunoRepository; daí em diante as escritas mantêm as contagens.
+ * <p>
+ * Ao contrario da CargaDoIndiceDeNomes, roda antes do servidor aceitar requisições: as contagens são somas, e uma
+ * escrita que terminasse durante a carga poderia entrar no group by e no incremento ao mesmo tempo. Os dois
+ * group by só leem os indices de idade e de cidade, bem mais rapido que percorrer os alunos.
+ */
+@Component
+public class CargaDasEstatisticas implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaDasEstatisticas.class);
+
+    private final AlunoRepository alunoRepository;
+    private final EstatisticasDeAlunos estatisticas;
+
+    public CargaDasEstatisticas(AlunoRepository alunoRepository, EstatisticasDeAlunos estatisticas) {
+        this.alunoRepository = alunoRepository;
+        this.estatisticas = estatisticas;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long inicio = System.nanoTime();
+        estatisticas.carrega(alunoRepository.contaPorIdade(), alunoRepository.contaPorCidade());
+        log.info("Estatisticas dos alunos carregadas em {} ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
@@ -0,0 +1,87 @@
+package com.letscode.alunos.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+
+/**
+ * Monta o IndiceDeNomes com todos os alunos do banco quando a aplicação termina de subir.
+ * Daí em diante o indice é mantido pelos servicos a cada inclusão, alteração e exclusão.
+ * <p>
+ * A carga roda numa thread propria: com o banco em arquivo e milhões de alunos ela leva segundos, e o resto
+ * da API não precisa esperar por ela. Só a pesquisa por nome responde 503 até a carga terminar.
+ * As escritas commitadas durante a carga entram no indice na hora e o IndiceDeNomes marca esses alunos:
+ * a carga, que lê uma copia anterior, pula os marcados em vez de voltar o nome antigo ou um aluno apagado.
+ * Se a carga falhar ela é refeita depois de alunos.indice.nova-tentativa, e a pesquisa continua em 503: um indice
+ * pela metade traria resultados faltando como se estivessem completos.
+ */
+@Component
+public class CargaDoIndiceDeNomes {
+
+    private static final Logger log = LoggerFactory.getLogger(CargaDoIndiceDeNomes.class);
+
+    private final AlunoService alunoService;
+    private final IndiceDeNomes indiceDeNomes;
+    private final Duration novaTentativa;
+    private volatile Thread carga;
+
+    public CargaDoIndiceDeNomes(AlunoService alunoService, IndiceDeNomes indiceDeNomes,
+                                @Value("${alunos.indice.nova-tentativa:5s}") Duration novaTentativa) {
+        this.alunoService = alunoService;
+        this.indiceDeNomes = indiceDeNomes;
+        this.novaTentativa = novaTentativa;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciaCarga() {
+        indiceDeNomes.iniciaCarga();
+        carga = new Thread(this::carrega, "carga-indice-de-nomes");
+        carga.setDaemon(true);
+        carga.start();
+    }
+
+    @PreDestroy
+    void encerra() {
+        Thread emAndamento = carga;
+        if (emAndamento != null) {
+            emAndamento.interrupt();
+        }
+    }
+
+    /**
+     * Repete até uma carga inteira dar certo. Cada tentativa passa por todos os alunos de novo; os marcados pelas
+     * escritas continuam marcados entre as tentativas, então o que uma tentativa anterior deixou no indice e foi
+     * alterado depois não volta.
+     */
+    void carrega() {
+        long inicio = System.nanoTime();
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                alunoService.paraCadaAluno(aluno -> indiceDeNomes.carrega(aluno.getId(), aluno.getNome()));
+                indiceDeNomes.terminaCarga();
+                log.info("Indice de nomes carregado com {} alunos em {} ms",
+                        indiceDeNomes.tamanho(), (System.nanoTime() - inicio) / 1_000_000);
+                return;
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                log.error("Falha ao carregar o indice de nomes (tentativa {}), a pesquisa continua indisponivel " +
+                        "e a carga recomeça em {} ms", tentativa, novaTentativa.toMillis(), e);
+            }
+            try {
+                Thread.sleep(novaTentativa.toMillis());
+            } catch (InterruptedException e) {
+                // aplicação encerrando
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
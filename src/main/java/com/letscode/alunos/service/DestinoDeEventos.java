@@ -0,0 +1,15 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.EventoAluno;
+
+import java.util.List;
+
+/**
+ * Para onde o RelayDeEventos publica os eventos do outbox, escolhido em alunos.eventos.destino (EventosConfig).
+ * Recebe cada lote já com o seq atribuido e antes do commit da publicação: se lançar exceção o lote volta
+ * a ficar pendente e é publicado de novo (entrega pelo menos uma vez, o consumidor descarta seq repetido).
+ */
+public interface DestinoDeEventos {
+
+    void publica(List<EventoAluno> eventos);
+}
@@ -0,0 +1,86 @@
+package com.letscode.alunos.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long-polls do GET /alunos/changes esperando por eventos novos. Nenhuma espera ocupa thread nem conexão:
+ * quando o RelayDeEventos publica um lote, avisa quem está esperando por um seq anterior ao ultimo publicado,
+ * e só então o consumidor consulta o banco.
+ * <p>
+ * Os avisos rodam num pool proprio (alunos.eventos.threads-aviso), não na thread do relay: cada aviso faz uma
+ * consulta, e com muitos consumidores esperando o relay ficaria uma consulta por espera atrasado a cada lote.
+ * O pool pequeno também limita quantas dessas consultas disputam o pool de conexões ao mesmo tempo.
+ */
+@Component
+public class EsperaDeEventos {
+
+    private final Set<Espera> esperas = ConcurrentHashMap.newKeySet();
+    private final int maximo;
+    private final ExecutorService avisos;
+
+    public EsperaDeEventos(@Value("${alunos.eventos.max-esperas:1000}") int maximo,
+                           @Value("${alunos.eventos.threads-aviso:4}") int threadsAviso) {
+        this.maximo = maximo;
+        this.avisos = Executors.newFixedThreadPool(threadsAviso, new CustomizableThreadFactory("aviso-eventos-"));
+    }
+
+    /**
+     * @param since ultimo seq que o consumidor já tem
+     * @param aviso roda no pool de avisos quando sair um evento depois de since
+     * @return a espera registrada, ou null quando já há esperas demais e o consumidor deve responder na hora
+     */
+    public Espera aguarda(long since, Runnable aviso) {
+        if (esperas.size() >= maximo) {
+            return null;
+        }
+        Espera espera = new Espera(since, aviso);
+        esperas.add(espera);
+        return espera;
+    }
+
+    public void desiste(Espera espera) {
+        if (espera != null) {
+            esperas.remove(espera);
+        }
+    }
+
+    public int getEsperando() {
+        return esperas.size();
+    }
+
+    /**
+     * Chamado pelo RelayDeEventos depois do commit de cada lote. Só entrega os avisos ao pool, volta sem esperar.
+     */
+    public void publicados(long ultimoSeq) {
+        for (Espera espera : esperas) {
+            // o remove garante um aviso só, mesmo com o consumidor desistindo ao mesmo tempo
+            if (espera.since < ultimoSeq && esperas.remove(espera)) {
+                avisos.execute(espera.aviso);
+            }
+        }
+    }
+
+    @PreDestroy
+    void encerra() {
+        avisos.shutdownNow();
+    }
+
+    public static final class Espera {
+
+        private final long since;
+        private final Runnable aviso;
+
+        private Espera(long since, Runnable aviso) {
+            this.since = since;
+            this.aviso = aviso;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.model.Contagem;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.model.EstatisticasAlunos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Contagens dos alunos por idade e por cidade, mantidas em memoria para o GET /alunos/stats não ler a tabela.
+ * <p>
+ * A carga inicial vem dos group by do AlunoRepository (CargaDasEstatisticas); daí em diante cada escrita soma
+ * ou subtrai o seu aluno. Guarda a contagem de cada idade, não de cada faixa: minimo, maximo e media saem dela,
+ * e a largura da faixa (alunos.estatisticas.faixa-idade) pode mudar sem recarregar.
+ * <p>
+ * As alterações feitas dentro de uma transação só contam depois do commit (Transacoes.aposCommit).
+ */
+@Component
+public class EstatisticasDeAlunos {
+
+    private final int larguraFaixa;
+
+    private final TreeMap<Long, Long> porIdade = new TreeMap<>();
+    private final Map<String, Long> porCidade = new HashMap<>();
+    private long total;
+    private long semIdade;
+    private long semCidade;
+    private long somaIdades;
+
+    public EstatisticasDeAlunos(@Value("${alunos.estatisticas.faixa-idade:10}") int larguraFaixa) {
+        if (larguraFaixa < 1) {
+            throw new IllegalArgumentException("alunos.estatisticas.faixa-idade deve ser maior que zero");
+        }
+        this.larguraFaixa = larguraFaixa;
+    }
+
+    public void inclui(DimensoesAluno aluno) {
+        Transacoes.aposCommit(() -> conta(aluno, 1));
+    }
+
+    public void remove(DimensoesAluno aluno) {
+        Transacoes.aposCommit(() -> conta(aluno, -1));
+    }
+
+    public void altera(DimensoesAluno antes, DimensoesAluno depois) {
+        Transacoes.aposCommit(() -> {
+            synchronized (this) {
+                conta(antes, -1);
+                conta(depois, 1);
+            }
+        });
+    }
+
+    /**
+     * Troca tudo pelo resultado dos group by, na hora, sem esperar transação.
+     * @param idades linhas de "select idade, count(*) group by idade", a idade null conta em semIdade
+     * @param cidades linhas de "select cidade, count(*) group by cidade", a cidade null conta em semCidade
+     */
+    synchronized void carrega(List<Contagem> idades, List<Contagem> cidades) {
+        porIdade.clear();
+        porCidade.clear();
+        total = 0;
+        semIdade = 0;
+        somaIdades = 0;
+        semCidade = 0;
+        for (Contagem idade : idades) {
+            total += idade.quantidade();
+            if (idade.valor() == null) {
+                semIdade += idade.quantidade();
+            } else {
+                long valor = ((Number) idade.valor()).longValue();
+                porIdade.put(valor, idade.quantidade());
+                somaIdades += valor * idade.quantidade();
+            }
+        }
+        for (Contagem cidade : cidades) {
+            if (cidade.valor() == null) {
+                semCidade += cidade.quantidade();
+            } else {
+                porCidade.put((String) cidade.valor(), cidade.quantidade());
+            }
+        }
+    }
+
+    synchronized void conta(DimensoesAluno aluno, int sinal) {
+        total += sinal;
+        if (aluno.idade() == null) {
+            semIdade += sinal;
+        } else {
+            porIdade.merge(aluno.idade(), (long) sinal, EstatisticasDeAlunos::somaSemZero);
+            somaIdades += sinal * aluno.idade();
+        }
+        if (aluno.cidade() == null) {
+            semCidade += sinal;
+        } else {
+            porCidade.merge(aluno.cidade(), (long) sinal, EstatisticasDeAlunos::somaSemZero);
+        }
+    }
+
+    /**
+     * Contagem que chega a zero sai do mapa, senão minimo e maximo apontariam para idades que ninguém mais tem.
+     */
+    private static Long somaSemZero(Long atual, Long sinal) {
+        long soma = atual + sinal;
+        return soma == 0 ? null : soma;
+    }
+
+    /**
+     * Custa o numero de idades e cidades diferentes, não o de alunos.
+     */
+    public synchronized EstatisticasAlunos resumo() {
+        Map<String, Long> faixas = new LinkedHashMap<>();
+        porIdade.forEach((idade, quantidade) -> {
+            long inicio = Math.floorDiv(idade, larguraFaixa) * larguraFaixa;
+            faixas.merge(inicio + "-" + (inicio + larguraFaixa - 1), quantidade, Long::sum);
+        });
+        Map<String, Long> cidades = new LinkedHashMap<>();
+        porCidade.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(cidade -> cidades.put(cidade.getKey(), cidade.getValue()));
+
+        long comIdade = total - semIdade;
+        return new EstatisticasAlunos(total,
+                porIdade.isEmpty() ? null : porIdade.firstKey(),
+                porIdade.isEmpty() ? null : porIdade.lastKey(),
+                comIdade == 0 ? null : (double) somaIdades / comIdade,
+                faixas, cidades, semIdade, semCidade);
+    }
+}
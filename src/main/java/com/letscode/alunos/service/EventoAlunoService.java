@@ -0,0 +1,9 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.EventoAluno;
+
+import java.util.List;
+
+public interface EventoAlunoService {
+    List<EventoAluno> buscaEventos(long since, Integer limit);
+}
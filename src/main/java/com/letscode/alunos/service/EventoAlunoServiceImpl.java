@@ -0,0 +1,36 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.config.BulkheadConfig;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.repository.EventoAlunoRepository;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Leitura do outbox para os consumidores do GET /alunos/changes. É uma faixa do indice de seq,
+ * barata como uma busca por id, então usa o mesmo bulkhead e timeout.
+ */
+@Service
+public class EventoAlunoServiceImpl implements EventoAlunoService {
+
+    private final EventoAlunoRepository eventoAlunoRepository;
+
+    public EventoAlunoServiceImpl(EventoAlunoRepository eventoAlunoRepository) {
+        this.eventoAlunoRepository = eventoAlunoRepository;
+    }
+
+    /**
+     * Eventos publicados depois de since, em ordem de seq. Lista vazia quando o consumidor já está em dia.
+     */
+    @Override
+    @Bulkhead(name = BulkheadConfig.LEITURA_POR_ID)
+    @Transactional(readOnly = true, timeoutString = "${alunos.timeout.leitura-por-id:2}")
+    public List<EventoAluno> buscaEventos(long since, Integer limit) {
+        int limite = AlunoServiceImpl.tamanhoPagina(limit);
+        return eventoAlunoRepository.findBySeqGreaterThanOrderBySeqAsc(since, PageRequest.of(0, limite));
+    }
+}
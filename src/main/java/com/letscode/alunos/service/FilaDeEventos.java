@@ -0,0 +1,56 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.EventoAluno;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fila em memoria no lugar de um broker (alunos.eventos.destino=memoria), para consumidores no mesmo processo.
+ * É limitada: cheia, descarta os eventos mais antigos em vez de segurar o relay. Quem perdeu eventos
+ * percebe pelo buraco no seq e busca o que falta no GET /alunos/changes, que lê do banco.
+ */
+public class FilaDeEventos implements DestinoDeEventos {
+
+    private final BlockingQueue<EventoAluno> fila;
+    private final AtomicLong descartados = new AtomicLong();
+
+    public FilaDeEventos(int capacidade) {
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+    }
+
+    @Override
+    public void publica(List<EventoAluno> eventos) {
+        for (EventoAluno evento : eventos) {
+            while (!fila.offer(evento)) {
+                if (fila.poll() != null) {
+                    descartados.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return o proximo evento, ou null se nenhum chegar dentro da espera
+     */
+    public EventoAluno proximo(Duration espera) throws InterruptedException {
+        return fila.poll(espera.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tira da fila os eventos que já estão nela, sem esperar.
+     * @return quantidade de eventos copiados para o destino
+     */
+    public int drena(Collection<? super EventoAluno> destino, int maximo) {
+        return fila.drainTo(destino, maximo);
+    }
+
+    public long getDescartados() {
+        return descartados.get();
+    }
+}
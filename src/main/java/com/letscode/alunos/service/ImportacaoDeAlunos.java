@@ -0,0 +1,100 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.model.ResultadoLote;
+import com.letscode.alunos.model.StatusImportacao;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uma importação em andamento: a leitura soma as linhas lidas e a gravação os criados, atualizados e rejeitados,
+ * cada uma na sua thread, enquanto o GET /alunos/import/{id} lê o status de outra.
+ */
+class ImportacaoDeAlunos {
+
+    private final String id = UUID.randomUUID().toString();
+    private final FormatoArquivo formato;
+    private final int maxRejeicoes;
+    private final AtomicLong lidas = new AtomicLong();
+    private final AtomicLong criadas = new AtomicLong();
+    private final AtomicLong atualizadas = new AtomicLong();
+    private final AtomicLong rejeitadas = new AtomicLong();
+    private final List<ResultadoLote> rejeicoes = new ArrayList<>();
+    private volatile StatusImportacao.Estado estado = StatusImportacao.Estado.NA_FILA;
+    private volatile Instant inicio;
+    private volatile Instant fim;
+    private volatile String erro;
+
+    ImportacaoDeAlunos(FormatoArquivo formato, int maxRejeicoes) {
+        this.formato = formato;
+        this.maxRejeicoes = maxRejeicoes;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    void inicia() {
+        inicio = Instant.now();
+        estado = StatusImportacao.Estado.PROCESSANDO;
+    }
+
+    void leu(int linhas) {
+        lidas.addAndGet(linhas);
+    }
+
+    void gravou(int criados, int atualizados) {
+        criadas.addAndGet(criados);
+        atualizadas.addAndGet(atualizados);
+    }
+
+    void rejeitou(List<ResultadoLote> linhas) {
+        rejeitadas.addAndGet(linhas.size());
+        synchronized (rejeicoes) {
+            for (ResultadoLote linha : linhas) {
+                if (rejeicoes.size() == maxRejeicoes) {
+                    break;
+                }
+                rejeicoes.add(linha);
+            }
+        }
+    }
+
+    void conclui() {
+        termina(StatusImportacao.Estado.CONCLUIDA, null);
+    }
+
+    void falha(String mensagem) {
+        termina(StatusImportacao.Estado.FALHOU, mensagem);
+    }
+
+    /**
+     * O estado vai por ultimo: quem lê o estado terminado já enxerga o fim, o erro e os contadores finais.
+     */
+    private void termina(StatusImportacao.Estado terminal, String mensagem) {
+        erro = mensagem;
+        fim = Instant.now();
+        estado = terminal;
+    }
+
+    /**
+     * Terminou antes de limite: pode sair da lista de importações.
+     */
+    boolean terminouAntesDe(Instant limite) {
+        Instant terminou = fim;
+        return terminou != null && terminou.isBefore(limite);
+    }
+
+    StatusImportacao status() {
+        List<ResultadoLote> primeiras;
+        synchronized (rejeicoes) {
+            primeiras = List.copyOf(rejeicoes);
+        }
+        return new StatusImportacao(id, estado, formato, lidas.get(), criadas.get(), atualizadas.get(),
+                rejeitadas.get(), primeiras, inicio, fim, erro);
+    }
+}
@@ -0,0 +1,313 @@
+package com.letscode.alunos.service;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertido em memoria dos nomes dos alunos: cada palavra do nome, sem acento e em minusculas,
+ * aponta para os ids dos alunos que a tem.
+ * <p>
+ * A busca aceita prefixo ("mar" acha Maria e Marcos), ignora acentos ("joao" acha João) e tolera erros de digitação
+ * (até 1 letra em palavras de até 5 letras, 2 nas maiores). Todas as palavras da busca precisam casar, e o resultado
+ * vem ordenado por relevancia: palavra exata vale mais que prefixo, que vale mais que aproximada.
+ * Os candidatos saem da palavra mais seletiva e as demais só são conferidas neles, então o custo acompanha
+ * o tamanho do resultado, não o da tabela.
+ * <p>
+ * As alterações feitas dentro de uma transação só entram no indice depois do commit.
+ */
+@Component
+public class IndiceDeNomes {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int EXATO = 3;
+    private static final int PREFIXO = 2;
+    private static final int APROXIMADO = 1;
+
+    private final Map<String, Set<Long>> idsPorTermo = new ConcurrentHashMap<>();
+    // só cresce: um termo sem ids não atrapalha a busca e evita corrida entre inclusão e remoção
+    private final ConcurrentSkipListSet<String> termos = new ConcurrentSkipListSet<>();
+    // palavras indexadas de cada aluno, para tirar as antigas quando o nome muda. Array e a mesma instancia de String
+    // guardada em termos: com milhões de alunos um Set e uma copia de cada palavra por aluno pesam no heap
+    private final Map<Long, String[]> termosPorId = new ConcurrentHashMap<>();
+    private volatile boolean carregando;
+    // alunos alterados ou apagados depois do commit enquanto a carga roda: a carga leu uma copia mais antiga
+    // deles e não pode mais mexer no que a escrita deixou
+    private final Set<Long> alteradosNaCarga = ConcurrentHashMap.newKeySet();
+
+    public void indexa(Long id, String nome) {
+        Transacoes.aposCommit(() -> aplica(id, nome));
+    }
+
+    public void remove(Long id) {
+        Transacoes.aposCommit(() -> aplica(id, null));
+    }
+
+    public int tamanho() {
+        return termosPorId.size();
+    }
+
+    /**
+     * Enquanto a carga inicial roda o indice ainda não tem todos os alunos e as buscas são recusadas.
+     */
+    public boolean isCarregando() {
+        return carregando;
+    }
+
+    void iniciaCarga() {
+        alteradosNaCarga.clear();
+        carregando = true;
+    }
+
+    void terminaCarga() {
+        carregando = false;
+        alteradosNaCarga.clear();
+    }
+
+    /**
+     * Nome lido pela carga inicial. Não entra se o aluno já foi alterado ou apagado por uma escrita commitada
+     * depois que a carga começou.
+     */
+    void carrega(Long id, String nome) {
+        atualiza(id, nome, true);
+    }
+
+    /**
+     * Alteração já commitada: marca o aluno antes de atualizar, assim a carga que ainda não passou por ele o pula.
+     */
+    private void aplica(Long id, String nome) {
+        if (carregando) {
+            alteradosNaCarga.add(id);
+        }
+        atualiza(id, nome, false);
+    }
+
+    /**
+     * Atualiza o indice na hora, sem esperar transação. Nome null remove o aluno.
+     * O compute trava o id: a conferencia da marca e a atualização da carga não se intercalam com a da escrita.
+     */
+    private void atualiza(Long id, String nome, boolean daCarga) {
+        termosPorId.compute(id, (chave, anteriores) -> {
+            if (daCarga && alteradosNaCarga.contains(id)) {
+                return anteriores;
+            }
+            String[] antigos = anteriores != null ? anteriores : new String[0];
+            Set<String> novos = termosDe(nome);
+            for (String termo : antigos) {
+                if (!novos.contains(termo)) {
+                    idsPorTermo.computeIfPresent(termo, (t, ids) -> {
+                        ids.remove(id);
+                        return ids.isEmpty() ? null : ids;
+                    });
+                }
+            }
+            String[] indexados = new String[novos.size()];
+            int i = 0;
+            for (String termo : novos) {
+                String canonico = canonico(termo);
+                if (!contem(antigos, canonico)) {
+                    idsPorTermo.compute(canonico, (t, ids) -> {
+                        Set<Long> atualizados = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                        atualizados.add(id);
+                        return atualizados;
+                    });
+                }
+                indexados[i++] = canonico;
+            }
+            return indexados.length == 0 ? null : indexados;
+        });
+    }
+
+    /**
+     * A instancia da palavra já guardada no vocabulario, para todos os alunos com a palavra apontarem para ela.
+     */
+    private String canonico(String termo) {
+        termos.add(termo);
+        return termos.ceiling(termo);
+    }
+
+    private static boolean contem(String[] termos, String termo) {
+        for (String existente : termos) {
+            if (existente.equals(termo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return ids da pagina pedida, do mais relevante para o menos relevante
+     */
+    public List<Long> busca(String texto, int pagina, int tamanho) {
+        List<Map<String, Integer>> consulta = new ArrayList<>();
+        for (String palavra : termosDe(texto)) {
+            consulta.add(termosQueCasam(palavra));
+        }
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+
+        // os candidatos saem da palavra que casa com menos alunos; as outras só conferem esses candidatos
+        consulta.sort(Comparator.comparingLong(this::alunosQueCasam));
+        Map<Long, Integer> pontos = new HashMap<>();
+        consulta.get(0).forEach((termo, valor) -> {
+            for (Long id : idsPorTermo.getOrDefault(termo, Collections.emptySet())) {
+                pontos.merge(id, valor, Math::max);
+            }
+        });
+        for (Map<String, Integer> palavra : consulta.subList(1, consulta.size())) {
+            List<Map.Entry<Set<Long>, Integer>> listas = listasPorValor(palavra);
+            pontos.replaceAll((id, total) -> {
+                for (Map.Entry<Set<Long>, Integer> lista : listas) {
+                    if (lista.getKey().contains(id)) {
+                        return total + lista.getValue();
+                    }
+                }
+                return 0;
+            });
+            pontos.values().removeIf(total -> total == 0);
+        }
+
+        return melhores(pontos, pagina, tamanho);
+    }
+
+    /**
+     * Listas de ids das palavras que casam, da que vale mais para a que vale menos.
+     */
+    private List<Map.Entry<Set<Long>, Integer>> listasPorValor(Map<String, Integer> palavra) {
+        List<Map.Entry<Set<Long>, Integer>> listas = new ArrayList<>(palavra.size());
+        palavra.forEach((termo, valor) ->
+                listas.add(Map.entry(idsPorTermo.getOrDefault(termo, Collections.emptySet()), valor)));
+        listas.sort(Map.Entry.<Set<Long>, Integer>comparingByValue().reversed());
+        return listas;
+    }
+
+    /**
+     * Seleciona só os primeiros (pagina + 1) * tamanho com um heap, sem ordenar todos os candidatos.
+     * Empates de pontuação saem pelo id, os cadastrados antes primeiro.
+     */
+    private static List<Long> melhores(Map<Long, Integer> pontos, int pagina, int tamanho) {
+        long quantos = (long) (pagina + 1) * tamanho;
+        if (pontos.isEmpty() || quantos > Integer.MAX_VALUE) {
+            return List.of();
+        }
+        Comparator<Map.Entry<Long, Integer>> relevancia = Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+
+        PriorityQueue<Map.Entry<Long, Integer>> heap = new PriorityQueue<>(relevancia.reversed());
+        for (Map.Entry<Long, Integer> candidato : pontos.entrySet()) {
+            if (heap.size() < quantos) {
+                heap.offer(candidato);
+            } else if (relevancia.compare(candidato, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(candidato);
+            }
+        }
+        List<Map.Entry<Long, Integer>> ordenados = new ArrayList<>(heap);
+        ordenados.sort(relevancia);
+        List<Long> ids = new ArrayList<>(tamanho);
+        for (int i = pagina * tamanho; i < ordenados.size(); i++) {
+            ids.add(ordenados.get(i).getKey());
+        }
+        return ids;
+    }
+
+    private long alunosQueCasam(Map<String, Integer> palavra) {
+        long total = 0;
+        for (String termo : palavra.keySet()) {
+            total += idsPorTermo.getOrDefault(termo, Collections.emptySet()).size();
+        }
+        return total;
+    }
+
+    /**
+     * Palavras do indice que casam com a palavra pesquisada, com o valor de cada uma.
+     */
+    private Map<String, Integer> termosQueCasam(String palavra) {
+        Map<String, Integer> casam = new HashMap<>();
+        for (String termo : termos.subSet(palavra, true, palavra + Character.MAX_VALUE, false)) {
+            casam.put(termo, termo.equals(palavra) ? EXATO : PREFIXO);
+        }
+
+        int distancia = distanciaMaxima(palavra);
+        if (distancia > 0) {
+            // só compara com as palavras que começam pela mesma letra, em vez do vocabulario inteiro
+            String inicial = palavra.substring(0, 1);
+            for (String termo : termos.subSet(inicial, true, inicial + Character.MAX_VALUE, false)) {
+                if (!casam.containsKey(termo)
+                        && Math.abs(termo.length() - palavra.length()) <= distancia
+                        && distancia(palavra, termo, distancia) <= distancia) {
+                    casam.put(termo, APROXIMADO);
+                }
+            }
+        }
+        return casam;
+    }
+
+    private static int distanciaMaxima(String termo) {
+        if (termo.length() < 3) {
+            return 0;
+        }
+        return termo.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Levenshtein, parando assim que a distancia passa do maximo.
+     */
+    static int distancia(String a, String b, int maximo) {
+        int[] anterior = new int[b.length() + 1];
+        int[] atual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            atual[0] = i;
+            int menor = atual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int custo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                atual[j] = Math.min(Math.min(atual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + custo);
+                menor = Math.min(menor, atual[j]);
+            }
+            if (menor > maximo) {
+                return menor;
+            }
+            int[] troca = anterior;
+            anterior = atual;
+            atual = troca;
+        }
+        return anterior[b.length()];
+    }
+
+    static String normaliza(String texto) {
+        String semAcento = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return semAcento.toLowerCase(Locale.ROOT);
+    }
+
+    static Set<String> termosDe(String texto) {
+        if (texto == null) {
+            return Set.of();
+        }
+        Set<String> termos = new LinkedHashSet<>();
+        for (String termo : SEPARADORES.split(normaliza(texto))) {
+            if (!termo.isEmpty()) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+}
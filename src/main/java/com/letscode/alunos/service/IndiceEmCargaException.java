@@ -0,0 +1,11 @@
+package com.letscode.alunos.service;
+
+/**
+ * A pesquisa por nome foi chamada antes do IndiceDeNomes terminar a carga inicial.
+ */
+public class IndiceEmCargaException extends RuntimeException {
+
+    public IndiceEmCargaException() {
+        super("A pesquisa por nome ainda está sendo preparada, tente novamente");
+    }
+}
@@ -0,0 +1,14 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.Aluno;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveAlunoService {
+    Mono<Aluno> salvar(Aluno aluno);
+    Mono<Aluno> buscaPorId(Long id);
+    Flux<Aluno> buscaTodos();
+    Mono<String> delete(Long id);
+    Flux<Aluno> buscaPorNome(String nome);
+    Flux<Aluno> buscaPorIdade(Long idade);
+}
@@ -0,0 +1,72 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.Aluno;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * Versão reativa do AlunoService. O JPA/JDBC continua bloqueante, então cada chamada ao banco roda no
+ * boundedElastic e a thread que atende a requisição fica livre enquanto espera.
+ * O buscaTodos percorre a tabela por paginas de id (keyset) conforme o cliente pede mais itens,
+ * respeitando o backpressure em vez de carregar a tabela toda.
+ */
+@Service
+public class ReactiveAlunoServiceImpl implements ReactiveAlunoService {
+
+    static final int TAMANHO_PAGINA = 500;
+
+    private final AlunoService alunoService;
+    private final Scheduler scheduler;
+
+    public ReactiveAlunoServiceImpl(AlunoService alunoService) {
+        this.alunoService = alunoService;
+        this.scheduler = Schedulers.boundedElastic();
+    }
+
+    @Override
+    public Mono<Aluno> salvar(Aluno aluno) {
+        return Mono.fromCallable(() -> alunoService.salvar(aluno, null)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Mono<Aluno> buscaPorId(Long id) {
+        return Mono.fromCallable(() -> alunoService.buscaPorId(id)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Aluno> buscaTodos() {
+        return pagina(0L)
+                .expand(alunos -> alunos.size() < TAMANHO_PAGINA
+                        ? Mono.empty()
+                        : pagina(alunos.get(alunos.size() - 1).getId()))
+                .concatMapIterable(alunos -> alunos);
+    }
+
+    @Override
+    public Mono<String> delete(Long id) {
+        return Mono.fromCallable(() -> alunoService.delete(id, null)).subscribeOn(scheduler);
+    }
+
+    @Override
+    public Flux<Aluno> buscaPorNome(String nome) {
+        return Mono.fromCallable(() -> alunoService.buscaPorNome(nome))
+                .subscribeOn(scheduler)
+                .flatMapIterable(alunos -> alunos);
+    }
+
+    @Override
+    public Flux<Aluno> buscaPorIdade(Long idade) {
+        return Mono.fromCallable(() -> alunoService.buscaPorIdade(idade))
+                .subscribeOn(scheduler)
+                .flatMapIterable(alunos -> alunos);
+    }
+
+    private Mono<List<Aluno>> pagina(Long after) {
+        return Mono.fromCallable(() -> alunoService.buscaPagina(after, TAMANHO_PAGINA)).subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,48 @@
+package com.letscode.alunos.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letscode.alunos.entity.EventoAluno;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+
+/**
+ * Grava os eventos de alteração de aluno no outbox (alunos_eventos) dentro da transação de quem alterou:
+ * o evento existe se e somente se a alteração foi commitada. Quem publica é o RelayDeEventos.
+ * O insert entra no flush junto com o da alteração, e em lote fica agrupado pelo batch do JDBC.
+ */
+@Component
+public class RegistroDeEventos {
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public RegistroDeEventos(EntityManager entityManager, ObjectMapper objectMapper) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param versao versão do aluno depois da alteração, null quando não se sabe (remoções)
+     * @param dados aluno ou campos alterados, vira JSON; null para não levar dados
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registra(EventoAluno.Tipo tipo, Long alunoId, Long versao, Object dados) {
+        entityManager.persist(new EventoAluno(alunoId, tipo, versao, json(dados), Instant.now()));
+    }
+
+    private String json(Object dados) {
+        if (dados == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Dados do evento não viram JSON", e);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.repository.EventoAlunoRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Publica os eventos pendentes do outbox em lotes: numera cada lote com os proximos seq, entrega aos
+ * DestinoDeEventos configurados e marca como publicado, tudo numa transação. Depois do commit avisa
+ * os long-polls do GET /alunos/changes.
+ * <p>
+ * O seq é dado aqui, na ordem em que os eventos ficam visiveis (já commitados), e não na gravação:
+ * assim uma transação que commita depois nunca aparece atrás de um seq que o consumidor já passou.
+ * Pressupõe um unico relay por banco.
+ */
+@Component
+public class RelayDeEventos {
+
+    private final EventoAlunoRepository eventoAlunoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<DestinoDeEventos> destinos;
+    private final EsperaDeEventos esperaDeEventos;
+    private final int tamanhoLote;
+    private final Duration retencao;
+    // ultimo seq commitado, null até o primeiro lote depois de subir
+    private Long ultimoSeq;
+
+    public RelayDeEventos(EventoAlunoRepository eventoAlunoRepository, PlatformTransactionManager transactionManager,
+                          ObjectProvider<DestinoDeEventos> destinos, EsperaDeEventos esperaDeEventos,
+                          @Value("${alunos.eventos.lote:500}") int tamanhoLote,
+                          @Value("${alunos.eventos.retencao:7d}") Duration retencao) {
+        this.eventoAlunoRepository = eventoAlunoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.destinos = destinos;
+        this.esperaDeEventos = esperaDeEventos;
+        this.tamanhoLote = tamanhoLote;
+        this.retencao = retencao;
+    }
+
+    /**
+     * Publica lotes seguidos enquanto vierem cheios, então um pico de escritas não espera um intervalo por lote.
+     */
+    @Scheduled(fixedDelayString = "${alunos.eventos.intervalo-ms:200}")
+    public void publicaPendentes() {
+        while (publicaLote() == tamanhoLote) {
+            // proximo lote
+        }
+    }
+
+    synchronized int publicaLote() {
+        List<EventoAluno> lote = transactionTemplate.execute(status -> {
+            List<EventoAluno> pendentes = eventoAlunoRepository.findBySeqIsNullOrderByIdAsc(PageRequest.of(0, tamanhoLote));
+            if (pendentes.isEmpty()) {
+                return pendentes;
+            }
+            long seq = ultimoSeq != null ? ultimoSeq : eventoAlunoRepository.buscaUltimoSeq().orElse(0L);
+            for (EventoAluno evento : pendentes) {
+                evento.setSeq(++seq);
+            }
+            // os updates vão em batch; um erro aqui aparece antes de entregar aos destinos
+            eventoAlunoRepository.flush();
+            destinos.orderedStream().forEach(destino -> destino.publica(pendentes));
+            return pendentes;
+        });
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        ultimoSeq = lote.get(lote.size() - 1).getSeq();
+        esperaDeEventos.publicados(ultimoSeq);
+        return lote.size();
+    }
+
+    /**
+     * Eventos publicados ficam no banco pelo tempo de retenção para quem consome pelo GET /alunos/changes.
+     */
+    @Scheduled(fixedDelayString = "${alunos.eventos.limpeza-ms:3600000}")
+    public void apagaAntigos() {
+        transactionTemplate.executeWithoutResult(status ->
+                eventoAlunoRepository.apagaPublicadosAntesDe(Instant.now().minus(retencao)));
+    }
+}
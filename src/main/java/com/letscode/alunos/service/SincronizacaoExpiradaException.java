@@ -0,0 +1,12 @@
+package com.letscode.alunos.service;
+
+/**
+ * O modifiedSince é mais antigo que as lapides guardadas: apagados daquela época já não aparecem,
+ * então a copia do cliente precisa ser refeita do zero.
+ */
+public class SincronizacaoExpiradaException extends RuntimeException {
+
+    public SincronizacaoExpiradaException() {
+        super("modifiedSince mais antigo que o historico de exclusões, refaça a copia com modifiedSince=1970-01-01T00:00:00Z");
+    }
+}
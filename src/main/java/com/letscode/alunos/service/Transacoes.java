@@ -0,0 +1,30 @@
+package com.letscode.alunos.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilitarios de transação dos componentes em memoria (IndiceDeNomes, EstatisticasDeAlunos).
+ */
+final class Transacoes {
+
+    private Transacoes() {
+    }
+
+    /**
+     * Roda a alteração só depois do commit da transação corrente, para um rollback não deixar o estado em memoria
+     * diferente do banco. Sem transação ativa roda na hora.
+     */
+    static void aposCommit(Runnable alteracao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            alteracao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                alteracao.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,176 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.config.CacheConfig;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.model.ResultadoLote;
+import com.letscode.alunos.repository.AlunoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Grava um lote do POST /alunos/import numa transação, inserindo ou atualizando cada aluno pelo documento.
+ * Os existentes vêm de uma consulta só (in ... for update), os inserts e updates saem agrupados pelo batch
+ * do JDBC (hibernate.jdbc.batch_size, order_inserts/order_updates) e os eventos entram no mesmo flush.
+ * Aluno sem documento é sempre inserido. Documento repetido no lote atualiza o aluno da linha anterior.
+ * <p>
+ * Se o banco recusar o lote, grava uma linha por transação para saber qual, como o AlunoLoteServiceImpl.
+ */
+@Component
+public class UpsertDeAlunos {
+
+    /**
+     * Aluno já convertido e validado, com a linha do arquivo de onde veio.
+     */
+    record Linha(int numero, Aluno aluno) {}
+
+    record Gravacao(int criadas, int atualizadas, List<ResultadoLote> rejeicoes) {}
+
+    private final AlunoRepository alunoRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final IndiceDeNomes indiceDeNomes;
+    private final RegistroDeEventos eventos;
+    private final EstatisticasDeAlunos estatisticas;
+    private final CacheManager cacheManager;
+
+    public UpsertDeAlunos(AlunoRepository alunoRepository, EntityManager entityManager,
+                          PlatformTransactionManager transactionManager, IndiceDeNomes indiceDeNomes,
+                          RegistroDeEventos eventos, EstatisticasDeAlunos estatisticas, CacheManager cacheManager,
+                          @Value("${alunos.timeout.lote:8}") int timeoutLote) {
+        this.alunoRepository = alunoRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // abaixo da margem da sincronização por modifiedSince (AlunoSincronizacaoServiceImpl)
+        this.transactionTemplate.setTimeout(timeoutLote);
+        this.indiceDeNomes = indiceDeNomes;
+        this.eventos = eventos;
+        this.estatisticas = estatisticas;
+        this.cacheManager = cacheManager;
+    }
+
+    Gravacao grava(List<Linha> lote) {
+        if (lote.isEmpty()) {
+            return new Gravacao(0, 0, List.of());
+        }
+        List<Long> alterados = new ArrayList<>();
+        Integer criadas;
+        try {
+            criadas = transactionTemplate.execute(status -> upsert(lote, alterados));
+        } catch (RuntimeException e) {
+            // algum aluno do lote foi recusado pelo banco (ex.: documento inserido por outra requisição)
+            return gravaUmAUm(lote);
+        }
+        tiraDoCache(alterados);
+        return new Gravacao(criadas, lote.size() - criadas, List.of());
+    }
+
+    private Gravacao gravaUmAUm(List<Linha> lote) {
+        int criadas = 0;
+        int atualizadas = 0;
+        List<ResultadoLote> rejeicoes = new ArrayList<>();
+        for (Linha linha : lote) {
+            // o persist do lote que voltou atras já tinha dado id e versão
+            linha.aluno().setId(null);
+            linha.aluno().setVersao(null);
+            List<Long> alterados = new ArrayList<>(1);
+            try {
+                Integer criada = transactionTemplate.execute(status -> upsert(List.of(linha), alterados));
+                criadas += criada;
+                atualizadas += 1 - criada;
+                tiraDoCache(alterados);
+            } catch (RuntimeException e) {
+                rejeicoes.add(ResultadoLote.rejeitado(linha.numero(), NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+        return new Gravacao(criadas, atualizadas, rejeicoes);
+    }
+
+    /**
+     * @param alterados recebe os ids dos alunos que mudaram, para sairem do cache depois do commit
+     * @return quantas linhas viraram aluno novo; as demais atualizaram um existente
+     */
+    private int upsert(List<Linha> lote, List<Long> alterados) {
+        Set<String> documentos = lote.stream()
+                .map(linha -> linha.aluno().getDocumento())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Aluno> porDocumento = new HashMap<>();
+        if (!documentos.isEmpty()) {
+            alunoRepository.buscaPorDocumentosTravando(documentos)
+                    .forEach(aluno -> porDocumento.put(aluno.getDocumento(), aluno));
+        }
+        // valores de antes de cada existente, da primeira vez que aparece no lote
+        Map<Aluno, DimensoesAluno> antes = new LinkedHashMap<>();
+        Map<Aluno, Long> versoes = new HashMap<>();
+        Set<Aluno> novos = new LinkedHashSet<>();
+        int criadas = 0;
+
+        for (Linha linha : lote) {
+            Aluno aluno = linha.aluno();
+            Aluno atual = aluno.getDocumento() == null ? null : porDocumento.get(aluno.getDocumento());
+            if (atual == null) {
+                entityManager.persist(aluno);
+                novos.add(aluno);
+                criadas++;
+                if (aluno.getDocumento() != null) {
+                    porDocumento.put(aluno.getDocumento(), aluno);
+                }
+                continue;
+            }
+            if (!novos.contains(atual) && !antes.containsKey(atual)) {
+                antes.put(atual, DimensoesAluno.de(atual));
+                versoes.put(atual, atual.getVersao());
+            }
+            atual.setNome(aluno.getNome());
+            atual.setIdade(aluno.getIdade());
+            atual.setEndereco(aluno.getEndereco());
+        }
+
+        // o persist já trouxe o id da sequence, os eventos dos novos entram no mesmo flush
+        for (Aluno novo : novos) {
+            eventos.registra(EventoAluno.Tipo.CRIADO, novo.getId(), novo.getVersao(), novo);
+            indiceDeNomes.indexa(novo.getId(), novo.getNome());
+            estatisticas.inclui(DimensoesAluno.de(novo));
+        }
+        // a versão dos atualizados só soma no flush; linha igual ao que já estava gravado não vira update
+        entityManager.flush();
+        antes.forEach((aluno, dimensoes) -> {
+            if (Objects.equals(aluno.getVersao(), versoes.get(aluno))) {
+                return;
+            }
+            // a linha do arquivo troca nome, idade e endereço inteiros: o evento leva o aluno todo
+            eventos.registra(EventoAluno.Tipo.SUBSTITUIDO, aluno.getId(), aluno.getVersao(), aluno);
+            indiceDeNomes.indexa(aluno.getId(), aluno.getNome());
+            estatisticas.altera(dimensoes, DimensoesAluno.de(aluno));
+            alterados.add(aluno.getId());
+        });
+        entityManager.flush();
+        entityManager.clear();
+        return criadas;
+    }
+
+    private void tiraDoCache(List<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.ALUNOS);
+        if (cache != null) {
+            ids.forEach(cache::evict);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+create sequence hibernate_sequence start with 1 increment by 1;
+
+create table alunos (
+    id bigint not null,
+    documento varchar(255),
+    endereco varchar(255),
+    idade bigint,
+    nome varchar(255) not null,
+    primary key (id)
+);
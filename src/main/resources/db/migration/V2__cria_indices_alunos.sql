@@ -0,0 +1,8 @@
+-- findByDocumento
+create unique index uk_alunos_documento on alunos (documento);
+
+-- findAllByIdade
+create index idx_alunos_idade on alunos (idade);
+
+-- findByNome, findByNomeAndIdade e findByNomeAndIdadeAndDocumento usam o prefixo do indice composto
+create index idx_alunos_nome_idade_documento on alunos (nome, idade, documento);
@@ -0,0 +1,4 @@
+-- o Hibernate reserva 50 ids por ida ao banco (pooled optimizer), o incremento precisa ser o mesmo do allocationSize
+create sequence alunos_seq start with 1 increment by 50;
+
+drop sequence hibernate_sequence;
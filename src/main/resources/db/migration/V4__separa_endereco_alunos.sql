@@ -0,0 +1,9 @@
+-- a coluna endereco continua com o logradouro; o resto do endereço ganha colunas proprias
+alter table alunos add column endereco_numero bigint;
+alter table alunos add column endereco_complemento varchar(255);
+alter table alunos add column endereco_cep varchar(255);
+alter table alunos add column endereco_cidade varchar(255);
+
+-- filtro por cidade e por cep
+create index idx_alunos_endereco_cidade on alunos (endereco_cidade);
+create index idx_alunos_endereco_cep on alunos (endereco_cep);
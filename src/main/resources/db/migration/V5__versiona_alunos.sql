@@ -0,0 +1,2 @@
+-- versão para o lock otimista: cada update soma 1, quem grava com a versão antiga é recusado
+alter table alunos add column versao bigint default 0 not null;
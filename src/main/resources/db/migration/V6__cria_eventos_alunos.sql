@@ -0,0 +1,16 @@
+-- outbox: cada alteração de aluno grava um evento na mesma transação. seq fica null até o relay publicar,
+-- e a ordem de publicação (seq) é a que os consumidores seguem em GET /alunos/changes?since=
+create sequence alunos_eventos_seq start with 1 increment by 50;
+
+create table alunos_eventos (
+    id bigint not null,
+    seq bigint,
+    aluno_id bigint not null,
+    tipo varchar(20) not null,
+    versao bigint,
+    dados varchar(4000),
+    criado_em timestamp not null,
+    primary key (id)
+);
+
+create unique index uk_alunos_eventos_seq on alunos_eventos (seq);
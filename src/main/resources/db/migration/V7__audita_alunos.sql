@@ -0,0 +1,15 @@
+-- quando o aluno foi criado e alterado pela ultima vez; os alunos que já existiam ficam com a hora da migration
+alter table alunos add column criado_em timestamp default current_timestamp not null;
+alter table alunos add column atualizado_em timestamp default current_timestamp not null;
+
+-- sincronização incremental: where atualizado_em >= :desde order by atualizado_em, id
+create index idx_alunos_atualizado_em_id on alunos (atualizado_em, id);
+
+-- lapide de cada aluno apagado, para quem sincroniza por modifiedSince também apagar
+create table alunos_removidos (
+    id bigint not null,
+    removido_em timestamp not null,
+    primary key (id)
+);
+
+create index idx_alunos_removidos_removido_em_id on alunos_removidos (removido_em, id);
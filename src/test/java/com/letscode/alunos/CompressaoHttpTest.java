@@ -0,0 +1,80 @@
+package com.letscode.alunos;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.repository.AlunoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compressão e negociação de formato dependem do Tomcat e dos conversores registrados, por isso sobem o servidor inteiro.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.datasource.url=jdbc:h2:mem:compressao", "alunos.limite.habilitado=false"})
+class CompressaoHttpTest {
+
+    @LocalServerPort
+    int porta;
+
+    @Autowired
+    AlunoRepository alunoRepository;
+
+    @Test
+    @DisplayName("Deve comprimir com gzip so as respostas acima do tamanho minimo")
+    void deveComprimirSoAsRespostasGrandes() throws Exception {
+        List<Aluno> alunos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            alunos.add(new Aluno(null, "Aluno " + i, 20L, "gz-" + i, "Rua " + i));
+        }
+        Long id = alunoRepository.saveAll(alunos).get(0).getId();
+
+        HttpResponse<byte[]> lista = get("/alunos");
+        HttpResponse<byte[]> umAluno = get("/alunos/" + id);
+
+        assertAll(
+                () -> assertEquals(200, lista.statusCode()),
+                () -> assertEquals("gzip", lista.headers().firstValue("Content-Encoding").orElse(null)),
+                () -> assertEquals(200, umAluno.statusCode()),
+                () -> assertTrue(umAluno.headers().firstValue("Content-Encoding").isEmpty())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve responder em CBOR quando o cliente pede pelo Accept")
+    void deveResponderEmCborPeloAccept() throws Exception {
+        Aluno salvo = alunoRepository.save(new Aluno(null, "Ana", 20L, "cbor-1", "Rua"));
+
+        HttpResponse<byte[]> resposta = get("/alunos/" + salvo.getId(), "application/cbor");
+
+        Aluno lido = new CBORMapper().readValue(resposta.body(), Aluno.class);
+        assertAll(
+                () -> assertEquals("application/cbor", resposta.headers().firstValue("Content-Type").orElse(null)),
+                () -> assertEquals("Ana", lido.getNome())
+        );
+    }
+
+    private HttpResponse<byte[]> get(String caminho) throws Exception {
+        return get(caminho, "application/json");
+    }
+
+    private HttpResponse<byte[]> get(String caminho, String accept) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho))
+                .header("Accept-Encoding", "gzip")
+                .header("Accept", accept)
+                .GET()
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,139 @@
+package com.letscode.alunos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.model.FiltroAluno;
+import com.letscode.alunos.service.AlunoService;
+import com.letscode.alunos.service.EventoAlunoService;
+import com.letscode.alunos.service.RelayDeEventos;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Escritas de verdade passando pelo outbox e pelo relay, com o log em arquivo como destino.
+ * O relay agendado só roda ao subir; o teste chama a publicação na hora que precisa.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:eventos",
+        "alunos.eventos.destino=arquivo",
+        "alunos.eventos.intervalo-ms=3600000"
+})
+class EventosDeAlunosTest {
+
+    @TempDir
+    static Path diretorio;
+
+    @DynamicPropertySource
+    static void arquivo(DynamicPropertyRegistry registry) {
+        registry.add("alunos.eventos.arquivo", () -> diretorio.resolve("eventos.ndjson").toString());
+    }
+
+    @Autowired
+    AlunoService alunoService;
+
+    @Autowired
+    EventoAlunoService eventoAlunoService;
+
+    @Autowired
+    RelayDeEventos relayDeEventos;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Deve publicar um evento por escrita commitada, em ordem de seq, no banco e no arquivo")
+    void devePublicarUmEventoPorEscritaCommitada() throws Exception {
+        relayDeEventos.publicaPendentes();
+        long inicio = ultimoSeq();
+
+        Aluno aluno = alunoService.salvar(new Aluno(null, "Ana", 20L, "ev-1", "Rua"), null);
+        alunoService.alterarAluno(aluno.getId(), "Ana Maria", 0L);
+        // versão errada: nada é gravado, nem o evento
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> alunoService.alterarCampos(aluno.getId(), Map.of("idade", 30), 0L));
+        alunoService.alterarCampos(aluno.getId(), Map.of("idade", 21), 1L);
+        alunoService.delete(aluno.getId(), null);
+
+        assertTrue(eventoAlunoService.buscaEventos(inicio, null).isEmpty(), "pendente até o relay publicar");
+        relayDeEventos.publicaPendentes();
+        List<EventoAluno> eventos = eventoAlunoService.buscaEventos(inicio, null);
+
+        assertAll(
+                () -> assertEquals(List.of(EventoAluno.Tipo.CRIADO, EventoAluno.Tipo.ALTERADO,
+                                EventoAluno.Tipo.ALTERADO, EventoAluno.Tipo.REMOVIDO),
+                        eventos.stream().map(EventoAluno::getTipo).collect(Collectors.toList())),
+                () -> assertEquals(List.of(inicio + 1, inicio + 2, inicio + 3, inicio + 4),
+                        eventos.stream().map(EventoAluno::getSeq).collect(Collectors.toList())),
+                () -> assertTrue(eventos.stream().allMatch(e -> aluno.getId().equals(e.getAlunoId()))),
+                () -> assertEquals(2L, eventos.get(2).getVersao()),
+                () -> assertEquals(Map.of("idade", 21), objectMapper.readValue(eventos.get(2).getDados(), Map.class)),
+                () -> assertEquals("Ana", objectMapper.readValue(eventos.get(0).getDados(), Aluno.class).getNome())
+        );
+
+        List<String> linhas = Files.readAllLines(diretorio.resolve("eventos.ndjson"));
+        Map<?, ?> ultima = objectMapper.readValue(linhas.get(linhas.size() - 1), Map.class);
+        assertAll(
+                () -> assertEquals(((Number) ultima.get("seq")).longValue(), inicio + 4),
+                () -> assertEquals("REMOVIDO", ultima.get("tipo"))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve substituir sem If-Match um aluno ja alterado, com a versao gravada")
+    void deveSubstituirSemIfMatchUmAlunoJaAlterado() throws Exception {
+        Aluno aluno = alunoService.salvar(new Aluno(null, "Rui", 20L, "ev-4", "Rua"), null);
+        alunoService.alterarAluno(aluno.getId(), "Rui Souza", null);
+
+        // como um POST com o id e sem versão: o corpo não traz a versão, o aluno já está na 1
+        Aluno substituido = alunoService.salvar(new Aluno(aluno.getId(), "Rui Costa", 21L, "ev-4", "Rua"), null);
+
+        assertAll(
+                () -> assertEquals(2L, substituido.getVersao()),
+                () -> assertEquals("Rui Costa", alunoService.buscaPorId(aluno.getId()).getNome()),
+                () -> assertThrows(OptimisticLockingFailureException.class, () -> alunoService.salvar(
+                        new Aluno(aluno.getId(), "Rui", 20L, "ev-4", "Rua"), 1L))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve gerar evento so para os alunos apagados pelo filtro")
+    void deveGerarEventoSoParaOsApagadosPeloFiltro() {
+        relayDeEventos.publicaPendentes();
+        long inicio = ultimoSeq();
+        Aluno jovem = alunoService.salvar(new Aluno(null, "Bia", 12L, "ev-2", "Rua"), null);
+        alunoService.salvar(new Aluno(null, "Caio", 40L, "ev-3", "Rua"), null);
+
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setIdadeMax(15L);
+        assertEquals(1, alunoService.deletaPorFiltro(filtro));
+        relayDeEventos.publicaPendentes();
+
+        List<EventoAluno> remocoes = eventoAlunoService.buscaEventos(inicio, null).stream()
+                .filter(e -> e.getTipo() == EventoAluno.Tipo.REMOVIDO)
+                .collect(Collectors.toList());
+        assertAll(
+                () -> assertEquals(1, remocoes.size()),
+                () -> assertEquals(jovem.getId(), remocoes.get(0).getAlunoId())
+        );
+    }
+
+    private long ultimoSeq() {
+        List<EventoAluno> eventos = eventoAlunoService.buscaEventos(0L, 1000);
+        return eventos.isEmpty() ? 0L : eventos.get(eventos.size() - 1).getSeq();
+    }
+}
@@ -0,0 +1,175 @@
+package com.letscode.alunos;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.Endereco;
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.repository.AlunoRepository;
+import com.letscode.alunos.service.AlunoExportacaoService;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exportação de verdade, do cursor do banco até a saida, com um lote pequeno para o teste enxergar os ciclos
+ * de flush e limpeza do contexto de persistencia.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:exportacao",
+        "alunos.exportacao.lote=100"
+})
+class ExportacaoDeAlunosTest {
+
+    private static final int LOTE = 100;
+
+    @Autowired
+    AlunoExportacaoService alunoExportacaoService;
+
+    @Autowired
+    AlunoRepository alunoRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate.update("delete from alunos");
+    }
+
+    @Test
+    @DisplayName("Deve exportar em csv com cabecalho e o endereco em colunas")
+    void deveExportarEmCsv() throws Exception {
+        Aluno ana = new Aluno(null, "Ana, \"a primeira\"", 20L, "exp-1", null);
+        ana.setEndereco(new Endereco("Rua do Sol", 10L, null, "50000-000", "Recife"));
+        Long id = alunoRepository.save(ana).getId();
+        Long semIdade = alunoRepository.save(new Aluno(null, "Bruno", null, "exp-2", null)).getId();
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        alunoExportacaoService.exporta(FormatoArquivo.CSV, saida);
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertAll(
+                () -> assertEquals(3, linhas.length),
+                () -> assertEquals("id,nome,idade,documento,endereco.nome,endereco.numero,endereco.complemento,"
+                        + "endereco.cep,endereco.cidade,versao,criadoEm,atualizadoEm", linhas[0]),
+                // virgula e aspas no nome vão escapados
+                () -> assertTrue(linhas[1].startsWith(id + ",\"Ana, \"\"a primeira\"\"\",20,exp-1,Rua do Sol,10,,50000-000,Recife,0,")),
+                // null vira celula vazia na propria coluna, as seguintes não andam
+                () -> assertTrue(linhas[2].startsWith(semIdade + ",Bruno,,exp-2,,,,,,0,"), linhas[2])
+        );
+    }
+
+    @Test
+    @DisplayName("Deve exportar um aluno por linha em ndjson")
+    void deveExportarEmNdjson() throws Exception {
+        insere(3);
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        alunoExportacaoService.exporta(FormatoArquivo.NDJSON, saida);
+
+        String conteudo = saida.toString(StandardCharsets.UTF_8);
+        String[] linhas = conteudo.split("\n");
+        assertAll(
+                () -> assertTrue(conteudo.endsWith("\n")),
+                () -> assertEquals(3, linhas.length),
+                () -> assertEquals("Aluno 0", objectMapper.readValue(linhas[0], Aluno.class).getNome())
+        );
+    }
+
+    /**
+     * A memoria usada pela exportação é o que fica no contexto de persistencia mais o que ainda não foi mandado
+     * para a saida. Com 10x mais alunos os dois continuam limitados pelo lote.
+     */
+    @Test
+    @DisplayName("Deve manter a memoria da exportacao constante com a quantidade de linhas")
+    void deveManterAMemoriaConstante() throws Exception {
+        insere(500);
+        Medicao pequena = exporta();
+        insere(4500);
+        Medicao grande = exporta();
+
+        assertAll(
+                () -> assertEquals(500, pequena.linhas),
+                () -> assertEquals(5000, grande.linhas),
+                () -> assertTrue(grande.maiorContexto > 0 && grande.maiorContexto <= LOTE,
+                        "alunos gerenciados: " + grande.maiorContexto),
+                // cada flush manda no maximo um lote de linhas; sem ele os bytes pendentes cresceriam com a tabela
+                () -> assertTrue(grande.flushes >= 5000 / LOTE),
+                () -> assertTrue(grande.maiorPendente <= 2 * pequena.maiorPendente,
+                        "bytes entre flushes: " + grande.maiorPendente + " x " + pequena.maiorPendente)
+        );
+    }
+
+    private Medicao exporta() throws IOException {
+        Medicao medicao = new Medicao();
+        alunoExportacaoService.exporta(FormatoArquivo.NDJSON, medicao);
+        return medicao;
+    }
+
+    private void insere(int quantidade) {
+        List<Object[]> linhas = new ArrayList<>(quantidade);
+        long inicio = alunoRepository.count();
+        for (int i = 0; i < quantidade; i++) {
+            long numero = inicio + i;
+            linhas.add(new Object[]{"Aluno " + numero, 20 + numero % 50, "exp-" + numero, "Rua " + numero});
+        }
+        jdbcTemplate.batchUpdate("insert into alunos (id, nome, idade, documento, endereco) " +
+                "values (next value for alunos_seq, ?, ?, ?, ?)", linhas);
+    }
+
+    /**
+     * Saida que descarta os bytes e, a cada escrita, mede quantos alunos o contexto de persistencia da
+     * exportação tem: a escrita roda na mesma thread e transação, então o EntityManager é o mesmo.
+     */
+    class Medicao extends OutputStream {
+        long linhas;
+        long pendente;
+        long maiorPendente;
+        int maiorContexto;
+        int flushes;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    linhas++;
+                }
+            }
+            pendente += len;
+            maiorContexto = Math.max(maiorContexto,
+                    entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        }
+
+        @Override
+        public void flush() {
+            maiorPendente = Math.max(maiorPendente, pendente);
+            pendente = 0;
+            flushes++;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.letscode.alunos;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.Endereco;
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.model.StatusImportacao;
+import com.letscode.alunos.repository.AlunoRepository;
+import com.letscode.alunos.service.AlunoExportacaoService;
+import com.letscode.alunos.service.AlunoImportacaoService;
+import com.letscode.alunos.service.AlunoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importação de verdade, do arquivo até o banco, com lotes de 2 linhas para o teste passar por varios lotes
+ * validados em paralelo e gravados em ordem.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:importacao",
+        "alunos.importacao.lote=2",
+        "alunos.importacao.lotes-pendentes=2"
+})
+class ImportacaoDeAlunosTest {
+
+    @Autowired
+    AlunoImportacaoService alunoImportacaoService;
+
+    @Autowired
+    AlunoExportacaoService alunoExportacaoService;
+
+    @Autowired
+    AlunoService alunoService;
+
+    @Autowired
+    AlunoRepository alunoRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        jdbcTemplate.update("delete from alunos");
+    }
+
+    @Test
+    @DisplayName("Deve importar um csv inserindo ou atualizando pelo documento e rejeitando aluno sem nome")
+    void deveImportarUmCsv() throws Exception {
+        Aluno existente = alunoRepository.save(new Aluno(null, "Antigo", 10L, "imp-1", null));
+        long totalAntes = alunoService.estatisticas().total();
+
+        // colunas em outra ordem que a do export; imp-2 repetido em outro lote fica com a ultima linha
+        StatusImportacao status = importa(FormatoArquivo.CSV, """
+                documento,nome,idade,endereco.cidade
+                imp-1,Ana,20,Recife
+                imp-2,Bruno,30,
+                imp-3,,40,Natal
+                imp-2,Bruno Souza,31,Olinda
+                """);
+
+        Aluno ana = alunoRepository.findByDocumento("imp-1");
+        Aluno bruno = alunoRepository.findByDocumento("imp-2");
+        assertAll(
+                () -> assertEquals(StatusImportacao.Estado.CONCLUIDA, status.estado()),
+                () -> assertEquals(4, status.lidas()),
+                () -> assertEquals(1, status.criadas()),
+                () -> assertEquals(2, status.atualizadas()),
+                () -> assertEquals(1, status.rejeitadas()),
+                // linha do arquivo, contando o cabeçalho
+                () -> assertEquals(4, status.rejeicoes().get(0).getLinha()),
+                () -> assertEquals("Campo nome é obrigatorio", status.rejeicoes().get(0).getErro()),
+                () -> assertEquals(existente.getId(), ana.getId()),
+                () -> assertEquals("Ana", ana.getNome()),
+                () -> assertEquals(1L, ana.getVersao()),
+                () -> assertEquals("Recife", ana.getEndereco().getCidade()),
+                () -> assertEquals("Bruno Souza", bruno.getNome()),
+                () -> assertEquals(31L, bruno.getIdade()),
+                () -> assertNull(alunoRepository.findByDocumento("imp-3")),
+                () -> assertEquals(totalAntes + 1, alunoService.estatisticas().total()),
+                // o existente foi trocado pela linha inteira
+                () -> assertEquals("SUBSTITUIDO", jdbcTemplate.queryForObject("select tipo from alunos_eventos " +
+                        "where aluno_id = ? order by id desc limit 1", String.class, ana.getId()))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve importar ndjson pulando linhas em branco e rejeitando json invalido")
+    void deveImportarNdjson() throws Exception {
+        StatusImportacao status = importa(FormatoArquivo.NDJSON, """
+                {"nome":"Carla","documento":"imp-4","endereco":{"nome":"Rua A","cidade":"Recife"}}
+
+                {"nome":
+                {"nome":"Davi"}
+                {"nome":"Elisa","documento":"imp-5","idade":22}
+                """);
+
+        assertAll(
+                () -> assertEquals(StatusImportacao.Estado.CONCLUIDA, status.estado()),
+                () -> assertEquals(4, status.lidas()),
+                // sem documento sempre insere
+                () -> assertEquals(3, status.criadas()),
+                () -> assertEquals(1, status.rejeitadas()),
+                // linha do arquivo, contando a linha em branco
+                () -> assertEquals(3, status.rejeicoes().get(0).getLinha()),
+                () -> assertEquals(3, alunoRepository.count()),
+                () -> assertEquals("Rua A", alunoRepository.findByDocumento("imp-4").getEndereco().getNome())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve reimportar o csv exportado restaurando os alunos")
+    void deveReimportarOCsvExportado() throws Exception {
+        Aluno ana = new Aluno(null, "Ana, \"a primeira\"", 20L, "imp-6", null);
+        ana.setEndereco(new Endereco("Rua do Sol", 10L, null, "50000-000", "Recife"));
+        alunoRepository.save(ana);
+        alunoRepository.save(new Aluno(null, "Bruno", null, "imp-7", null));
+        ByteArrayOutputStream exportado = new ByteArrayOutputStream();
+        alunoExportacaoService.exporta(FormatoArquivo.CSV, exportado);
+        jdbcTemplate.update("update alunos set nome = 'alterado', endereco_cidade = null");
+
+        StatusImportacao status = importa(FormatoArquivo.CSV, exportado.toString(StandardCharsets.UTF_8));
+
+        Aluno restaurada = alunoRepository.findByDocumento("imp-6");
+        assertAll(
+                () -> assertEquals(0, status.criadas()),
+                () -> assertEquals(2, status.atualizadas()),
+                () -> assertEquals(0, status.rejeitadas()),
+                () -> assertEquals("Ana, \"a primeira\"", restaurada.getNome()),
+                () -> assertEquals("Recife", restaurada.getEndereco().getCidade()),
+                () -> assertNull(restaurada.getEndereco().getComplemento()),
+                () -> assertEquals("Bruno", alunoRepository.findByDocumento("imp-7").getNome())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar linha do csv com quantidade de colunas diferente do cabecalho")
+    void deveRejeitarLinhaComColunasDeslocadas() throws Exception {
+        StatusImportacao status = importa(FormatoArquivo.CSV, """
+                nome,idade,documento,endereco.cidade
+                Ana,20,imp-8,Recife
+
+                Bruno,imp-9,Olinda
+                "Carla
+                Souza",30,imp-10,Natal,extra
+                """);
+
+        assertAll(
+                () -> assertEquals(StatusImportacao.Estado.CONCLUIDA, status.estado()),
+                () -> assertEquals(1, status.criadas()),
+                () -> assertEquals(2, status.rejeitadas()),
+                () -> assertEquals("Linha com 3 colunas, o cabeçalho tem 4", status.rejeicoes().get(0).getErro()),
+                // a linha em branco conta, e o registro com quebra de linha é reportado pela linha onde começa
+                () -> assertEquals(4, status.rejeicoes().get(0).getLinha()),
+                () -> assertEquals(5, status.rejeicoes().get(1).getLinha()),
+                () -> assertNull(alunoRepository.findByDocumento("imp-9")),
+                () -> assertNull(alunoRepository.findByDocumento("imp-10"))
+        );
+    }
+
+    private StatusImportacao importa(FormatoArquivo formato, String arquivo) throws Exception {
+        StatusImportacao status = alunoImportacaoService.importa(formato,
+                new ByteArrayInputStream(arquivo.getBytes(StandardCharsets.UTF_8)));
+        Instant limite = Instant.now().plus(Duration.ofSeconds(10));
+        // o estado é o ultimo campo escrito quando a importação termina: terminado, os contadores já são os finais
+        while (status.estado() == StatusImportacao.Estado.NA_FILA
+                || status.estado() == StatusImportacao.Estado.PROCESSANDO) {
+            assertTrue(Instant.now().isBefore(limite), "importação não terminou: " + status);
+            Thread.sleep(20);
+            status = alunoImportacaoService.status(status.id()).orElseThrow();
+        }
+        return status;
+    }
+}
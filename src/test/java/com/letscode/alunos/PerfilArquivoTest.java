@@ -0,0 +1,41 @@
+package com.letscode.alunos;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.repository.AlunoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerfilArquivoTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    @DisplayName("Deve manter os alunos no arquivo depois de reiniciar")
+    void deveManterOsAlunosDepoisDeReiniciar() {
+        Long id;
+        try (ConfigurableApplicationContext context = sobe()) {
+            id = context.getBean(AlunoRepository.class).save(new Aluno(null, "Ana", 20L, "arq-1", "Rua")).getId();
+        }
+
+        // o Flyway encontra o schema já migrado e a aplicação sobe em cima dos dados gravados
+        try (ConfigurableApplicationContext context = sobe()) {
+            Aluno aluno = context.getBean(AlunoRepository.class).findById(id).orElseThrow();
+            assertEquals("Ana", aluno.getNome());
+        }
+    }
+
+    private ConfigurableApplicationContext sobe() {
+        return new SpringApplication(AlunosApplication.class).run(
+                "--spring.profiles.active=arquivo",
+                "--alunos.arquivo.diretorio=" + diretorio,
+                "--spring.main.web-application-type=none");
+    }
+}
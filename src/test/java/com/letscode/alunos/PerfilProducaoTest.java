@@ -0,0 +1,53 @@
+package com.letscode.alunos;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.service.AlunoService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:perfilprod")
+@ActiveProfiles("prod")
+class PerfilProducaoTest {
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    HikariDataSource dataSource;
+
+    @Autowired
+    AlunoService alunoService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve subir sem open-in-view e com pool fixo sem autocommit")
+    void deveSubirSemOpenInViewEComPoolFixo() {
+        assertAll(
+                () -> assertTrue(context.getBeansOfType(OpenEntityManagerInViewInterceptor.class).isEmpty()),
+                () -> assertFalse(dataSource.isAutoCommit()),
+                () -> assertEquals(dataSource.getMaximumPoolSize(), dataSource.getMinimumIdle())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve confirmar a gravacao mesmo com autocommit desligado no pool")
+    void deveConfirmarAGravacaoComAutocommitDesligado() {
+        alunoService.salvar(new Aluno(null, "Ana", 20L, "prod-1", "Rua"), null);
+
+        // outra conexão do pool só enxerga o aluno se a transação do service fez commit
+        Integer quantidade = jdbcTemplate.queryForObject(
+                "select count(*) from alunos where documento = 'prod-1'", Integer.class);
+        assertEquals(1, quantidade);
+    }
+}
@@ -0,0 +1,91 @@
+package com.letscode.alunos;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.service.AlunoExportacaoService;
+import com.letscode.alunos.service.AlunoService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * O timeout das respostas assincronas é do Tomcat, por isso o teste sobe o servidor. O padrão fica em 300ms e os
+ * downloads demoram mais que isso.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:streamlongo",
+        "alunos.limite.habilitado=false",
+        "spring.mvc.async.request-timeout=300ms"
+})
+class StreamLongoTest {
+
+    @LocalServerPort
+    int porta;
+
+    @MockBean
+    AlunoExportacaoService alunoExportacaoService;
+
+    @MockBean
+    AlunoService alunoService;
+
+    @Test
+    @DisplayName("Deve exportar o arquivo inteiro mesmo demorando mais que o timeout assincrono")
+    void deveExportarAlemDoTimeoutAssincrono() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream saida = invocation.getArgument(1);
+            saida.write("primeira\n".getBytes(StandardCharsets.UTF_8));
+            saida.flush();
+            Thread.sleep(1000);
+            saida.write("ultima\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(alunoExportacaoService).exporta(eq(FormatoArquivo.NDJSON), any());
+
+        HttpResponse<String> resposta = get("/alunos/export");
+
+        assertAll(
+                () -> assertEquals(200, resposta.statusCode()),
+                () -> assertEquals("primeira\nultima\n", resposta.body())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve mandar o stream inteiro mesmo demorando mais que o timeout assincrono")
+    @SuppressWarnings("unchecked")
+    void deveMandarOStreamAlemDoTimeoutAssincrono() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Aluno> consumidor = invocation.getArgument(0);
+            consumidor.accept(new Aluno(1L, "Ana", 20L, "s1", null));
+            Thread.sleep(1000);
+            consumidor.accept(new Aluno(2L, "Bia", 21L, "s2", null));
+            return null;
+        }).when(alunoService).paraCadaAluno(any());
+
+        HttpResponse<String> resposta = get("/alunos/stream");
+
+        assertAll(
+                () -> assertEquals(200, resposta.statusCode()),
+                () -> assertEquals(2, resposta.body().lines().count()),
+                () -> assertTrue(resposta.body().contains("\"Bia\""))
+        );
+    }
+
+    private HttpResponse<String> get(String caminho) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho)).GET().build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,31 @@
+package com.letscode.alunos.config;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CargaDoBancoTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CargaDoBanco carga = new CargaDoBanco(new SimpleDriverDataSource(), registry, 50);
+
+    @Test
+    @DisplayName("Deve cortar o fator pela metade quando a espera por conexao passa do limite e recuperar aos poucos")
+    void deveReduzirERecuperarOFator() {
+        Timer espera = Timer.builder("hikaricp.connections.acquire").register(registry);
+        espera.record(Duration.ofMillis(200));
+
+        assertThat(carga.recalcula(1.0)).isEqualTo(0.5);
+        assertThat(carga.recalcula(0.15)).isEqualTo(CargaDoBanco.FATOR_MINIMO);
+
+        registry.clear();
+        assertThat(carga.recalcula(0.5)).isEqualTo(0.6);
+        assertThat(carga.recalcula(0.95)).isEqualTo(1.0);
+    }
+}
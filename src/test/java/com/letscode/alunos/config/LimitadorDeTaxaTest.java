@@ -0,0 +1,53 @@
+package com.letscode.alunos.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimitadorDeTaxaTest {
+
+    private final AtomicLong relogio = new AtomicLong(-TimeUnit.SECONDS.toNanos(100));
+    private double fator = 1.0;
+
+    // BAIXO: 10/s com rajada de 5, ALTO: 1/s com rajada de 2
+    private final LimitadorDeTaxa limitador = new LimitadorDeTaxa(
+            LimitadorDeTaxa.porCusto(10.0, 1.0), LimitadorDeTaxa.porCusto(5, 2),
+            () -> fator, relogio::get);
+
+    @Test
+    @DisplayName("Deve aceitar a rajada e depois pedir para esperar o proximo token")
+    void deveAceitarARajadaEDepoisPedirEspera() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(limitador.tenta("a", Custo.BAIXO)).isZero();
+        }
+        assertThat(limitador.tenta("a", Custo.BAIXO)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        relogio.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limitador.tenta("a", Custo.BAIXO)).isZero();
+        assertThat(limitador.tenta("a", Custo.BAIXO)).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deve separar os orcamentos por cliente e por custo")
+    void deveSepararOrcamentosPorClienteECusto() {
+        assertThat(limitador.tenta("a", Custo.ALTO)).isZero();
+        assertThat(limitador.tenta("a", Custo.ALTO)).isZero();
+        assertThat(limitador.tenta("a", Custo.ALTO)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        assertThat(limitador.tenta("a", Custo.BAIXO)).isZero();
+        assertThat(limitador.tenta("b", Custo.ALTO)).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reduzir a taxa de acordo com o fator de carga")
+    void deveReduzirATaxaComOFatorDeCarga() {
+        fator = 0.5;
+        assertThat(limitador.tenta("a", Custo.ALTO)).isZero();
+        assertThat(limitador.tenta("a", Custo.ALTO)).isZero();
+        assertThat(limitador.tenta("a", Custo.ALTO)).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+    }
+}
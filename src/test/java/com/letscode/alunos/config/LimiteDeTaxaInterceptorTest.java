@@ -0,0 +1,54 @@
+package com.letscode.alunos.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteDeTaxaInterceptorTest {
+
+    @LimiteDeTaxa
+    static class Handlers {
+        public void barato() {
+        }
+
+        @LimiteDeTaxa(Custo.ALTO)
+        public void caro() {
+        }
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LimiteDeTaxaInterceptor interceptor = new LimiteDeTaxaInterceptor(
+            new LimitadorDeTaxa(LimitadorDeTaxa.porCusto(100.0, 0.5), LimitadorDeTaxa.porCusto(100, 1),
+                    () -> 1.0, () -> 0L),
+            registry);
+
+    @Test
+    @DisplayName("Deve responder 429 com Retry-After quando o cliente estoura o orcamento do endpoint")
+    void deveResponder429ComRetryAfter() throws Exception {
+        HandlerMethod caro = new HandlerMethod(new Handlers(), "caro");
+
+        assertThat(interceptor.preHandle(requisicao("chave-1"), new MockHttpServletResponse(), caro)).isTrue();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(requisicao("chave-1"), response, caro)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(registry.get("alunos.limite.rejeitadas").tag("custo", "ALTO").counter().count()).isEqualTo(1);
+
+        // outra chave tem o seu proprio balde, e os endpoints baratos seguem liberados
+        assertThat(interceptor.preHandle(requisicao("chave-2"), new MockHttpServletResponse(), caro)).isTrue();
+        assertThat(interceptor.preHandle(requisicao("chave-1"), new MockHttpServletResponse(),
+                new HandlerMethod(new Handlers(), "barato"))).isTrue();
+    }
+
+    private static MockHttpServletRequest requisicao(String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/alunos");
+        request.addHeader(LimiteDeTaxaInterceptor.HEADER_API_KEY, apiKey);
+        return request;
+    }
+}
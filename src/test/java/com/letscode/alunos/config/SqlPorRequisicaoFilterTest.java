@@ -0,0 +1,36 @@
+package com.letscode.alunos.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlPorRequisicaoFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SqlPorRequisicaoFilter filter = new SqlPorRequisicaoFilter(registry, 10);
+
+    @Test
+    @DisplayName("Deve registrar quantos statements SQL a requisicao executou por endpoint")
+    void deveRegistrarStatementsPorRequisicao() throws Exception {
+        ContadorDeSql contador = new ContadorDeSql();
+        contador.inspect("select 1");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/alunos/1");
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/alunos/{id}");
+            contador.inspect("select a from alunos a where a.id=?");
+            contador.inspect("select count(*) from alunos");
+        });
+
+        DistributionSummary summary = registry.get("alunos.sql.por.requisicao")
+                .tag("method", "GET").tag("uri", "/alunos/{id}").summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+}
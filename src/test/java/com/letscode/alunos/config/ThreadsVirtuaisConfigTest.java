@@ -0,0 +1,40 @@
+package com.letscode.alunos.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThreadsVirtuaisConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(ThreadsVirtuaisConfig.class);
+
+    @Test
+    @DisplayName("Nao deve trocar o executor quando o modo virtual estiver desligado")
+    void naoDeveTrocarOExecutorQuandoDesligado() {
+        contextRunner.withPropertyValues("alunos.threads.virtuais=false")
+                .run(context -> assertThat(context).doesNotHaveBean(TomcatProtocolHandlerCustomizer.class));
+    }
+
+    @Test
+    @DisplayName("Deve usar threads virtuais no Java 21 ou falhar avisando a versao necessaria")
+    void deveUsarThreadsVirtuaisOuFalharAvisandoAVersao() {
+        contextRunner.withPropertyValues("alunos.threads.virtuais=true").run(context -> {
+            if (Runtime.version().feature() >= 21) {
+                assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+                Thread[] thread = new Thread[1];
+                context.getBean(ExecutorService.class).submit(() -> thread[0] = Thread.currentThread()).get();
+                assertThat(thread[0].toString()).startsWith("VirtualThread");
+            } else {
+                assertThat(context).hasFailed();
+                assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(NoSuchMethodException.class)
+                        .hasStackTraceContaining("Java 21");
+            }
+        });
+    }
+}
@@ -1,8 +1,25 @@
 package com.letscode.alunos.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.AlunoRemovido;
+import com.letscode.alunos.model.AlunoResumo;
+import com.letscode.alunos.model.EstatisticasAlunos;
+import com.letscode.alunos.model.FiltroAluno;
+import com.letscode.alunos.model.FormatoArquivo;
+import com.letscode.alunos.model.ResultadoLote;
+import com.letscode.alunos.model.StatusImportacao;
+import com.letscode.alunos.service.AlunoExportacaoService;
+import com.letscode.alunos.service.AlunoImportacaoService;
+import com.letscode.alunos.service.AlunoLoteService;
 import com.letscode.alunos.service.AlunoService;
+import com.letscode.alunos.service.AlunoSincronizacaoService;
+import com.letscode.alunos.service.IndiceEmCargaException;
+import com.letscode.alunos.service.SincronizacaoExpiradaException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,19 +29,38 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
@@ -65,6 +101,18 @@ class AlunoControllerTest {
     @MockBean
     AlunoService alunoService;
 
+    @MockBean
+    AlunoLoteService alunoLoteService;
+
+    @MockBean
+    AlunoSincronizacaoService alunoSincronizacaoService;
+
+    @MockBean
+    AlunoExportacaoService alunoExportacaoService;
+
+    @MockBean
+    AlunoImportacaoService alunoImportacaoService;
+
     @Autowired
     MockMvc mockMvc;
 
@@ -78,6 +126,7 @@ class AlunoControllerTest {
         //Nova instancia do aluno
         aluno = new Aluno(1L, "Jonathan2", 22L,
                 "4354354333", "Rua teste 2242");
+        aluno.setVersao(0L);
     }
 
     @Test
@@ -85,7 +134,7 @@ class AlunoControllerTest {
     void deveCadastraUmNovoAluno() throws Exception {
 
         // Simula o metodo salvar
-        when(alunoService.salvar(any())).thenReturn(aluno);
+        when(alunoService.salvar(any(), any())).thenReturn(aluno);
 
         // chamar nosso endpoint
         MvcResult result = mockMvc.perform(post("/alunos") // especifica url
@@ -113,7 +162,7 @@ class AlunoControllerTest {
     void deveVerificarOValorDoNomeDoAlunoQueFoiEnviado() throws Exception {
 
         // Simula o metodo salvar
-        when(alunoService.salvar(any())).thenReturn(aluno);
+        when(alunoService.salvar(any(), any())).thenReturn(aluno);
 
         // chamar nosso endpoint
         MvcResult result = mockMvc.perform(post("/alunos") // especifica url
@@ -124,10 +173,26 @@ class AlunoControllerTest {
 
         //ArgumentCaptor para capturar o Aluno objeto que foi enviado para o metodo salvar e afirmar que ele contém os valores esperados.
         ArgumentCaptor<Aluno> alunoArgumentCaptor = ArgumentCaptor.forClass(Aluno.class);
-        verify(alunoService, times(1)).salvar(alunoArgumentCaptor.capture());
+        verify(alunoService, times(1)).salvar(alunoArgumentCaptor.capture(), any());
         Assertions.assertEquals(aluno.getNome(), alunoArgumentCaptor.getValue().getNome());
     }
 
+    @Test
+    @DisplayName("Deve salvar com a versao do If-Match ignorando a versao do corpo")
+    void deveSalvarComAVersaoDoIfMatch() throws Exception {
+        when(alunoService.salvar(any(), any())).thenReturn(aluno);
+
+        mockMvc.perform(post("/alunos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content("{\"id\":1,\"nome\":\"Jonathan2\",\"versao\":5}"))
+                .andExpect(status().isCreated());
+
+        ArgumentCaptor<Aluno> salvo = ArgumentCaptor.forClass(Aluno.class);
+        verify(alunoService).salvar(salvo.capture(), eq(3L));
+        Assertions.assertNull(salvo.getValue().getVersao());
+    }
+
     @Test
     @DisplayName("Testa fluxo com nome null")
     void testaFluxoComNomeNull() throws Exception {
@@ -139,6 +204,60 @@ class AlunoControllerTest {
     }
 
 
+    @Test
+    @DisplayName("Deve cadastrar alunos em lote a partir de um array JSON")
+    void deveCadastrarAlunosEmLoteAPartirDeUmArrayJson() throws Exception {
+        List<String> nomes = capturaNomesDoLote();
+
+        MvcResult result = mockMvc.perform(post("/alunos/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(aluno, aluno))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var resultados = objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+        Assertions.assertEquals(List.of("Jonathan2", "Jonathan2"), nomes);
+        Assertions.assertEquals(2, resultados.size());
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar alunos em lote a partir de NDJSON")
+    void deveCadastrarAlunosEmLoteAPartirDeNdjson() throws Exception {
+        List<String> nomes = capturaNomesDoLote();
+
+        mockMvc.perform(post("/alunos/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"nome\":\"Ana\"}\n{\"nome\":\"Bia\"}\n{\"nome\":\"Caio\"}\n"))
+                .andExpect(status().isOk());
+
+        Assertions.assertEquals(List.of("Ana", "Bia", "Caio"), nomes);
+    }
+
+    @Test
+    @DisplayName("Deve recusar lote com JSON invalido")
+    void deveRecusarLoteComJsonInvalido() throws Exception {
+        capturaNomesDoLote();
+
+        mockMvc.perform(post("/alunos/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"nome\":\"Ana\"}\n{\"idade\":\"abc\"}\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> capturaNomesDoLote() {
+        List<String> nomes = new ArrayList<>();
+        when(alunoLoteService.salvarEmLote(any())).thenAnswer(invocation -> {
+            Iterator<Aluno> alunos = invocation.getArgument(0);
+            List<ResultadoLote> resultados = new ArrayList<>();
+            while (alunos.hasNext()) {
+                nomes.add(alunos.next().getNome());
+                resultados.add(ResultadoLote.criado(resultados.size(), (long) resultados.size() + 1));
+            }
+            return resultados;
+        });
+        return nomes;
+    }
+
     @Test
     @DisplayName("Deve buscar todos os alunos")
     void deveBuscarTodosOsAlunos() throws Exception {
@@ -179,6 +298,50 @@ class AlunoControllerTest {
         Assertions.assertEquals(0, list.size());
     }
 
+    @Test
+    @DisplayName("Deve buscar uma pagina de alunos a partir do cursor")
+    void deveBuscarUmaPaginaDeAlunosAPartirDoCursor() throws Exception {
+        when(alunoService.buscaPagina(anyLong(), anyInt())).thenReturn(List.of(aluno));
+
+        MvcResult result = mockMvc.perform(get("/alunos")
+                        .param("after", "0")
+                        .param("limit", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var lista = objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+
+        Assertions.assertEquals(1, lista.size());
+        verify(alunoService).buscaPagina(0L, 10);
+        verify(alunoService, never()).buscaTodos();
+    }
+
+    @Test
+    @DisplayName("Deve devolver os alunos em NDJSON")
+    void deveDevolverOsAlunosEmNdjson() throws Exception {
+        Aluno outro = new Aluno(2L, "Maria", 30L, "999", "Rua 2");
+        doAnswer(invocation -> {
+            Consumer<Aluno> consumidor = invocation.getArgument(0);
+            consumidor.accept(aluno);
+            consumidor.accept(outro);
+            return null;
+        }).when(alunoService).paraCadaAluno(any());
+
+        MvcResult result = mockMvc.perform(get("/alunos/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        String[] linhas = result.getResponse().getContentAsString().split("\n");
+        Assertions.assertAll(
+                () -> Assertions.assertEquals("application/x-ndjson", result.getResponse().getContentType()),
+                () -> Assertions.assertEquals(2, linhas.length),
+                () -> Assertions.assertEquals("Maria", objectMapper.readValue(linhas[1], Aluno.class).getNome())
+        );
+    }
+
     @Test
     @DisplayName("Deve retorna o aluno quando buscar por id")
     void deveRetornaOAlunoQuandoBuscarPorId() throws Exception {
@@ -198,7 +361,7 @@ class AlunoControllerTest {
     @Test
     @DisplayName("Deve alterar o nome ao buscar pelo ID")
     void deveAlterarONomeAoBuscarPeloID() throws Exception {
-        when(alunoService.alterarAluno(anyLong(), anyString())).thenReturn(aluno);
+        when(alunoService.alterarAluno(anyLong(), anyString(), isNull())).thenReturn(aluno);
 
         MvcResult result = mockMvc.perform(patch("/alunos/{id}/{nome}",aluno.getId(),aluno.getNome())
                 .contentType(MediaType.APPLICATION_JSON))
@@ -208,10 +371,43 @@ class AlunoControllerTest {
         Assertions.assertEquals("Jonathan2", aluno1.getNome());
     }
 
+    @Test
+    @DisplayName("Deve aplicar o merge patch e responder sem conteudo")
+    void deveAplicarOMergePatch() throws Exception {
+        mockMvc.perform(patch("/alunos/{id}", aluno.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"idade\": 23, \"documento\": null}"))
+                .andExpect(status().isNoContent());
+
+        ArgumentCaptor<Map<String, Object>> patch = ArgumentCaptor.forClass(Map.class);
+        verify(alunoService).alterarCampos(eq(aluno.getId()), patch.capture(), isNull());
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(23, patch.getValue().get("idade")),
+                () -> Assertions.assertTrue(patch.getValue().containsKey("documento")),
+                () -> Assertions.assertNull(patch.getValue().get("documento")),
+                () -> Assertions.assertFalse(patch.getValue().containsKey("nome"))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve responder 400 para merge patch invalido")
+    void deveResponder400ParaMergePatchInvalido() throws Exception {
+        doThrow(new IllegalArgumentException("Campo id não pode ser alterado"))
+                .when(alunoService).alterarCampos(anyLong(), any(), any());
+
+        MvcResult result = mockMvc.perform(patch("/alunos/{id}", aluno.getId())
+                        .contentType("application/merge-patch+json")
+                        .content("{\"id\": 5}"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        Assertions.assertEquals("Campo id não pode ser alterado", result.getResponse().getContentAsString());
+    }
+
     @Test
     @DisplayName("Deve retornar mensagem aluno deletado ao buscar por id")
     public void deveRetornarMensagemAlunoDeletadoAoBuscarPorId() throws Exception {
-        when(alunoService.delete(anyLong())).thenReturn("Aluno deletado");
+        when(alunoService.delete(anyLong(), isNull())).thenReturn("Aluno deletado");
 
         MvcResult result = mockMvc.perform(delete("/alunos/{id}", aluno.getId())
                         .contentType(MediaType.APPLICATION_JSON))
@@ -221,6 +417,46 @@ class AlunoControllerTest {
         Assertions.assertEquals("Aluno deletado",resposta);
     }
 
+    @Test
+    @DisplayName("Deve deletar varios alunos pelos ids")
+    public void deveDeletarVariosAlunosPelosIds() throws Exception {
+        when(alunoService.deletaPorIds(any())).thenReturn(3);
+
+        MvcResult result = mockMvc.perform(delete("/alunos").param("ids", "1,2,3"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Assertions.assertEquals("3 alunos deletados", result.getResponse().getContentAsString());
+        verify(alunoService).deletaPorIds(List.of(1L, 2L, 3L));
+        verify(alunoService, never()).deletaPorFiltro(any());
+    }
+
+    @Test
+    @DisplayName("Deve deletar varios alunos pelo filtro")
+    public void deveDeletarVariosAlunosPeloFiltro() throws Exception {
+        when(alunoService.deletaPorFiltro(any())).thenReturn(2);
+
+        mockMvc.perform(delete("/alunos").param("idadeMax", "17"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<FiltroAluno> filtro = ArgumentCaptor.forClass(FiltroAluno.class);
+        verify(alunoService).deletaPorFiltro(filtro.capture());
+        Assertions.assertEquals(17L, filtro.getValue().getIdadeMax());
+    }
+
+    @Test
+    @DisplayName("Nao deve deixar o cursor interno da paginacao entrar no filtro do delete")
+    public void naoDeveAceitarCursorInternoNoFiltroDoDelete() throws Exception {
+        when(alunoService.deletaPorFiltro(any())).thenThrow(new IllegalArgumentException("Informe ids ou ao menos um filtro para deletar"));
+
+        mockMvc.perform(delete("/alunos").param("idMaiorQue", "5"))
+                .andExpect(status().isBadRequest());
+
+        ArgumentCaptor<FiltroAluno> filtro = ArgumentCaptor.forClass(FiltroAluno.class);
+        verify(alunoService).deletaPorFiltro(filtro.capture());
+        Assertions.assertTrue(filtro.getValue().isVazio());
+    }
+
     @Test
     @DisplayName("Deve apresentar lista de aluno ao buscar por nome")
     public void deveApresentarListaDeAlunoAoBuscarPorNome() throws Exception {
@@ -256,7 +492,7 @@ class AlunoControllerTest {
     @Test
     @DisplayName("Deve apresentar lista de aluno ao buscar todos os parametros")
     public void deveApresenarListaDeAlunoAoBuscarTodosOsParametros() throws Exception {
-        when(alunoService.filter(anyString(),anyLong(),anyString())).thenReturn(List.of(aluno));
+        when(alunoService.filter(any(), any())).thenReturn(List.of(aluno));
 
         MvcResult result = mockMvc.perform(get("/alunos/fiters")
                         .param("nome","Naldo")
@@ -269,4 +505,301 @@ class AlunoControllerTest {
 
         Assertions.assertEquals(1 , list.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve repassar o filtro e a paginacao para o servico")
+    public void deveRepassarOFiltroEAPaginacaoParaOServico() throws Exception {
+        when(alunoService.filter(any(), any())).thenReturn(List.of(aluno));
+
+        mockMvc.perform(get("/alunos/fiters")
+                        .param("nomePrefixo", "Jon")
+                        .param("idadeMin", "18")
+                        .param("idadeMax", "30")
+                        .param("page", "2")
+                        .param("size", "5")
+                        .param("sort", "nome,desc"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<FiltroAluno> filtro = ArgumentCaptor.forClass(FiltroAluno.class);
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(alunoService).filter(filtro.capture(), pageable.capture());
+        Assertions.assertAll(
+                () -> Assertions.assertEquals("Jon", filtro.getValue().getNomePrefixo()),
+                () -> Assertions.assertEquals(18L, filtro.getValue().getIdadeMin()),
+                () -> Assertions.assertEquals(30L, filtro.getValue().getIdadeMax()),
+                () -> Assertions.assertNull(filtro.getValue().getNome()),
+                () -> Assertions.assertEquals(2, pageable.getValue().getPageNumber()),
+                () -> Assertions.assertEquals(5, pageable.getValue().getPageSize()),
+                () -> Assertions.assertEquals(Sort.Direction.DESC, pageable.getValue().getSort().getOrderFor("nome").getDirection())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 com Retry-After quando o bulkhead estiver cheio")
+    public void deveResponder503QuandoOBulkheadEstiverCheio() throws Exception {
+        when(alunoService.buscaTodos()).thenThrow(
+                BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("listagem")));
+
+        mockMvc.perform(get("/alunos"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    @DisplayName("Deve repassar a pesquisa por nome com a paginacao")
+    public void deveRepassarAPesquisaPorNome() throws Exception {
+        when(alunoService.pesquisaPorNome("joao sil", 1, 5)).thenReturn(List.of(aluno));
+
+        MvcResult result = mockMvc.perform(get("/alunos/busca")
+                        .param("q", "joao sil")
+                        .param("page", "1")
+                        .param("size", "5"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var list = objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+        Assertions.assertEquals(1, list.size());
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 na pesquisa enquanto o indice de nomes carrega")
+    public void deveResponder503NaPesquisaEnquantoOIndiceCarrega() throws Exception {
+        when(alunoService.pesquisaPorNome(any(), anyInt(), anyInt())).thenThrow(new IndiceEmCargaException());
+
+        mockMvc.perform(get("/alunos/busca").param("q", "joao"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    @DisplayName("Deve trazer so os campos pedidos em fields")
+    public void deveTrazerSoOsCamposPedidos() throws Exception {
+        when(alunoService.buscaPaginaCampos(10L, 2, List.of("id", "nome")))
+                .thenReturn(List.of(Map.of("id", 11L, "nome", "Jonathan")));
+
+        MvcResult result = mockMvc.perform(get("/alunos")
+                        .param("after", "10")
+                        .param("limit", "2")
+                        .param("fields", "id,nome"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var list = objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+        Assertions.assertEquals(Map.of("id", 11, "nome", "Jonathan"), list.get(0));
+        verify(alunoService, never()).buscaPagina(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve trazer as alteracoes e lapides desde modifiedSince")
+    void deveTrazerAsAlteracoesDesdeModifiedSince() throws Exception {
+        Instant desde = Instant.parse("2026-01-01T10:00:00Z");
+        when(alunoSincronizacaoService.buscaAlteracoes(desde, 5L, 100))
+                .thenReturn(List.of(aluno, new AlunoRemovido(9L, desde.plusSeconds(1))));
+
+        MvcResult result = mockMvc.perform(get("/alunos")
+                        .param("modifiedSince", "2026-01-01T10:00:00Z")
+                        .param("after", "5")
+                        .param("limit", "100"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        var list = objectMapper.readValue(result.getResponse().getContentAsString(), List.class);
+        Assertions.assertEquals(2, list.size());
+        Assertions.assertEquals(Map.of("id", 9, "removidoEm", "2026-01-01T10:00:01Z"), list.get(1));
+        verify(alunoService, never()).buscaPagina(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve responder 410 quando modifiedSince passou da retencao das lapides")
+    void deveResponderGoneQuandoASincronizacaoExpirou() throws Exception {
+        when(alunoSincronizacaoService.buscaAlteracoes(any(), any(), any()))
+                .thenThrow(new SincronizacaoExpiradaException());
+
+        mockMvc.perform(get("/alunos").param("modifiedSince", "2020-01-01T00:00:00Z"))
+                .andExpect(status().isGone());
+    }
+
+    @Test
+    @DisplayName("Nao deve aceitar fields junto com modifiedSince")
+    void naoDeveAceitarFieldsComModifiedSince() throws Exception {
+        mockMvc.perform(get("/alunos")
+                        .param("modifiedSince", "2026-01-01T10:00:00Z")
+                        .param("fields", "id"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(alunoSincronizacaoService);
+    }
+
+    @Test
+    @DisplayName("Deve exportar em csv comprimido com gzip para download")
+    void deveExportarEmCsvComGzip() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream saida = invocation.getArgument(1);
+            saida.write("id,nome\n1,Jonathan\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(alunoExportacaoService).exporta(eq(FormatoArquivo.CSV), any());
+
+        MvcResult result = mockMvc.perform(get("/alunos/export").param("format", "CSV").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"alunos.csv.gz\""));
+        try (GZIPInputStream conteudo = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            Assertions.assertEquals("id,nome\n1,Jonathan\n", new String(conteudo.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("Nao deve exportar em formato desconhecido")
+    void naoDeveExportarEmFormatoDesconhecido() throws Exception {
+        mockMvc.perform(get("/alunos/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(alunoExportacaoService);
+    }
+
+    @Test
+    @DisplayName("Deve aceitar a importacao de um csv e apontar para o status")
+    void deveAceitarAImportacaoDeUmCsv() throws Exception {
+        when(alunoImportacaoService.importa(eq(FormatoArquivo.CSV), any())).thenReturn(new StatusImportacao("abc",
+                StatusImportacao.Estado.NA_FILA, FormatoArquivo.CSV, 0, 0, 0, 0, List.of(), null, null, null));
+
+        mockMvc.perform(post("/alunos/import")
+                        .contentType("text/csv")
+                        .content("nome,documento\nJonathan,4354354333\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/alunos/import/abc"))
+                .andExpect(content().json("{\"id\":\"abc\",\"estado\":\"NA_FILA\",\"formato\":\"CSV\"}"));
+    }
+
+    @Test
+    @DisplayName("Deve responder 404 para importacao desconhecida")
+    void deveResponder404ParaImportacaoDesconhecida() throws Exception {
+        when(alunoImportacaoService.status("abc")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/alunos/import/abc"))
+                .andExpect(status().isNotFound());
+        verify(alunoService, never()).buscaPorId(any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver as estatisticas dos alunos")
+    void deveDevolverAsEstatisticas() throws Exception {
+        when(alunoService.estatisticas()).thenReturn(new EstatisticasAlunos(3, 15L, 22L, 17.5,
+                Map.of("10-19", 1L, "20-29", 1L), Map.of("Recife", 2L), 1, 1));
+
+        mockMvc.perform(get("/alunos/stats"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"total\":3,\"idadeMinima\":15,\"idadeMaxima\":22,\"idadeMedia\":17.5," +
+                        "\"porFaixaDeIdade\":{\"10-19\":1,\"20-29\":1},\"porCidade\":{\"Recife\":2}," +
+                        "\"semIdade\":1,\"semCidade\":1}", true));
+        verify(alunoService, never()).buscaPorId(any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver o resumo dos alunos pelo cursor")
+    public void deveDevolverOResumoDosAlunos() throws Exception {
+        when(alunoService.buscaResumos(null, 50)).thenReturn(List.of(new AlunoResumo(1L, "Jonathan")));
+
+        mockMvc.perform(get("/alunos/resumo").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"nome\":\"Jonathan\"}]", true));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar o endereco antigo em texto e o novo como objeto")
+    void deveAceitarEnderecoEmTextoEComoObjeto() throws Exception {
+        when(alunoService.salvar(any(), any())).thenReturn(aluno);
+
+        mockMvc.perform(post("/alunos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Ana\",\"endereco\":\"Rua do Sol 10\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/alunos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\":\"Ana\",\"endereco\":{\"nome\":\"Rua do Sol\",\"numero\":10,"
+                                + "\"cep\":\"50000-000\",\"cidade\":\"Recife\"}}"))
+                .andExpect(status().isCreated());
+
+        ArgumentCaptor<Aluno> alunos = ArgumentCaptor.forClass(Aluno.class);
+        verify(alunoService, times(2)).salvar(alunos.capture(), any());
+        Assertions.assertAll(
+                () -> Assertions.assertEquals("Rua do Sol 10", alunos.getAllValues().get(0).getEndereco().getNome()),
+                () -> Assertions.assertEquals("Rua do Sol", alunos.getAllValues().get(1).getEndereco().getNome()),
+                () -> Assertions.assertEquals(10L, alunos.getAllValues().get(1).getEndereco().getNumero()),
+                () -> Assertions.assertEquals("Recife", alunos.getAllValues().get(1).getEndereco().getCidade())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve responder 304 sem corpo quando o If-None-Match for a versao atual")
+    void deveResponder304QuandoOIfNoneMatchForAVersaoAtual() throws Exception {
+        aluno.setVersao(7L);
+        when(alunoService.buscaPorId(aluno.getId())).thenReturn(aluno);
+
+        mockMvc.perform(get("/alunos/{id}", aluno.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""));
+        MvcResult result = mockMvc.perform(get("/alunos/{id}", aluno.getId()).header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7\""))
+                .andReturn();
+
+        Assertions.assertEquals("", result.getResponse().getContentAsString());
+    }
+
+    @Test
+    @DisplayName("Deve repassar a versao do If-Match e devolver o novo ETag")
+    void deveRepassarAVersaoDoIfMatch() throws Exception {
+        when(alunoService.alterarCampos(eq(aluno.getId()), any(), eq(3L))).thenReturn(4L);
+
+        mockMvc.perform(patch("/alunos/{id}", aluno.getId())
+                        .contentType("application/merge-patch+json")
+                        .header("If-Match", "W/\"3\"")
+                        .content("{\"idade\": 30}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    @DisplayName("Deve responder 412 quando a versao do If-Match estiver desatualizada")
+    void deveResponder412QuandoAVersaoEstiverDesatualizada() throws Exception {
+        when(alunoService.delete(aluno.getId(), 3L))
+                .thenThrow(new OptimisticLockingFailureException("Aluno foi alterado por outra requisição"));
+
+        mockMvc.perform(delete("/alunos/{id}", aluno.getId()).header("If-Match", "\"3\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/alunos/{id}", aluno.getId()).header("If-Match", "\"abc\""))
+                .andExpect(status().isPreconditionFailed());
+        verify(alunoService, times(1)).delete(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver a lista em Smile ou CBOR conforme o Accept")
+    void deveDevolverAListaEmSmileOuCborConformeOAccept() throws Exception {
+        when(alunoService.buscaTodos()).thenReturn(List.of(aluno));
+
+        for (ObjectMapper binario : List.of(new SmileMapper(), new CBORMapper())) {
+            String tipo = binario instanceof SmileMapper ? "application/x-jackson-smile" : "application/cbor";
+            MvcResult result = mockMvc.perform(get("/alunos").accept(tipo))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(tipo))
+                    .andReturn();
+
+            Aluno[] alunos = binario.readValue(result.getResponse().getContentAsByteArray(), Aluno[].class);
+            Assertions.assertEquals(aluno.getNome(), alunos[0].getNome());
+        }
+    }
+
+    @Test
+    @DisplayName("Deve pedir revalidacao pelo ETag no Cache-Control do aluno")
+    void deveMandarCacheControlNoAluno() throws Exception {
+        when(alunoService.buscaPorId(aluno.getId())).thenReturn(aluno);
+
+        mockMvc.perform(get("/alunos/{id}", aluno.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, private"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.letscode.alunos.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.service.EsperaDeEventos;
+import com.letscode.alunos.service.EventoAlunoService;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AlunoEventosController.class)
+@Import(EsperaDeEventos.class)
+class AlunoEventosControllerTest {
+
+    @MockBean
+    EventoAlunoService eventoAlunoService;
+
+    @Autowired
+    EsperaDeEventos esperaDeEventos;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Deve devolver os eventos depois do seq informado com os dados em JSON")
+    void deveDevolverOsEventosDepoisDoSeq() throws Exception {
+        when(eventoAlunoService.buscaEventos(10L, 50)).thenReturn(List.of(evento(11L)));
+
+        MvcResult result = mockMvc.perform(get("/alunos/changes").param("since", "10").param("limit", "50"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        List<Map<String, Object>> eventos = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<>() {});
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(1, eventos.size()),
+                () -> Assertions.assertEquals(11, eventos.get(0).get("seq")),
+                () -> Assertions.assertEquals("ALTERADO", eventos.get(0).get("tipo")),
+                () -> Assertions.assertEquals(Map.of("nome", "Ana"), eventos.get(0).get("dados")),
+                () -> Assertions.assertFalse(eventos.get(0).containsKey("id"))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve esperar no long-poll ate o relay publicar um evento novo")
+    void deveEsperarAteORelayPublicar() throws Exception {
+        when(eventoAlunoService.buscaEventos(11L, null)).thenReturn(List.of(), List.of(evento(12L)));
+
+        MvcResult result = mockMvc.perform(get("/alunos/changes").param("since", "11").param("wait", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Assertions.assertEquals(1, esperaDeEventos.getEsperando());
+
+        // lote que não passa do since do consumidor não acorda ninguem
+        esperaDeEventos.publicados(11L);
+        Assertions.assertEquals(1, esperaDeEventos.getEsperando());
+        esperaDeEventos.publicados(12L);
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        List<Map<String, Object>> eventos = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<>() {});
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(12, eventos.get(0).get("seq")),
+                () -> Assertions.assertEquals(0, esperaDeEventos.getEsperando())
+        );
+        verify(eventoAlunoService, times(2)).buscaEventos(11L, null);
+    }
+
+    @Test
+    @DisplayName("Deve consultar os eventos do long-poll acordado fora da thread do relay")
+    void deveConsultarOsEventosForaDaThreadDoRelay() throws Exception {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        when(eventoAlunoService.buscaEventos(20L, null)).thenAnswer(invocacao -> {
+            threads.add(Thread.currentThread().getName());
+            return threads.size() == 1 ? List.of() : List.of(evento(21L));
+        });
+
+        MvcResult result = mockMvc.perform(get("/alunos/changes").param("since", "20").param("wait", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        esperaDeEventos.publicados(21L);
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(2, threads.size()),
+                () -> Assertions.assertNotEquals(Thread.currentThread().getName(), threads.get(1)),
+                () -> Assertions.assertTrue(threads.get(1).startsWith("aviso-eventos-"), threads.get(1))
+        );
+    }
+
+    @Test
+    @DisplayName("Nao deve esperar quando ja existem eventos depois do seq")
+    void naoDeveEsperarQuandoJaExistemEventos() throws Exception {
+        when(eventoAlunoService.buscaEventos(0L, null)).thenReturn(List.of(evento(1L)));
+
+        MvcResult result = mockMvc.perform(get("/alunos/changes").param("wait", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        Assertions.assertEquals(0, esperaDeEventos.getEsperando());
+        verify(eventoAlunoService, times(1)).buscaEventos(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 quando a consulta feita pelo aviso do relay e recusada")
+    void deveResponder503QuandoAConsultaDoAvisoERecusada() throws Exception {
+        when(eventoAlunoService.buscaEventos(5L, null))
+                .thenReturn(List.of())
+                .thenThrow(BulkheadFullException.createBulkheadFullException(Bulkhead.ofDefaults("leituraPorId")));
+
+        MvcResult result = mockMvc.perform(get("/alunos/changes").param("since", "5").param("wait", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        esperaDeEventos.publicados(6L);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", SobrecargaAdvice.RETRY_AFTER_SEGUNDOS));
+    }
+
+    private static EventoAluno evento(long seq) {
+        EventoAluno evento = new EventoAluno(1L, EventoAluno.Tipo.ALTERADO, 2L, "{\"nome\":\"Ana\"}", Instant.now());
+        evento.setId(100L + seq);
+        evento.setSeq(seq);
+        return evento;
+    }
+}
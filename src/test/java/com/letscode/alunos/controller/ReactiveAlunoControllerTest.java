@@ -0,0 +1,67 @@
+package com.letscode.alunos.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.service.ReactiveAlunoService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ReactiveAlunoController.class)
+class ReactiveAlunoControllerTest {
+
+    @MockBean
+    ReactiveAlunoService reactiveAlunoService;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Deve devolver o aluno buscado por id")
+    void deveDevolverOAlunoBuscadoPorId() throws Exception {
+        when(reactiveAlunoService.buscaPorId(1L)).thenReturn(Mono.just(new Aluno(1L, "Ana", 20L, "1", "Rua")));
+
+        MvcResult result = mockMvc.perform(get("/reativo/alunos/{id}", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        Aluno aluno = objectMapper.readValue(result.getResponse().getContentAsString(), Aluno.class);
+        Assertions.assertEquals("Ana", aluno.getNome());
+    }
+
+    @Test
+    @DisplayName("Deve devolver todos os alunos em NDJSON")
+    void deveDevolverTodosOsAlunosEmNdjson() throws Exception {
+        when(reactiveAlunoService.buscaTodos()).thenReturn(Flux.just(
+                new Aluno(1L, "Ana", 20L, "1", "Rua"),
+                new Aluno(2L, "Bia", 21L, "2", "Rua")));
+
+        MvcResult result = mockMvc.perform(get("/reativo/alunos"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        String[] linhas = result.getResponse().getContentAsString().trim().split("\n");
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(2, linhas.length),
+                () -> Assertions.assertEquals("Bia", objectMapper.readValue(linhas[1], Aluno.class).getNome())
+        );
+    }
+}
@@ -1,17 +1,37 @@
 package com.letscode.alunos.repository;
 
 import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.Endereco;
+import com.letscode.alunos.model.AlunoResumo;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.model.FiltroAluno;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.persistence.EntityManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,6 +58,12 @@ class AlunoRepositoryTest {
     @Autowired
     AlunoRepository alunoRepository;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManager entityManager;
+
     Aluno aluno;
 
     @BeforeEach
@@ -77,8 +103,14 @@ class AlunoRepositoryTest {
         alunos.add(aluno2);
 
         //Percorre a lista
+        //O id vem da sequence, então o aluno2 reaproveita o id gerado para o aluno1 e sobrescreve o registro
+        //(com a versão, senão o Spring Data trata o aluno como novo, como o AlunoServiceImpl.salvar faz)
         for (Aluno a : alunos) {
-            alunoRepository.save(a);
+            Aluno salvo = alunoRepository.save(a);
+            if (a == aluno1) {
+                aluno2.setId(salvo.getId());
+                aluno2.setVersao(salvo.getVersao());
+            }
         }
 
         List<Aluno> alunoList = alunoRepository.findAll();
@@ -153,7 +185,7 @@ class AlunoRepositoryTest {
                 () -> assertEquals("Jonathan2", aluno1.get().getNome()),
                 () -> assertEquals(22L, aluno1.get().getIdade()),
                 () -> assertEquals("4354354333", aluno1.get().getDocumento()),
-                () -> assertEquals("Rua teste 2242", aluno1.get().getEndereco())
+                () -> assertEquals("Rua teste 2242", aluno1.get().getEndereco().getNome())
         );
 
     }
@@ -168,4 +200,395 @@ class AlunoRepositoryTest {
         assertEquals(idade, alunoList.get(0).getIdade());
     }
 
+    @Test
+    @DisplayName("Deve paginar pelo id a partir do cursor")
+    void devePaginarPeloIdAPartirDoCursor() {
+        List<Aluno> salvos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            salvos.add(alunoRepository.save(new Aluno(null, "Aluno " + i, 20L, "doc" + i, "Rua")));
+        }
+
+        List<Aluno> pagina = alunoRepository.findByIdGreaterThanOrderByIdAsc(salvos.get(1).getId(),
+                PageRequest.of(0, 2));
+
+        assertEquals(2, pagina.size());
+        assertEquals(salvos.get(2).getId(), pagina.get(0).getId());
+        assertEquals(salvos.get(3).getId(), pagina.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os alunos em ordem de id")
+    void devePercorrerTodosOsAlunosEmOrdemDeId() {
+        for (int i = 0; i < 3; i++) {
+            alunoRepository.save(new Aluno(null, "Aluno " + i, 20L, "doc" + i, "Rua"));
+        }
+
+        List<String> nomes;
+        try (Stream<Aluno> alunos = alunoRepository.streamTodos()) {
+            nomes = alunos.map(Aluno::getNome).collect(Collectors.toList());
+        }
+
+        assertEquals(List.of("Aluno 0", "Aluno 1", "Aluno 2"), nomes);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por nome e idade devolvendo todos os alunos encontrados")
+    void deveFiltrarPorNomeEIdadeDevolvendoTodosOsAlunos() {
+        alunoRepository.save(new Aluno(null, "Ana", 20L, "a1", "Rua"));
+        alunoRepository.save(new Aluno(null, "Ana", 20L, "a2", "Rua"));
+        alunoRepository.save(new Aluno(null, "Ana", 21L, "a3", "Rua"));
+
+        FiltroAluno filtro = new FiltroAluno("Ana", 20L, null);
+        List<Aluno> alunos = alunoRepository.filtra(AlunoSpecifications.comFiltro(filtro), Pageable.unpaged());
+
+        assertEquals(2, alunos.size());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por prefixo do nome e faixa de idade com ordenacao e paginacao")
+    void deveFiltrarPorPrefixoEFaixaDeIdade() {
+        alunoRepository.save(new Aluno(null, "Ana Maria", 18L, "b1", "Rua"));
+        alunoRepository.save(new Aluno(null, "Ana Paula", 25L, "b2", "Rua"));
+        alunoRepository.save(new Aluno(null, "Anabela", 30L, "b3", "Rua"));
+        alunoRepository.save(new Aluno(null, "Ana_Julia", 26L, "b4", "Rua"));
+        alunoRepository.save(new Aluno(null, "Bruna", 25L, "b5", "Rua"));
+
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setNomePrefixo("Ana");
+        filtro.setIdadeMin(20L);
+        filtro.setIdadeMax(30L);
+
+        List<Aluno> primeiraPagina = alunoRepository.filtra(AlunoSpecifications.comFiltro(filtro),
+                PageRequest.of(0, 2, Sort.by("idade").descending()));
+        List<Aluno> segundaPagina = alunoRepository.filtra(AlunoSpecifications.comFiltro(filtro),
+                PageRequest.of(1, 2, Sort.by("idade").descending()));
+
+        assertAll(
+                () -> assertEquals(List.of("Anabela", "Ana_Julia"),
+                        primeiraPagina.stream().map(Aluno::getNome).collect(Collectors.toList())),
+                () -> assertEquals(List.of("Ana Paula"),
+                        segundaPagina.stream().map(Aluno::getNome).collect(Collectors.toList()))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve tratar curinga do like como texto no prefixo do nome")
+    void deveTratarCuringaDoLikeComoTexto() {
+        alunoRepository.save(new Aluno(null, "Ana_Julia", 26L, "c1", "Rua"));
+        alunoRepository.save(new Aluno(null, "AnaXJulia", 26L, "c2", "Rua"));
+
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setNomePrefixo("Ana_");
+
+        List<Aluno> alunos = alunoRepository.filtra(AlunoSpecifications.comFiltro(filtro), Pageable.unpaged());
+
+        assertEquals(1, alunos.size());
+        assertEquals("Ana_Julia", alunos.get(0).getNome());
+    }
+
+    @Test
+    @DisplayName("Deve alterar o nome com um unico update")
+    void deveAlterarONomeComUmUnicoUpdate() {
+        Aluno salvo = alunoRepository.save(aluno);
+
+        int linhas = alunoRepository.atualizaNome(salvo.getId(), "Novo Nome", null);
+
+        assertEquals(1, linhas);
+        assertEquals("Novo Nome", alunoRepository.findById(salvo.getId()).get().getNome());
+        assertEquals(0, alunoRepository.atualizaNome(-1L, "Ninguem", null));
+    }
+
+    @Test
+    @DisplayName("Deve alterar so as colunas informadas")
+    void deveAlterarSoAsColunasInformadas() {
+        Aluno salvo = alunoRepository.save(aluno);
+        Map<String, Object> campos = new HashMap<>();
+        campos.put("idade", 40L);
+        campos.put("documento", null);
+
+        int linhas = alunoRepository.atualizaCampos(salvo.getId(), campos, null);
+        Aluno alterado = alunoRepository.findById(salvo.getId()).get();
+
+        assertAll(
+                () -> assertEquals(1, linhas),
+                () -> assertEquals(40L, alterado.getIdade()),
+                () -> assertNull(alterado.getDocumento()),
+                () -> assertEquals("Jonathan2", alterado.getNome()),
+                () -> assertEquals(0, alunoRepository.atualizaCampos(-1L, Map.of("idade", 1L), null))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve deletar pelos ids devolvendo so os que existiam, com idade e cidade")
+    void deveDeletarPelosIdsDevolvendoOsQueExistiam() {
+        Aluno a1 = alunoRepository.save(new Aluno(null, "Ana", 15L, "o1", "Rua"));
+        Aluno a2 = alunoRepository.save(new Aluno(null, "Bia", 16L, "o2", "Rua"));
+        Aluno a3 = new Aluno(null, "Caio", null, "o3", null);
+        a3.setEndereco(new Endereco("Rua", 1L, null, "50000-000", "Recife"));
+        a3 = alunoRepository.save(a3);
+
+        List<DimensoesAluno> apagados = alunoRepository.apagaDevolvendoDimensoes(List.of(a1.getId(), a3.getId(), -1L), null);
+
+        List<DimensoesAluno> esperados = List.of(new DimensoesAluno(a1.getId(), 15L, null),
+                new DimensoesAluno(a3.getId(), null, "Recife"));
+        assertAll(
+                () -> assertEquals(esperados, apagados.stream()
+                        .sorted(Comparator.comparing(DimensoesAluno::id)).collect(Collectors.toList())),
+                () -> assertEquals(List.of(a2.getId()),
+                        alunoRepository.findAll().stream().map(Aluno::getId).collect(Collectors.toList()))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve deletar devolvendo nada quando a versao nao confere")
+    void deveDeletarSoNaVersaoInformada() {
+        Long id = alunoRepository.save(new Aluno(null, "Ana", 20L, "o4", "Rua")).getId();
+        limpaContexto();
+
+        assertAll(
+                () -> assertTrue(alunoRepository.apagaDevolvendoDimensoes(List.of(id), 3L).isEmpty()),
+                () -> assertEquals(List.of(new DimensoesAluno(id, 20L, null)),
+                        alunoRepository.apagaDevolvendoDimensoes(List.of(id), 0L))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve contar os alunos por idade e por cidade no banco")
+    void deveContarPorIdadeEPorCidade() {
+        alunoRepository.save(new Aluno(null, "Ana", 15L, "g1", "Rua"));
+        alunoRepository.save(new Aluno(null, "Bia", 15L, "g2", "Rua"));
+        Aluno caio = new Aluno(null, "Caio", null, "g3", null);
+        caio.setEndereco(new Endereco("Rua", 1L, null, "50000-000", "Recife"));
+        alunoRepository.save(caio);
+        limpaContexto();
+
+        Map<Object, Long> porIdade = alunoRepository.contaPorIdade().stream()
+                .collect(HashMap::new, (mapa, c) -> mapa.put(c.valor(), c.quantidade()), HashMap::putAll);
+        Map<Object, Long> porCidade = alunoRepository.contaPorCidade().stream()
+                .collect(HashMap::new, (mapa, c) -> mapa.put(c.valor(), c.quantidade()), HashMap::putAll);
+
+        assertAll(
+                () -> assertEquals(2L, porIdade.get(15L)),
+                () -> assertEquals(1L, porIdade.get(null)),
+                () -> assertEquals(1L, porCidade.get("Recife")),
+                () -> assertEquals(2L, porCidade.get(null))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve trazer so id e nome pelo cursor, sem entidades")
+    void deveTrazerResumosPeloCursor() {
+        List<Aluno> salvos = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            salvos.add(alunoRepository.save(new Aluno(null, "Aluno " + i, 20L, "r" + i, "Rua")));
+        }
+
+        List<AlunoResumo> pagina = alunoRepository.buscaResumos(salvos.get(0).getId(), PageRequest.of(0, 2));
+
+        assertEquals(List.of(new AlunoResumo(salvos.get(1).getId(), "Aluno 1"),
+                new AlunoResumo(salvos.get(2).getId(), "Aluno 2")), pagina);
+    }
+
+    @Test
+    @DisplayName("Deve trazer so as colunas pedidas na ordem pedida")
+    void deveProjetarSoAsColunasPedidas() {
+        alunoRepository.save(new Aluno(null, "Ana", 18L, "p1", "Rua A"));
+        alunoRepository.save(new Aluno(null, "Bia", 25L, "p2", "Rua B"));
+        alunoRepository.save(new Aluno(null, "Caio", 30L, "p3", "Rua C"));
+
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setIdadeMin(20L);
+        List<Map<String, Object>> linhas = alunoRepository.projeta(AlunoSpecifications.comFiltro(filtro),
+                PageRequest.of(0, 10, Sort.by("idade").descending()), List.of("nome", "idade"));
+
+        assertAll(
+                () -> assertEquals(2, linhas.size()),
+                () -> assertEquals(List.of("nome", "idade"), new ArrayList<>(linhas.get(0).keySet())),
+                () -> assertEquals("Caio", linhas.get(0).get("nome")),
+                () -> assertEquals(30L, linhas.get(0).get("idade")),
+                () -> assertEquals("Bia", linhas.get(1).get("nome"))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por cidade trazendo o endereco completo")
+    void deveFiltrarPorCidadeTrazendoOEnderecoCompleto() {
+        Aluno recife = new Aluno(null, "Ana", 20L, "c1", null);
+        recife.setEndereco(new Endereco("Rua do Sol", 10L, "apto 2", "50000-000", "Recife"));
+        alunoRepository.save(recife);
+        Aluno natal = new Aluno(null, "Bia", 20L, "c2", null);
+        natal.setEndereco(new Endereco("Rua da Lua", 20L, null, "59000-000", "Natal"));
+        alunoRepository.save(natal);
+        limpaContexto();
+
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setCidade("Recife");
+        List<Aluno> alunos = alunoRepository.filtra(AlunoSpecifications.comFiltro(filtro), Pageable.unpaged());
+        List<Map<String, Object>> enderecos = alunoRepository.projeta(AlunoSpecifications.comFiltro(filtro),
+                Pageable.unpaged(), List.of("endereco"));
+
+        assertAll(
+                () -> assertEquals(1, alunos.size()),
+                () -> assertEquals("Recife", ((Endereco) enderecos.get(0).get("endereco")).getCidade()),
+                () -> assertEquals("Rua do Sol", alunos.get(0).getEndereco().getNome()),
+                () -> assertEquals(10L, alunos.get(0).getEndereco().getNumero()),
+                () -> assertEquals("apto 2", alunos.get(0).getEndereco().getComplemento()),
+                () -> assertEquals("50000-000", alunos.get(0).getEndereco().getCep())
+        );
+    }
+
+    /**
+     * O endereço vem na mesma linha do aluno: uma pagina custa um unico select, seja de 5 ou de 50 alunos.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {5, 50})
+    @DisplayName("Deve ler uma pagina de alunos com enderecos em um unico select")
+    void deveLerUmaPaginaDeAlunosEmUmUnicoSelect(int tamanho) {
+        for (int i = 0; i < tamanho; i++) {
+            Aluno novo = new Aluno(null, "Aluno " + i, 20L, "s" + i, null);
+            novo.setEndereco(new Endereco("Rua " + i, (long) i, null, "50000-00" + i % 10, "Recife"));
+            alunoRepository.save(novo);
+        }
+        limpaContexto();
+        Statistics estatisticas = estatisticas();
+
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setCidade("Recife");
+        List<Aluno> filtrados = alunoRepository.filtra(AlunoSpecifications.comFiltro(filtro), PageRequest.of(0, 100));
+        List<String> cidades = filtrados.stream().map(a -> a.getEndereco().getCidade()).collect(Collectors.toList());
+        long consultasDoFiltro = estatisticas.getPrepareStatementCount();
+
+        estatisticas.clear();
+        List<Aluno> pagina = alunoRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 100));
+        pagina.forEach(a -> a.getEndereco().getNome());
+        long consultasDoCursor = estatisticas.getPrepareStatementCount();
+
+        assertAll(
+                () -> assertEquals(tamanho, cidades.size()),
+                () -> assertEquals(tamanho, pagina.size()),
+                () -> assertEquals(1, consultasDoFiltro),
+                () -> assertEquals(1, consultasDoCursor)
+        );
+    }
+
+    @Test
+    @DisplayName("Deve alterar so a parte do endereco enviada")
+    void deveAlterarSoAParteDoEnderecoEnviada() {
+        Aluno salvo = new Aluno(null, "Ana", 20L, "e1", null);
+        salvo.setEndereco(new Endereco("Rua do Sol", 10L, null, "50000-000", "Recife"));
+        Long id = alunoRepository.save(salvo).getId();
+
+        Map<String, Object> campos = new HashMap<>();
+        campos.put("endereco.cep", "50111-000");
+        campos.put("endereco.complemento", "casa");
+        alunoRepository.atualizaCampos(id, campos, null);
+
+        Endereco endereco = alunoRepository.findById(id).orElseThrow().getEndereco();
+        assertAll(
+                () -> assertEquals("Rua do Sol", endereco.getNome()),
+                () -> assertEquals("50111-000", endereco.getCep()),
+                () -> assertEquals("casa", endereco.getComplemento()),
+                () -> assertEquals("Recife", endereco.getCidade())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve somar a versao a cada alteracao e recusar a versao antiga")
+    void deveSomarAVersaoERecusarAVersaoAntiga() {
+        Long id = alunoRepository.save(new Aluno(null, "Ana", 20L, "v1", "Rua")).getId();
+
+        int primeira = alunoRepository.atualizaNome(id, "Ana Maria", 0L);
+        int comVersaoAntiga = alunoRepository.atualizaNome(id, "Ana Paula", 0L);
+        int campos = alunoRepository.atualizaCampos(id, Map.of("idade", 21L), 1L);
+        List<DimensoesAluno> apagaComVersaoAntiga = alunoRepository.apagaDevolvendoDimensoes(List.of(id), 1L);
+
+        assertAll(
+                () -> assertEquals(1, primeira),
+                () -> assertEquals(0, comVersaoAntiga),
+                () -> assertEquals(1, campos),
+                () -> assertTrue(apagaComVersaoAntiga.isEmpty()),
+                () -> assertEquals(Optional.of(2L), alunoRepository.buscaVersao(id)),
+                () -> assertEquals("Ana Maria", alunoRepository.findById(id).orElseThrow().getNome())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve recusar gravar o aluno inteiro a partir de uma versao antiga")
+    void deveRecusarGravarAPartirDeUmaVersaoAntiga() {
+        Aluno salvo = alunoRepository.save(new Aluno(null, "Ana", 20L, "v2", "Rua"));
+        limpaContexto();
+        alunoRepository.atualizaNome(salvo.getId(), "Ana Maria", null);
+
+        // o cliente ainda tem a versão 0 e manda o aluno inteiro de volta
+        Aluno antigo = new Aluno(salvo.getId(), "Ana Paula", 20L, "v2", "Rua");
+        antigo.setVersao(0L);
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> alunoRepository.saveAndFlush(antigo));
+    }
+
+    @Test
+    @DisplayName("Deve gravar a hora da criacao e avancar a da alteracao nos updates em massa")
+    void deveGravarAHoraDaCriacaoEDaAlteracao() {
+        Aluno salvo = alunoRepository.saveAndFlush(new Aluno(null, "Ana", 20L, "t1", "Rua"));
+        Instant criadoEm = salvo.getCriadoEm();
+        jdbcTemplate.update("update alunos set atualizado_em = ? where id = ?",
+                Timestamp.from(criadoEm.minusSeconds(60)), salvo.getId());
+        limpaContexto();
+
+        alunoRepository.atualizaNome(salvo.getId(), "Ana Maria", null);
+        Instant depoisDoNome = alunoRepository.findById(salvo.getId()).orElseThrow().getAtualizadoEm();
+        jdbcTemplate.update("update alunos set atualizado_em = ? where id = ?",
+                Timestamp.from(criadoEm.minusSeconds(60)), salvo.getId());
+        alunoRepository.atualizaCampos(salvo.getId(), Map.of("idade", 21L), null);
+        Aluno alterado = alunoRepository.findById(salvo.getId()).orElseThrow();
+
+        assertAll(
+                () -> assertNotNull(criadoEm),
+                () -> assertEquals(criadoEm, salvo.getAtualizadoEm()),
+                () -> assertEquals(criadoEm, alterado.getCriadoEm()),
+                () -> assertFalse(depoisDoNome.isBefore(criadoEm)),
+                () -> assertFalse(alterado.getAtualizadoEm().isBefore(criadoEm))
+        );
+    }
+
+    @Test
+    @DisplayName("Deve trazer os alterados pelo cursor de hora e id ate o horizonte")
+    void deveTrazerOsAlteradosPeloCursorDeHoraEId() {
+        Instant base = Instant.parse("2026-01-01T10:00:00Z");
+        Long a1 = alunoRepository.save(new Aluno(null, "Ana", 20L, "s1", "Rua")).getId();
+        Long a2 = alunoRepository.save(new Aluno(null, "Bia", 21L, "s2", "Rua")).getId();
+        Long a3 = alunoRepository.save(new Aluno(null, "Caio", 22L, "s3", "Rua")).getId();
+        Long a4 = alunoRepository.save(new Aluno(null, "Duda", 23L, "s4", "Rua")).getId();
+        limpaContexto();
+        // a1 e a2 no mesmo instante, o id desempata; a4 fica depois do horizonte
+        jdbcTemplate.update("update alunos set atualizado_em = ? where id in (?, ?)", Timestamp.from(base), a1, a2);
+        jdbcTemplate.update("update alunos set atualizado_em = ? where id = ?", Timestamp.from(base.plusSeconds(1)), a3);
+        jdbcTemplate.update("update alunos set atualizado_em = ? where id = ?", Timestamp.from(base.plusSeconds(10)), a4);
+        Instant ate = base.plusSeconds(5);
+
+        List<Long> primeira = ids(alunoRepository.buscaAlteradosDepoisDe(Instant.EPOCH, 0L, ate, PageRequest.of(0, 2)));
+        List<Long> segunda = ids(alunoRepository.buscaAlteradosDepoisDe(base, a2, ate, PageRequest.of(0, 2)));
+        List<Long> doMeioDoInstante = ids(alunoRepository.buscaAlteradosDepoisDe(base, a1, ate, PageRequest.of(0, 10)));
+
+        assertAll(
+                () -> assertEquals(List.of(a1, a2), primeira),
+                () -> assertEquals(List.of(a3), segunda),
+                () -> assertEquals(List.of(a2, a3), doMeioDoInstante)
+        );
+    }
+
+    private static List<Long> ids(List<Aluno> alunos) {
+        return alunos.stream().map(Aluno::getId).collect(Collectors.toList());
+    }
+
+    private void limpaContexto() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Statistics estatisticas() {
+        Statistics estatisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        return estatisticas;
+    }
 }
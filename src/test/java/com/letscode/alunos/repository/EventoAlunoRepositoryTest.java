@@ -0,0 +1,74 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.entity.EventoAluno;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class EventoAlunoRepositoryTest {
+
+    @Autowired
+    EventoAlunoRepository eventoAlunoRepository;
+
+    @Test
+    @DisplayName("Deve trazer os pendentes na ordem de gravacao e os publicados depois do seq")
+    void deveTrazerPendentesEPublicados() {
+        EventoAluno publicado = evento(1L, Instant.now());
+        publicado.setSeq(10L);
+        eventoAlunoRepository.save(publicado);
+        EventoAluno outroPublicado = evento(2L, Instant.now());
+        outroPublicado.setSeq(11L);
+        eventoAlunoRepository.save(outroPublicado);
+        EventoAluno pendente = eventoAlunoRepository.save(evento(3L, Instant.now()));
+        EventoAluno outroPendente = eventoAlunoRepository.save(evento(4L, Instant.now()));
+
+        assertAll(
+                () -> assertEquals(List.of(pendente.getId(), outroPendente.getId()),
+                        eventoAlunoRepository.findBySeqIsNullOrderByIdAsc(PageRequest.of(0, 10)).stream()
+                                .map(EventoAluno::getId).collect(Collectors.toList())),
+                () -> assertEquals(List.of(11L), eventoAlunoRepository.findBySeqGreaterThanOrderBySeqAsc(10L,
+                        PageRequest.of(0, 10)).stream().map(EventoAluno::getSeq).collect(Collectors.toList())),
+                () -> assertEquals(1, eventoAlunoRepository.findBySeqGreaterThanOrderBySeqAsc(0L,
+                        PageRequest.of(0, 1)).size()),
+                () -> assertEquals(11L, eventoAlunoRepository.buscaUltimoSeq().orElseThrow())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve apagar so os eventos publicados mais antigos que o limite")
+    void deveApagarSoOsPublicadosAntigos() {
+        Instant antigo = Instant.now().minus(30, ChronoUnit.DAYS);
+        EventoAluno publicadoAntigo = evento(1L, antigo);
+        publicadoAntigo.setSeq(1L);
+        eventoAlunoRepository.save(publicadoAntigo);
+        EventoAluno publicadoRecente = evento(2L, Instant.now());
+        publicadoRecente.setSeq(2L);
+        eventoAlunoRepository.save(publicadoRecente);
+        // pendente nunca é apagado, por mais antigo que seja
+        eventoAlunoRepository.save(evento(3L, antigo));
+
+        int apagados = eventoAlunoRepository.apagaPublicadosAntesDe(Instant.now().minus(7, ChronoUnit.DAYS));
+
+        assertAll(
+                () -> assertEquals(1, apagados),
+                () -> assertEquals(List.of(2L, 3L), eventoAlunoRepository.findAll().stream()
+                        .map(EventoAluno::getAlunoId).sorted().collect(Collectors.toList()))
+        );
+    }
+
+    private static EventoAluno evento(Long alunoId, Instant criadoEm) {
+        return new EventoAluno(alunoId, EventoAluno.Tipo.ALTERADO, 1L, "{\"nome\":\"Ana\"}", criadoEm);
+    }
+}
@@ -0,0 +1,125 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.Endereco;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere no plano de execução do H2 que as consultas do AlunoRepository usam indice e não varrem a tabela.
+ * <p>
+ * O explain roda sobre o SQL que o Hibernate gerou para a consulta (capturado pelo SqlCapturado), com os mesmos
+ * parametros, e o plano tem que citar exatamente o indice esperado. A tabela recebe alunos com nomes, documentos e
+ * endereços distintos e idades repetidas, e o analyze dá ao H2 a seletividade de cada coluna: com a tabela vazia ele
+ * escolhe entre indices empatados sem criterio. O analyze faz commit, por isso a classe tem banco proprio e roda sem
+ * a transação de rollback do @DataJpaTest.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:planos",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.letscode.alunos.repository.SqlCapturado"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PlanosDoAlunoRepositoryTest {
+
+    @Autowired
+    AlunoRepository alunoRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void carrega() {
+        if (alunoRepository.count() > 0) {
+            return;
+        }
+        List<Aluno> alunos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Aluno aluno = new Aluno(null, "Aluno " + i, 18L + i % 5, "doc" + i, "Rua");
+            aluno.setEndereco(new Endereco("Rua", 1L, null, String.format("%05d-000", i), "Cidade " + i));
+            alunos.add(aluno);
+        }
+        alunoRepository.saveAll(alunos);
+        jdbcTemplate.execute("analyze table alunos");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            "findByNome | IDX_ALUNOS_NOME_IDADE_DOCUMENTO",
+            "findAllByIdade | IDX_ALUNOS_IDADE",
+            "findByDocumento | UK_ALUNOS_DOCUMENTO",
+            "findByNomeAndIdade | IDX_ALUNOS_NOME_IDADE_DOCUMENTO",
+            "findByNomeAndIdadeAndDocumento | UK_ALUNOS_DOCUMENTO",
+            "findByIdGreaterThanOrderByIdAsc | PRIMARY_KEY",
+            "cidadeIgual | IDX_ALUNOS_ENDERECO_CIDADE",
+            "cepIgual | IDX_ALUNOS_ENDERECO_CEP"
+    })
+    @DisplayName("Deve usar indice nas consultas do repository")
+    void deveUsarIndiceNasConsultasDoRepository(String consulta, String indice) {
+        // o H2 gera o nome do indice da chave primaria; o catalogo diz qual é
+        String nomeDoIndice = "PRIMARY_KEY".equals(indice) ? jdbcTemplate.queryForObject(
+                "select index_name from information_schema.indexes where table_name = 'ALUNOS'"
+                        + " and index_type_name = 'PRIMARY KEY'", String.class) : indice;
+        SqlCapturado.limpa();
+        Object[] parametros = executa(consulta);
+        String sql = SqlCapturado.ultimo();
+        assertNotNull(sql, consulta);
+
+        String plano = jdbcTemplate.queryForObject("explain " + sql, String.class, parametros);
+
+        assertAll(
+                () -> assertFalse(plano.contains("tableScan"), plano),
+                () -> assertTrue(plano.contains("PUBLIC." + nomeDoIndice + ":"), plano)
+        );
+    }
+
+    /**
+     * Roda a consulta pelo repository e devolve os parametros na ordem em que ela os passa ao SQL.
+     */
+    private Object[] executa(String consulta) {
+        switch (consulta) {
+            case "findByNome":
+                alunoRepository.findByNome("Aluno 7");
+                return new Object[]{"Aluno 7"};
+            case "findAllByIdade":
+                alunoRepository.findAllByIdade(22L);
+                return new Object[]{22L};
+            case "findByDocumento":
+                alunoRepository.findByDocumento("doc7");
+                return new Object[]{"doc7"};
+            case "findByNomeAndIdade":
+                alunoRepository.findByNomeAndIdade("Aluno 7", 20L);
+                return new Object[]{"Aluno 7", 20L};
+            case "findByNomeAndIdadeAndDocumento":
+                alunoRepository.findByNomeAndIdadeAndDocumento("Aluno 7", 20L, "doc7");
+                return new Object[]{"Aluno 7", 20L, "doc7"};
+            case "findByIdGreaterThanOrderByIdAsc":
+                alunoRepository.findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, 100));
+                return new Object[]{10L, 100};
+            case "cidadeIgual":
+                alunoRepository.filtra(AlunoSpecifications.cidadeIgual("Cidade 7"), Pageable.unpaged());
+                return new Object[]{"Cidade 7"};
+            case "cepIgual":
+                alunoRepository.filtra(AlunoSpecifications.cepIgual("00007-000"), Pageable.unpaged());
+                return new Object[]{"00007-000"};
+            default:
+                throw new IllegalArgumentException(consulta);
+        }
+    }
+}
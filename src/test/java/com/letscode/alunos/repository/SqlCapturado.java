@@ -0,0 +1,26 @@
+package com.letscode.alunos.repository;
+
+import com.letscode.alunos.config.ContadorDeSql;
+
+/**
+ * ContadorDeSql que também guarda o ultimo statement preparado na thread, para o teste rodar explain no SQL que o
+ * Hibernate realmente gerou. Registrado só no PlanosDoAlunoRepositoryTest (hibernate.session_factory.statement_inspector).
+ */
+public class SqlCapturado extends ContadorDeSql {
+
+    private static final ThreadLocal<String> ULTIMO = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        ULTIMO.set(sql);
+        return super.inspect(sql);
+    }
+
+    public static String ultimo() {
+        return ULTIMO.get();
+    }
+
+    public static void limpa() {
+        ULTIMO.remove();
+    }
+}
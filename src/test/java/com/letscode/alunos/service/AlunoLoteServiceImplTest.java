@@ -0,0 +1,122 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.model.ResultadoLote;
+import com.letscode.alunos.repository.AlunoRepository;
+import com.letscode.alunos.repository.EventoAlunoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * O servico abre uma transação por lote, então o teste roda sem a transação do @DataJpaTest
+ * e limpa a tabela no final. O banco é só deste teste: os eventos que ele grava ficam commitados, e o relay
+ * dos contextos @SpringBootTest que usam o jdbc:h2:mem:alunos daria seq para eles.
+ */
+@DataJpaTest(properties = {"spring.datasource.url=jdbc:h2:mem:lote", "alunos.lote.tamanho=2"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AlunoLoteServiceImpl.class, IndiceDeNomes.class, EstatisticasDeAlunos.class, RegistroDeEventos.class})
+@ImportAutoConfiguration({ValidationAutoConfiguration.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AlunoLoteServiceImplTest {
+
+    @Autowired
+    AlunoLoteService alunoLoteService;
+
+    @Autowired
+    AlunoRepository alunoRepository;
+
+    @Autowired
+    EventoAlunoRepository eventoAlunoRepository;
+
+    @AfterEach
+    void limpa() {
+        alunoRepository.deleteAll();
+        eventoAlunoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve gravar todos os alunos do lote")
+    void deveGravarTodosOsAlunosDoLote() {
+        List<Aluno> alunos = List.of(
+                new Aluno(99L, "Ana", 20L, "l1", "Rua"),
+                new Aluno(null, "Bia", 21L, "l2", "Rua"),
+                new Aluno(null, "Caio", 22L, "l3", "Rua"));
+
+        List<ResultadoLote> resultados = alunoLoteService.salvarEmLote(alunos.iterator());
+
+        assertAll(
+                () -> assertEquals(3, resultados.size()),
+                () -> assertTrue(resultados.stream().allMatch(r -> ResultadoLote.CRIADO.equals(r.getStatus()))),
+                () -> assertEquals(List.of(0, 1, 2),
+                        resultados.stream().map(ResultadoLote::getLinha).collect(Collectors.toList())),
+                () -> assertEquals(3, alunoRepository.count())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar so as linhas invalidas e gravar o resto do lote")
+    void deveRejeitarSoAsLinhasInvalidas() {
+        List<Aluno> alunos = List.of(
+                new Aluno(null, "Ana", 20L, "r1", "Rua"),
+                new Aluno(null, null, 21L, "r2", "Rua"),
+                new Aluno(null, "Caio", 22L, "r3", "Rua"),
+                new Aluno(null, "Duda", 23L, "r1", "Rua"),
+                new Aluno(null, "Eva", 24L, "r5", "Rua"));
+
+        List<ResultadoLote> resultados = alunoLoteService.salvarEmLote(alunos.iterator());
+        List<String> status = resultados.stream()
+                .map(ResultadoLote::getStatus)
+                .collect(Collectors.toList());
+
+        assertAll(
+                () -> assertEquals(List.of(0, 1, 2, 3, 4),
+                        resultados.stream().map(ResultadoLote::getLinha).collect(Collectors.toList())),
+                () -> assertEquals(List.of(ResultadoLote.CRIADO, ResultadoLote.REJEITADO, ResultadoLote.CRIADO,
+                        ResultadoLote.REJEITADO, ResultadoLote.CRIADO), status),
+                () -> assertEquals("Campo nome é obrigatorio", resultados.stream()
+                        .filter(r -> r.getLinha() == 1).findFirst().get().getErro()),
+                () -> assertEquals(3, alunoRepository.count())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve gravar um evento por aluno criado, nenhum pelos recusados")
+    void deveGravarUmEventoPorAlunoCriado() {
+        List<Aluno> alunos = List.of(
+                new Aluno(null, "Ana", 20L, "e1", "Rua"),
+                new Aluno(null, "Bia", 21L, "e1", "Rua"),
+                new Aluno(null, "Caio", 22L, "e3", "Rua"));
+
+        List<Long> criados = alunoLoteService.salvarEmLote(alunos.iterator()).stream()
+                .filter(r -> ResultadoLote.CRIADO.equals(r.getStatus()))
+                .map(ResultadoLote::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        List<EventoAluno> eventos = eventoAlunoRepository.findAll();
+
+        // o primeiro lote (Ana, Bia) falhou no documento repetido: os eventos dele voltaram junto com o rollback
+        assertAll(
+                () -> assertEquals(2, criados.size()),
+                () -> assertEquals(criados, eventos.stream().map(EventoAluno::getAlunoId).sorted()
+                        .collect(Collectors.toList())),
+                () -> assertTrue(eventos.stream().allMatch(e -> e.getTipo() == EventoAluno.Tipo.CRIADO
+                        && e.getSeq() == null && e.getDados().contains("\"nome\"")))
+        );
+    }
+}
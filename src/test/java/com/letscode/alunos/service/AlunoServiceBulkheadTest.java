@@ -0,0 +1,92 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.config.BulkheadConfig;
+import com.letscode.alunos.config.CacheConfig;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.repository.AlunoRepository;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.autoconfigure.BulkheadAutoConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Sobe o servico com os bulkheads do application.yml e o repository simulado, para ver as listagens
+ * lentas sendo recusadas sem atrapalhar a busca por id.
+ */
+@SpringBootTest(classes = {AlunoServiceImpl.class, IndiceDeNomes.class, EstatisticasDeAlunos.class, CacheConfig.class,
+        BulkheadConfig.class})
+@ImportAutoConfiguration({AopAutoConfiguration.class, CacheAutoConfiguration.class, BulkheadAutoConfiguration.class,
+        MetricsAutoConfiguration.class, SimpleMetricsExportAutoConfiguration.class,
+        CompositeMeterRegistryAutoConfiguration.class})
+class AlunoServiceBulkheadTest {
+
+    @MockBean
+    AlunoRepository alunoRepository;
+
+    @MockBean
+    EntityManager entityManager;
+
+    @MockBean
+    RegistroDeEventos registroDeEventos;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    AlunoService alunoService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Deve recusar listagens alem do limite e continuar atendendo a busca por id")
+    void deveRecusarListagensAlemDoLimite() throws Exception {
+        CountDownLatch liberaBanco = new CountDownLatch(1);
+        CountDownLatch emAndamento = new CountDownLatch(3);
+        when(alunoRepository.findAll()).thenAnswer(invocacao -> {
+            emAndamento.countDown();
+            liberaBanco.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        Aluno aluno = new Aluno(1L, "Aluno Teste", 18L, "436556565", "Rua teste");
+        when(alunoRepository.findById(1L)).thenReturn(Optional.of(aluno));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int i = 0; i < 3; i++) {
+                executor.submit(alunoService::buscaTodos);
+            }
+            Assertions.assertTrue(emAndamento.await(5, TimeUnit.SECONDS));
+
+            Assertions.assertThrows(BulkheadFullException.class, alunoService::buscaTodos);
+            Assertions.assertEquals(aluno, alunoService.buscaPorId(1L));
+            Assertions.assertEquals(1.0, meterRegistry.get("alunos.bulkhead.rejeitadas")
+                    .tag("name", BulkheadConfig.LISTAGEM).counter().count());
+        } finally {
+            liberaBanco.countDown();
+            executor.shutdown();
+        }
+    }
+}
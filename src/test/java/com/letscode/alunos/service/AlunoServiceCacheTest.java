@@ -0,0 +1,112 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.config.CacheConfig;
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.repository.AlunoRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Sobe só o servico com o cache configurado pelo application.yml, com o repository simulado,
+ * para contar quantas vezes o banco seria consultado.
+ */
+@SpringBootTest(classes = {AlunoServiceImpl.class, IndiceDeNomes.class, EstatisticasDeAlunos.class, CacheConfig.class})
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+class AlunoServiceCacheTest {
+
+    @MockBean
+    AlunoRepository alunoRepository;
+
+    @MockBean
+    EntityManager entityManager;
+
+    @MockBean
+    RegistroDeEventos registroDeEventos;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    AlunoService alunoService;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    Aluno aluno;
+
+    @BeforeEach
+    void setup() {
+        cacheManager.getCache(CacheConfig.ALUNOS).clear();
+        aluno = new Aluno(1L, "Aluno Teste", 18L, "436556565", "Rua teste");
+    }
+
+    @Test
+    @DisplayName("Deve ir ao banco so na primeira busca por id")
+    void deveIrAoBancoSoNaPrimeiraBuscaPorId() throws Exception {
+        when(alunoRepository.findById(1L)).thenReturn(Optional.of(aluno));
+
+        alunoService.buscaPorId(1L);
+        var resultado = alunoService.buscaPorId(1L);
+
+        Assertions.assertEquals(aluno, resultado);
+        verify(alunoRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Nao deve guardar no cache quando o aluno nao existe")
+    void naoDeveGuardarNoCacheQuandoOAlunoNaoExiste() {
+        when(alunoRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(Exception.class, () -> alunoService.buscaPorId(1L));
+        Assertions.assertThrows(Exception.class, () -> alunoService.buscaPorId(1L));
+
+        verify(alunoRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve servir do cache o aluno recem salvo")
+    void deveServirDoCacheOAlunoRecemSalvo() throws Exception {
+        when(entityManager.find(Aluno.class, 1L, LockModeType.PESSIMISTIC_WRITE))
+                .thenReturn(new Aluno(1L, "Aluno Teste", 18L, "436556565", "Rua teste"));
+        when(alunoRepository.save(any())).thenReturn(aluno);
+
+        alunoService.salvar(aluno, null);
+        var resultado = alunoService.buscaPorId(1L);
+
+        Assertions.assertEquals(aluno, resultado);
+        verify(alunoRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Deve voltar ao banco depois de deletar o aluno")
+    void deveVoltarAoBancoDepoisDeDeletarOAluno() throws Exception {
+        when(alunoRepository.findById(1L)).thenReturn(Optional.of(aluno));
+        when(alunoRepository.apagaDevolvendoDimensoes(List.of(1L), null))
+                .thenReturn(List.of(DimensoesAluno.de(aluno)));
+
+        alunoService.buscaPorId(1L);
+        alunoService.delete(1L, null);
+        alunoService.buscaPorId(1L);
+
+        // uma busca antes e outra depois da remocao do cache
+        verify(alunoRepository, times(2)).findById(1L);
+    }
+}
@@ -1,20 +1,37 @@
 package com.letscode.alunos.service;
 
 import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.AlunoRemovido;
+import com.letscode.alunos.entity.EventoAluno;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.model.FiltroAluno;
 import com.letscode.alunos.repository.AlunoRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -35,13 +52,32 @@ class AlunoServiceImplTest {
     @Mock
     private AlunoRepository alunoRepository;
 
-    @InjectMocks
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private IndiceDeNomes indiceDeNomes;
+
+    @Mock
+    private RegistroDeEventos eventos;
+
+    @Mock
+    private EstatisticasDeAlunos estatisticas;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CacheManager cacheManager;
+
     private AlunoServiceImpl alunoService;
 
     Aluno aluno;
 
     @BeforeEach
     void setup() {
+        alunoService = new AlunoServiceImpl(alunoRepository, entityManager, indiceDeNomes, eventos, estatisticas,
+                transactionManager, cacheManager, 5);
         aluno = new Aluno(1L, "Aluno Teste",
                 18L, "436556565", "Rua teste");
     }
@@ -53,10 +89,11 @@ class AlunoServiceImplTest {
         // Inicio o que é necessario para testar
 
         // Simula o comportamento
+        Mockito.when(entityManager.find(Aluno.class, 1L, LockModeType.PESSIMISTIC_WRITE)).thenReturn(existente(0L));
         Mockito.when(alunoRepository.save(aluno)).thenReturn(aluno);
 
         // Chamo o metodo que vai ser testado
-        var resultado = alunoService.salvar(aluno);
+        var resultado = alunoService.salvar(aluno, null);
 
         // Verica o resultado
         assertEquals(aluno, resultado);
@@ -112,6 +149,33 @@ class AlunoServiceImplTest {
 //        Assertions.assertEquals("Aluno Teste", resultado.get(0).getNome()); // nunca executa
     }
 
+    @Test
+    @DisplayName("Deve limitar o tamanho da pagina")
+    void deveLimitarOTamanhoDaPagina() {
+        Mockito.when(alunoRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(aluno));
+
+        alunoService.buscaPagina(null, 50_000);
+
+        var pageable = org.mockito.ArgumentCaptor.forClass(Pageable.class);
+        Mockito.verify(alunoRepository).findByIdGreaterThanOrderByIdAsc(eq(0L), pageable.capture());
+        assertEquals(AlunoServiceImpl.LIMITE_MAXIMO, pageable.getValue().getPageSize());
+    }
+
+    @Test
+    @DisplayName("Deve entregar cada aluno e desanexar do contexto de persistencia")
+    void deveEntregarCadaAlunoEDesanexar() {
+        Aluno outro = new Aluno(2L, "Outro", 20L, "111", "Rua");
+        Mockito.when(alunoRepository.streamTodos()).thenReturn(Stream.of(aluno, outro));
+
+        List<Aluno> recebidos = new ArrayList<>();
+        alunoService.paraCadaAluno(recebidos::add);
+
+        assertEquals(List.of(aluno, outro), recebidos);
+        Mockito.verify(entityManager).detach(aluno);
+        Mockito.verify(entityManager).detach(outro);
+    }
+
     @Test
     @DisplayName("Deve deletar um aluno")
     void deveDeletarUmAluno() throws Exception {
@@ -121,28 +185,272 @@ class AlunoServiceImplTest {
 //        BDDMockito.given(alunoRepository.findById(anyLong())).willReturn(Optional.of(aluno));
 //        BDDMockito.then(alunoRepository.findById(any())).should().get()
 
-        Mockito.when(alunoRepository.findById(anyLong()))
-                .thenReturn(Optional.of(aluno));
-
-        Mockito.doNothing().when(alunoRepository).deleteById(anyLong());
+        Mockito.when(alunoRepository.apagaDevolvendoDimensoes(List.of(aluno.getId()), null))
+                .thenReturn(List.of(DimensoesAluno.de(aluno)));
 
-        var resultado = alunoService.delete(aluno.getId());
+        var resultado = alunoService.delete(aluno.getId(), null);
 
         Assertions.assertEquals("Aluno deletado", resultado);
+        Mockito.verify(alunoRepository, Mockito.never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve deletar varios alunos pelos ids")
+    void deveDeletarVariosAlunosPelosIds() {
+        Mockito.when(alunoRepository.apagaDevolvendoDimensoes(List.of(1L, 2L, 3L), null))
+                .thenReturn(List.of(new DimensoesAluno(1L, 15L, null), new DimensoesAluno(3L, 30L, "Recife")));
+
+        Assertions.assertAll(
+                () -> Assertions.assertEquals(2, alunoService.deletaPorIds(List.of(1L, 2L, 3L))),
+                () -> Assertions.assertEquals(0, alunoService.deletaPorIds(List.of()))
+        );
+        Mockito.verify(alunoRepository, Mockito.times(1)).apagaDevolvendoDimensoes(any(), any());
+        // só os alunos que existiam viram evento
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.REMOVIDO, 1L, null, null);
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.REMOVIDO, 3L, null, null);
+        Mockito.verify(eventos, Mockito.never()).registra(any(), eq(2L), any(), any());
+        // e deixam a lapide para quem sincroniza por modifiedSince
+        ArgumentCaptor<AlunoRemovido> lapides = ArgumentCaptor.forClass(AlunoRemovido.class);
+        Mockito.verify(entityManager, Mockito.times(2)).persist(lapides.capture());
+        Assertions.assertEquals(List.of(1L, 3L),
+                lapides.getAllValues().stream().map(AlunoRemovido::getId).collect(Collectors.toList()));
+        // e saem das estatisticas com a idade e a cidade que tinham
+        Mockito.verify(estatisticas).remove(new DimensoesAluno(1L, 15L, null));
+        Mockito.verify(estatisticas).remove(new DimensoesAluno(3L, 30L, "Recife"));
+    }
+
+    @Test
+    @DisplayName("Deve deletar pelo filtro apagando os ids encontrados")
+    void deveDeletarPeloFiltroApagandoOsIdsEncontrados() {
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setIdadeMax(17L);
+        Mockito.when(alunoRepository.projeta(any(), any(), eq(List.of("id"))))
+                .thenReturn(List.of(Map.of("id", 4L), Map.of("id", 5L)));
+        Mockito.when(alunoRepository.apagaDevolvendoDimensoes(List.of(4L, 5L), null))
+                .thenReturn(List.of(new DimensoesAluno(4L, 12L, null), new DimensoesAluno(5L, 16L, null)));
+
+        assertEquals(2, alunoService.deletaPorFiltro(filtro));
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.REMOVIDO, 4L, null, null);
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.REMOVIDO, 5L, null, null);
+        Mockito.verify(indiceDeNomes).remove(4L);
+        Mockito.verify(indiceDeNomes).remove(5L);
+    }
+
+    @Test
+    @DisplayName("Deve deletar pelo filtro em paginas de ids, cada uma na sua transacao")
+    void deveDeletarPeloFiltroEmPaginas() {
+        FiltroAluno filtro = new FiltroAluno();
+        filtro.setIdadeMax(17L);
+        List<Map<String, Object>> paginaCheia = new ArrayList<>();
+        List<DimensoesAluno> apagados = new ArrayList<>();
+        for (long id = 1; id <= AlunoServiceImpl.LIMITE_MAXIMO; id++) {
+            paginaCheia.add(Map.of("id", id));
+            apagados.add(new DimensoesAluno(id, 10L, null));
+        }
+        long ultimo = AlunoServiceImpl.LIMITE_MAXIMO + 1;
+        Mockito.when(alunoRepository.projeta(any(), any(), eq(List.of("id"))))
+                .thenReturn(paginaCheia, List.of(Map.of("id", ultimo)));
+        Mockito.when(alunoRepository.apagaDevolvendoDimensoes(any(), any()))
+                .thenReturn(apagados, List.of(new DimensoesAluno(ultimo, 10L, null)));
+
+        assertEquals(AlunoServiceImpl.LIMITE_MAXIMO + 1, alunoService.deletaPorFiltro(filtro));
+        // uma consulta e uma transação por pagina, nunca a tabela toda de uma vez
+        Mockito.verify(alunoRepository, Mockito.times(2)).projeta(any(),
+                eq(PageRequest.of(0, AlunoServiceImpl.LIMITE_MAXIMO, Sort.by("id"))), eq(List.of("id")));
+        Mockito.verify(transactionManager, Mockito.times(2)).commit(any());
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.REMOVIDO, ultimo, null, null);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar as estatisticas com os valores antigos travados antes da escrita")
+    void deveAtualizarAsEstatisticasComOsValoresAntigos() throws Exception {
+        Aluno novo = new Aluno(null, "Novo", 20L, "n1", "Rua");
+        Mockito.when(alunoRepository.save(novo)).thenAnswer(invocacao -> {
+            novo.setId(7L);
+            return novo;
+        });
+        Aluno gravado = new Aluno(1L, "Aluno Teste", 17L, "436556565", "Rua teste");
+        Mockito.when(entityManager.find(Aluno.class, 1L, LockModeType.PESSIMISTIC_WRITE)).thenReturn(gravado);
+        Mockito.when(alunoRepository.save(aluno)).thenReturn(aluno);
+        Mockito.when(alunoRepository.atualizaCampos(eq(1L), any(), isNull())).thenReturn(1);
+        Mockito.when(alunoRepository.buscaVersao(1L)).thenReturn(Optional.of(2L));
+
+        alunoService.salvar(novo, null);
+        alunoService.salvar(aluno, null);
+        alunoService.alterarCampos(1L, Map.of("idade", 30), null);
+        alunoService.alterarCampos(1L, Map.of("documento", "123"), null);
+
+        Mockito.verify(estatisticas).inclui(new DimensoesAluno(7L, 20L, null));
+        Mockito.verify(estatisticas).altera(new DimensoesAluno(1L, 17L, null), new DimensoesAluno(1L, 18L, null));
+        Mockito.verify(estatisticas).altera(new DimensoesAluno(1L, 17L, null), new DimensoesAluno(1L, 30L, null));
+        // documento não entra nas estatisticas, nem trava o aluno
+        Mockito.verify(entityManager, Mockito.times(2)).find(Aluno.class, 1L, LockModeType.PESSIMISTIC_WRITE);
+        Mockito.verifyNoMoreInteractions(estatisticas);
+    }
+
+    @Test
+    @DisplayName("Deve registrar o evento de cada escrita")
+    void deveRegistrarOEventoDeCadaEscrita() throws Exception {
+        Aluno novo = new Aluno(null, "Novo", 20L, "n1", "Rua");
+        Mockito.when(alunoRepository.save(novo)).thenAnswer(invocacao -> {
+            novo.setId(7L);
+            novo.setVersao(0L);
+            return novo;
+        });
+        Mockito.when(entityManager.find(Aluno.class, 1L, LockModeType.PESSIMISTIC_WRITE)).thenReturn(existente(0L));
+        Mockito.when(alunoRepository.save(aluno)).thenReturn(aluno);
+        Mockito.when(alunoRepository.atualizaNome(1L, "Superman", 2L)).thenReturn(1);
+        Mockito.when(alunoRepository.findById(1L)).thenReturn(Optional.of(existente(3L)));
+        Mockito.when(alunoRepository.atualizaCampos(1L, Map.of("idade", 30L), 3L)).thenReturn(1);
+        Mockito.when(alunoRepository.apagaDevolvendoDimensoes(List.of(1L), null))
+                .thenReturn(List.of(DimensoesAluno.de(aluno)));
+
+        alunoService.salvar(novo, null);
+        alunoService.salvar(aluno, null);
+        alunoService.alterarAluno(1L, "Superman", 2L);
+        alunoService.alterarCampos(1L, Map.of("idade", 30), 3L);
+        alunoService.delete(1L, null);
+
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.CRIADO, 7L, 0L, novo);
+        // aluno com id é merge: flush antes do evento para ele levar a versão nova, refresh para o criadoEm gravado
+        Mockito.verify(entityManager).flush();
+        Mockito.verify(entityManager).refresh(aluno);
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.SUBSTITUIDO, 1L, 0L, aluno);
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.ALTERADO, 1L, 3L, Map.of("nome", "Superman"));
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.ALTERADO, 1L, 4L, Map.of("idade", 30L));
+        Mockito.verify(eventos).registra(EventoAluno.Tipo.REMOVIDO, 1L, null, null);
+    }
+
+    @Test
+    @DisplayName("Nao deve registrar evento quando a escrita falha")
+    void naoDeveRegistrarEventoQuandoAEscritaFalha() {
+        Mockito.when(alunoRepository.atualizaNome(1L, "Superman", 2L)).thenReturn(0);
+        Mockito.when(alunoRepository.buscaVersao(1L)).thenReturn(Optional.of(5L));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> alunoService.alterarAluno(1L, "Superman", 2L));
+        Mockito.verifyNoInteractions(eventos);
+    }
+
+    @Test
+    @DisplayName("Nao deve deletar pelo filtro sem nenhum parametro")
+    void naoDeveDeletarPeloFiltroSemNenhumParametro() {
+        assertThrows(IllegalArgumentException.class, () -> alunoService.deletaPorFiltro(new FiltroAluno()));
+        Mockito.verifyNoInteractions(alunoRepository);
     }
 
     @Test
     @DisplayName("Deve alterar o nome do aluno")
     void deveAlterarONomeDoAluno() throws Exception {
 
-        Mockito.when(alunoRepository.findById(anyLong()))
-                .thenReturn(Optional.of(aluno));
-
-        Mockito.when(alunoRepository.save(any())).thenReturn(aluno);
+        Aluno alterado = existente(1L);
+        alterado.setNome("Superman");
+        Mockito.when(alunoRepository.atualizaNome(anyLong(), anyString(), isNull())).thenReturn(1);
+        Mockito.when(alunoRepository.findById(aluno.getId())).thenReturn(Optional.of(alterado));
 
-        var resultado = alunoService.alterarAluno(aluno.getId(), "Superman");
+        var resultado = alunoService.alterarAluno(aluno.getId(), "Superman", null);
 
+        // o aluno inteiro, lido depois do update, não só o nome e a versão
         Assertions.assertEquals("Superman", resultado.getNome());
+        Assertions.assertEquals(aluno.getId(), resultado.getId());
+        Assertions.assertEquals(aluno.getDocumento(), resultado.getDocumento());
+        Assertions.assertEquals(18L, resultado.getIdade());
+        Assertions.assertEquals(1L, resultado.getVersao());
+        Mockito.verify(alunoRepository, Mockito.never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve alterar so os campos enviados no merge patch")
+    void deveAlterarSoOsCamposEnviadosNoMergePatch() throws Exception {
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("idade", 21);
+        patch.put("documento", null);
+        Mockito.when(alunoRepository.atualizaCampos(anyLong(), any(), isNull())).thenReturn(1);
+        Mockito.when(alunoRepository.buscaVersao(aluno.getId())).thenReturn(Optional.of(1L));
+
+        alunoService.alterarCampos(aluno.getId(), patch, null);
+
+        Map<String, Object> esperado = new HashMap<>();
+        esperado.put("idade", 21L);
+        esperado.put("documento", null);
+        Mockito.verify(alunoRepository).atualizaCampos(aluno.getId(), esperado, null);
+    }
+
+    @Test
+    @DisplayName("Deve alterar so as partes do endereco enviadas no merge patch")
+    void deveAlterarSoAsPartesDoEnderecoNoMergePatch() throws Exception {
+        Map<String, Object> endereco = new HashMap<>();
+        endereco.put("cep", "50000-000");
+        endereco.put("numero", 12);
+        endereco.put("complemento", null);
+        Mockito.when(alunoRepository.atualizaCampos(anyLong(), any(), isNull())).thenReturn(1);
+        Mockito.when(alunoRepository.buscaVersao(aluno.getId())).thenReturn(Optional.of(1L));
+
+        alunoService.alterarCampos(aluno.getId(), Map.of("endereco", endereco), null);
+        alunoService.alterarCampos(aluno.getId(), Map.of("endereco", "Rua Nova 1"), null);
+
+        Map<String, Object> partes = new HashMap<>();
+        partes.put("endereco.cep", "50000-000");
+        partes.put("endereco.numero", 12L);
+        partes.put("endereco.complemento", null);
+        Mockito.verify(alunoRepository).atualizaCampos(aluno.getId(), partes, null);
+        Mockito.verify(alunoRepository).atualizaCampos(aluno.getId(), Map.of("endereco.nome", "Rua Nova 1"), null);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> alunoService.alterarCampos(aluno.getId(), Map.of("endereco", Map.of("pais", "Brasil")), null));
+    }
+
+    @Test
+    @DisplayName("Deve devolver a versao seguinte sem consultar o banco quando o If-Match foi informado")
+    void deveDevolverAVersaoSeguinteQuandoOIfMatchFoiInformado() throws Exception {
+        Mockito.when(alunoRepository.atualizaCampos(anyLong(), any(), eq(3L))).thenReturn(1);
+
+        long versao = alunoService.alterarCampos(aluno.getId(), Map.of("idade", 30), 3L);
+
+        assertEquals(4L, versao);
+        Mockito.verify(alunoRepository, Mockito.never()).buscaVersao(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve recusar alteracao e exclusao com versao desatualizada")
+    void deveRecusarAlteracaoComVersaoDesatualizada() {
+        Mockito.when(alunoRepository.buscaVersao(aluno.getId())).thenReturn(Optional.of(5L));
+
+        Assertions.assertAll(
+                () -> assertThrows(OptimisticLockingFailureException.class,
+                        () -> alunoService.alterarCampos(aluno.getId(), Map.of("idade", 30), 3L)),
+                () -> assertThrows(OptimisticLockingFailureException.class,
+                        () -> alunoService.alterarCampos(aluno.getId(), Map.of(), 3L)),
+                () -> assertThrows(OptimisticLockingFailureException.class,
+                        () -> alunoService.alterarAluno(aluno.getId(), "Batman", 3L)),
+                () -> assertThrows(OptimisticLockingFailureException.class,
+                        () -> alunoService.delete(aluno.getId(), 3L))
+        );
+        Mockito.verifyNoInteractions(indiceDeNomes);
+    }
+
+    @Test
+    @DisplayName("Deve recusar merge patch com campo desconhecido ou nome nulo")
+    void deveRecusarMergePatchInvalido() {
+        Map<String, Object> nomeNulo = new HashMap<>();
+        nomeNulo.put("nome", null);
+
+        Assertions.assertAll(
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> alunoService.alterarCampos(1L, Map.of("id", 2), null)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> alunoService.alterarCampos(1L, Map.of("idade", "vinte"), null)),
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> alunoService.alterarCampos(1L, nomeNulo, null))
+        );
+        Mockito.verifyNoInteractions(alunoRepository);
+    }
+
+    @Test
+    @DisplayName("Deve retornar excessao quando aluno nao for encontrado no merge patch")
+    void deveRetornarExcessaoQuandoAlunoNaoForEncontradoNoMergePatch() {
+        Exception exception = assertThrows(Exception.class,
+                () -> alunoService.alterarCampos(aluno.getId(), Map.of("nome", "Batman"), null));
+
+        Assertions.assertEquals("Aluno não foi encontrado", exception.getMessage());
     }
 
 
@@ -150,7 +458,7 @@ class AlunoServiceImplTest {
     @DisplayName("Deve retornar excessao quando aluno nao for encontrado para delecao")
     void deveRetornarExcessaoQuandoAlunoNaoForEncontradoParaDelecao() {
         Exception exception = assertThrows(Exception.class,
-                () -> alunoService.delete(aluno.getId()));
+                () -> alunoService.delete(aluno.getId(), null));
 
         Assertions.assertEquals("Aluno não foi encontrado", exception.getMessage());
     }
@@ -159,7 +467,7 @@ class AlunoServiceImplTest {
     @DisplayName("Deve retornar excessao quando aluno nao for encontrado para alteracao")
     void deveRetornarExcessaoQuandoAlunoNaoForEncontradoParaAlteracao() {
         Exception exception = assertThrows(Exception.class,
-                () -> alunoService.alterarAluno(aluno.getId(), "Batman"));
+                () -> alunoService.alterarAluno(aluno.getId(), "Batman", null));
 
         Assertions.assertEquals("Aluno não foi encontrado", exception.getMessage());
     }
@@ -176,16 +484,16 @@ class AlunoServiceImplTest {
     @Test
     @DisplayName("Deve buscar o aluno somento pelo nome")
     void deveBuscarOAlunoSomentoPeloNome() {
-        Mockito.when(alunoRepository.findByNome(anyString())).thenReturn(List.of(aluno));
-        List<Aluno> alunos = alunoService.filter(aluno.getNome(), null, null);
+        Mockito.when(alunoRepository.filtra(any(), any())).thenReturn(List.of(aluno));
+        List<Aluno> alunos = alunoService.filter(new FiltroAluno(aluno.getNome(), null, null), Pageable.unpaged());
         Assertions.assertEquals("Aluno Teste", alunos.get(0).getNome());
     }
 
     @Test
     @DisplayName("Deve testar a busca pela idade")
     void deveTestarABucaPelaIdade(){
-        Mockito.when(alunoRepository.findAllByIdade(anyLong())).thenReturn(List.of(aluno));
-        List<Aluno> alunos = alunoService.filter(null, aluno.getIdade(), null);
+        Mockito.when(alunoRepository.filtra(any(), any())).thenReturn(List.of(aluno));
+        List<Aluno> alunos = alunoService.filter(new FiltroAluno(null, aluno.getIdade(), null), Pageable.unpaged());
         Assertions.assertEquals("Aluno Teste", alunos.get(0).getNome());
     }
 
@@ -203,15 +511,97 @@ class AlunoServiceImplTest {
     @Test
     @DisplayName("DeveBuscarAlunoInexistente")
     void deveBuscarAlunoInexistente(){
-        List<Aluno> alunos = alunoService.filter(any(), anyLong(), anyString());
+        List<Aluno> alunos = alunoService.filter(new FiltroAluno("Ninguem", 1L, "0"), Pageable.unpaged());
         Assertions.assertEquals(0, alunos.size());
     }
 
     @Test
     @DisplayName("Deve buscar aluno com todos os dados preenchidos")
     void deveBuscarAlunoComTodosOsDadospreenchidos(){
-        Mockito.when(alunoRepository.findByNomeAndIdadeAndDocumento(any(), anyLong(), anyString())).thenReturn(Optional.of(aluno));
-        List<Aluno> alunos = alunoService.filter(aluno.getNome(), aluno.getIdade(), aluno.getDocumento());
+        var pageable = PageRequest.of(0, 10);
+        Mockito.when(alunoRepository.filtra(any(), eq(pageable))).thenReturn(List.of(aluno));
+        List<Aluno> alunos = alunoService.filter(new FiltroAluno(aluno.getNome(), aluno.getIdade(), aluno.getDocumento()), pageable);
         Assertions.assertEquals(aluno, alunos.get(0));
+        Mockito.verify(alunoRepository).filtra(any(), eq(pageable));
+    }
+
+    @Test
+    @DisplayName("Deve pesquisar no indice e devolver os alunos na ordem de relevancia")
+    void devePesquisarNoIndiceNaOrdemDeRelevancia() {
+        Aluno outro = new Aluno(2L, "Aluno Outro", 20L, "123", "Rua");
+        Mockito.when(indiceDeNomes.busca("alu", 0, 20)).thenReturn(List.of(2L, 1L, 3L));
+        Mockito.when(alunoRepository.findAllById(List.of(2L, 1L, 3L))).thenReturn(List.of(aluno, outro));
+
+        List<Aluno> alunos = alunoService.pesquisaPorNome("alu", 0, 20);
+
+        assertEquals(List.of(outro, aluno), alunos);
+        // o 3 não existe mais no banco, sai do indice
+        Mockito.verify(indiceDeNomes).remove(3L);
+    }
+
+    @Test
+    @DisplayName("Deve recusar pesquisa enquanto o indice de nomes carrega")
+    void deveRecusarPesquisaEnquantoOIndiceCarrega() {
+        Mockito.when(indiceDeNomes.isCarregando()).thenReturn(true);
+
+        assertThrows(IndiceEmCargaException.class, () -> alunoService.pesquisaPorNome("alu", 0, 20));
+        Mockito.verify(indiceDeNomes, Mockito.never()).busca(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve recusar pesquisa sem texto")
+    void deveRecusarPesquisaSemTexto() {
+        assertThrows(IllegalArgumentException.class, () -> alunoService.pesquisaPorNome(" ", 0, 20));
+    }
+
+    @Test
+    @DisplayName("Deve projetar so os campos pedidos limitando o tamanho da pagina")
+    void deveProjetarSoOsCamposPedidos() {
+        List<Map<String, Object>> linhas = List.of(Map.of("id", 1L, "nome", "Aluno Teste"));
+        Mockito.when(alunoRepository.projeta(any(), any(), eq(List.of("id", "nome")))).thenReturn(linhas);
+
+        var resultado = alunoService.buscaCampos(new FiltroAluno(), PageRequest.of(0, 5000), List.of("id", "nome"));
+
+        assertEquals(linhas, resultado);
+        Mockito.verify(alunoRepository).projeta(any(), eq(PageRequest.of(0, AlunoServiceImpl.LIMITE_MAXIMO)),
+                eq(List.of("id", "nome")));
+    }
+
+    @Test
+    @DisplayName("Deve recusar campo que nao existe no aluno")
+    void deveRecusarCampoQueNaoExiste() {
+        assertThrows(IllegalArgumentException.class,
+                () -> alunoService.buscaCampos(new FiltroAluno(), Pageable.unpaged(), List.of("id", "senha")));
+        Mockito.verifyNoInteractions(alunoRepository);
+    }
+
+    @Test
+    @DisplayName("Deve salvar sobre a versao gravada quando o If-Match nao vem")
+    void deveSalvarSobreAVersaoGravadaSemIfMatch() {
+        Mockito.when(entityManager.find(Aluno.class, 1L, LockModeType.PESSIMISTIC_WRITE)).thenReturn(existente(4L));
+        Mockito.when(alunoRepository.save(aluno)).thenReturn(aluno);
+
+        alunoService.salvar(aluno, null);
+
+        // o merge confere a versão do aluno travado, não a (nenhuma) que veio do corpo
+        assertEquals(4L, aluno.getVersao());
+    }
+
+    @Test
+    @DisplayName("Deve recusar o salvar com If-Match de versao desatualizada ou de aluno que nao existe")
+    void deveRecusarSalvarComIfMatchDesatualizado() {
+        Mockito.when(entityManager.find(Aluno.class, 1L, LockModeType.PESSIMISTIC_WRITE)).thenReturn(existente(4L));
+        Aluno inexistente = new Aluno(9L, "Novo", 20L, "n9", "Rua");
+
+        assertThrows(OptimisticLockingFailureException.class, () -> alunoService.salvar(aluno, 3L));
+        assertThrows(OptimisticLockingFailureException.class, () -> alunoService.salvar(inexistente, 0L));
+        Mockito.verify(alunoRepository, Mockito.never()).save(any());
+        Mockito.verifyNoInteractions(eventos);
+    }
+
+    private static Aluno existente(long versao) {
+        Aluno existente = new Aluno(1L, "Aluno Teste", 18L, "436556565", "Rua teste");
+        existente.setVersao(versao);
+        return existente;
     }
-}
\ No newline at end of file
+}
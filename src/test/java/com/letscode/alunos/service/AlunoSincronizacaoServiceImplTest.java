@@ -0,0 +1,97 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.Aluno;
+import com.letscode.alunos.entity.AlunoRemovido;
+import com.letscode.alunos.repository.AlunoRemovidoRepository;
+import com.letscode.alunos.repository.AlunoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class AlunoSincronizacaoServiceImplTest {
+
+    @Mock
+    private AlunoRepository alunoRepository;
+
+    @Mock
+    private AlunoRemovidoRepository alunoRemovidoRepository;
+
+    private AlunoSincronizacaoServiceImpl sincronizacao;
+
+    private final Instant base = Aluno.agora().minus(Duration.ofHours(1));
+
+    @BeforeEach
+    void setup() {
+        sincronizacao = new AlunoSincronizacaoServiceImpl(alunoRepository, alunoRemovidoRepository,
+                Duration.ofSeconds(10), Duration.ofDays(30), 5, 8);
+    }
+
+    @Test
+    @DisplayName("Deve intercalar alunos e lapides na ordem de hora e id")
+    void deveIntercalarAlunosELapidesNaOrdem() {
+        Aluno a1 = alterado(1L, base);
+        Aluno a3 = alterado(3L, base.plusSeconds(2));
+        AlunoRemovido r2 = new AlunoRemovido(2L, base);
+        AlunoRemovido r4 = new AlunoRemovido(4L, base.plusSeconds(1));
+        Mockito.when(alunoRepository.buscaAlteradosDepoisDe(eq(base), eq(0L), any(), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(a1, a3));
+        Mockito.when(alunoRemovidoRepository.buscaRemovidosDepoisDe(eq(base), eq(0L), any(), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(r2, r4));
+
+        List<Object> itens = sincronizacao.buscaAlteracoes(base, null, 3);
+
+        // a3 fica para a proxima pagina, o cursor do cliente para em r4
+        assertEquals(List.of(a1, r2, r4), itens);
+    }
+
+    @Test
+    @DisplayName("Deve limitar as alteracoes ate agora menos a margem")
+    void deveLimitarAsAlteracoesAteAMargem() {
+        Instant antes = Aluno.agora();
+        sincronizacao.buscaAlteracoes(Instant.EPOCH, 7L, null);
+
+        Mockito.verify(alunoRepository).buscaAlteradosDepoisDe(eq(Instant.EPOCH), eq(7L),
+                Mockito.argThat(ate -> !ate.isAfter(Aluno.agora().minusSeconds(10)) && !ate.isBefore(antes.minusSeconds(10))),
+                eq(PageRequest.of(0, AlunoServiceImpl.LIMITE_PADRAO)));
+    }
+
+    @Test
+    @DisplayName("Deve recusar margem que nao cobre o timeout das escritas em lote")
+    void deveRecusarMargemMenorQueOTimeoutDasEscritas() {
+        assertThrows(IllegalArgumentException.class, () -> new AlunoSincronizacaoServiceImpl(alunoRepository,
+                alunoRemovidoRepository, Duration.ofSeconds(10), Duration.ofDays(30), 5, 10));
+    }
+
+    @Test
+    @DisplayName("Deve recusar modifiedSince mais antigo que a retencao das lapides")
+    void deveRecusarModifiedSinceExpirado() {
+        Instant expirado = Aluno.agora().minus(Duration.ofDays(31));
+
+        assertThrows(SincronizacaoExpiradaException.class, () -> sincronizacao.buscaAlteracoes(expirado, null, null));
+        Mockito.verifyNoInteractions(alunoRepository, alunoRemovidoRepository);
+        // a copia inicial continua valendo
+        assertTrue(sincronizacao.buscaAlteracoes(Instant.EPOCH, null, null).isEmpty());
+    }
+
+    private static Aluno alterado(Long id, Instant atualizadoEm) {
+        Aluno aluno = new Aluno(id, "Aluno " + id, 20L, "d" + id, "Rua");
+        aluno.setAtualizadoEm(atualizadoEm);
+        return aluno;
+    }
+}
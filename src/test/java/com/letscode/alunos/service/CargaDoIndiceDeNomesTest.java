@@ -0,0 +1,104 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.Aluno;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class CargaDoIndiceDeNomesTest {
+
+    @Mock
+    AlunoService alunoService;
+
+    @Test
+    @DisplayName("Deve liberar a pesquisa quando a carga do indice termina")
+    void deveLiberarAPesquisaQuandoACargaTermina() {
+        IndiceDeNomes indice = new IndiceDeNomes();
+        Mockito.doAnswer(invocacao -> {
+            Consumer<Aluno> consumidor = invocacao.getArgument(0);
+            assertTrue(indice.isCarregando());
+            consumidor.accept(new Aluno(1L, "Maria Silva", 20L, "1", "Rua"));
+            return null;
+        }).when(alunoService).paraCadaAluno(any());
+
+        indice.iniciaCarga();
+        new CargaDoIndiceDeNomes(alunoService, indice, Duration.ZERO).carrega();
+
+        assertAll(
+                () -> assertFalse(indice.isCarregando()),
+                () -> assertEquals(List.of(1L), indice.busca("maria", 0, 10))
+        );
+    }
+
+    @Test
+    @DisplayName("Nao deve voltar o nome antigo de aluno alterado ou apagado durante a carga")
+    void naoDeveVoltarNomeAntigoDeAlunoAlteradoDuranteACarga() {
+        IndiceDeNomes indice = new IndiceDeNomes();
+        Mockito.doAnswer(invocacao -> {
+            Consumer<Aluno> consumidor = invocacao.getArgument(0);
+            // commitados depois da copia que a carga está percorrendo
+            indice.indexa(1L, "Joana Souza");
+            indice.remove(2L);
+            consumidor.accept(new Aluno(1L, "Maria Silva", 20L, "1", "Rua"));
+            consumidor.accept(new Aluno(2L, "Pedro Lima", 30L, "2", "Rua"));
+            consumidor.accept(new Aluno(3L, "Carlos Dias", 40L, "3", "Rua"));
+            return null;
+        }).when(alunoService).paraCadaAluno(any());
+
+        indice.iniciaCarga();
+        new CargaDoIndiceDeNomes(alunoService, indice, Duration.ZERO).carrega();
+
+        assertAll(
+                () -> assertEquals(List.of(), indice.busca("maria", 0, 10)),
+                () -> assertEquals(List.of(1L), indice.busca("joana", 0, 10)),
+                () -> assertEquals(List.of(), indice.busca("pedro", 0, 10)),
+                () -> assertEquals(List.of(3L), indice.busca("carlos", 0, 10)),
+                () -> assertEquals(2, indice.tamanho())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve manter a pesquisa indisponivel e refazer a carga quando ela falha")
+    void deveRefazerACargaQuandoElaFalha() {
+        IndiceDeNomes indice = new IndiceDeNomes();
+        Mockito.doAnswer(invocacao -> {
+            Consumer<Aluno> consumidor = invocacao.getArgument(0);
+            consumidor.accept(new Aluno(1L, "Maria Silva", 20L, "1", "Rua"));
+            consumidor.accept(new Aluno(2L, "Pedro Lima", 30L, "2", "Rua"));
+            // a primeira tentativa cai no meio, com parte dos alunos já no indice
+            indice.remove(2L);
+            throw new IllegalStateException("conexão perdida");
+        }).doAnswer(invocacao -> {
+            // a pesquisa continua em 503 (IndiceEmCargaException) em vez de responder com o indice pela metade
+            assertTrue(indice.isCarregando());
+            Consumer<Aluno> consumidor = invocacao.getArgument(0);
+            consumidor.accept(new Aluno(1L, "Maria Silva", 20L, "1", "Rua"));
+            consumidor.accept(new Aluno(2L, "Pedro Lima", 30L, "2", "Rua"));
+            consumidor.accept(new Aluno(3L, "Carlos Dias", 40L, "3", "Rua"));
+            return null;
+        }).when(alunoService).paraCadaAluno(any());
+
+        indice.iniciaCarga();
+        new CargaDoIndiceDeNomes(alunoService, indice, Duration.ZERO).carrega();
+
+        assertAll(
+                () -> assertFalse(indice.isCarregando()),
+                () -> Mockito.verify(alunoService, Mockito.times(2)).paraCadaAluno(any()),
+                () -> assertEquals(List.of(1L), indice.busca("maria", 0, 10)),
+                // apagado durante a primeira tentativa, continua fora na segunda
+                () -> assertEquals(List.of(), indice.busca("pedro", 0, 10)),
+                () -> assertEquals(List.of(3L), indice.busca("carlos", 0, 10))
+        );
+    }
+}
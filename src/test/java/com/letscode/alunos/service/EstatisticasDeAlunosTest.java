@@ -0,0 +1,84 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.model.Contagem;
+import com.letscode.alunos.model.DimensoesAluno;
+import com.letscode.alunos.model.EstatisticasAlunos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EstatisticasDeAlunosTest {
+
+    EstatisticasDeAlunos estatisticas;
+
+    @BeforeEach
+    void setup() {
+        estatisticas = new EstatisticasDeAlunos(10);
+        estatisticas.carrega(
+                List.of(new Contagem(15L, 2L), new Contagem(22L, 1L), new Contagem(null, 1L)),
+                List.of(new Contagem("Recife", 1L), new Contagem("Olinda", 2L), new Contagem(null, 1L)));
+    }
+
+    @Test
+    @DisplayName("Deve resumir a carga dos group by em faixas, cidades e media")
+    void deveResumirACarga() {
+        EstatisticasAlunos resumo = estatisticas.resumo();
+
+        assertAll(
+                () -> assertEquals(4, resumo.total()),
+                () -> assertEquals(15L, resumo.idadeMinima()),
+                () -> assertEquals(22L, resumo.idadeMaxima()),
+                () -> assertEquals(52.0 / 3, resumo.idadeMedia()),
+                () -> assertEquals(Map.of("10-19", 2L, "20-29", 1L), resumo.porFaixaDeIdade()),
+                // da cidade mais comum para a menos
+                () -> assertEquals(List.of("Olinda", "Recife"), new ArrayList<>(resumo.porCidade().keySet())),
+                () -> assertEquals(1, resumo.semIdade()),
+                () -> assertEquals(1, resumo.semCidade())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve somar inclusoes, descontar exclusoes e mover alteracoes")
+    void deveManterAsContagensNasEscritas() {
+        estatisticas.inclui(new DimensoesAluno(5L, 41L, "Recife"));
+        estatisticas.altera(new DimensoesAluno(2L, 22L, "Olinda"), new DimensoesAluno(2L, 23L, "Recife"));
+        estatisticas.remove(new DimensoesAluno(5L, 41L, "Recife"));
+        estatisticas.remove(new DimensoesAluno(1L, 15L, "Olinda"));
+        estatisticas.remove(new DimensoesAluno(3L, 15L, null));
+
+        EstatisticasAlunos resumo = estatisticas.resumo();
+
+        assertAll(
+                () -> assertEquals(2, resumo.total()),
+                // idade que ninguém mais tem não é mais o minimo
+                () -> assertEquals(23L, resumo.idadeMinima()),
+                () -> assertEquals(23L, resumo.idadeMaxima()),
+                () -> assertEquals(Map.of("20-29", 1L), resumo.porFaixaDeIdade()),
+                () -> assertEquals(Map.of("Recife", 2L), resumo.porCidade()),
+                () -> assertEquals(0, resumo.semCidade())
+        );
+    }
+
+    @Test
+    @DisplayName("Deve responder sem minimo, maximo e media quando nenhum aluno tem idade")
+    void deveResponderSemIdades() {
+        estatisticas.carrega(List.of(), List.of());
+
+        EstatisticasAlunos resumo = estatisticas.resumo();
+
+        assertAll(
+                () -> assertEquals(0, resumo.total()),
+                () -> assertNull(resumo.idadeMinima()),
+                () -> assertNull(resumo.idadeMaxima()),
+                () -> assertNull(resumo.idadeMedia())
+        );
+    }
+}
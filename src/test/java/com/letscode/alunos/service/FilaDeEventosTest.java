@@ -0,0 +1,39 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.EventoAluno;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilaDeEventosTest {
+
+    @Test
+    @DisplayName("Deve descartar os eventos mais antigos quando a fila enche")
+    void deveDescartarOsMaisAntigosQuandoAFilaEnche() throws InterruptedException {
+        FilaDeEventos fila = new FilaDeEventos(2);
+
+        fila.publica(List.of(evento(1L), evento(2L), evento(3L)));
+
+        List<EventoAluno> recebidos = new ArrayList<>();
+        recebidos.add(fila.proximo(Duration.ofMillis(10)));
+        fila.drena(recebidos, 10);
+        assertAll(
+                () -> assertEquals(List.of(2L, 3L), recebidos.stream().map(EventoAluno::getSeq).collect(Collectors.toList())),
+                () -> assertEquals(1, fila.getDescartados()),
+                () -> assertNull(fila.proximo(Duration.ofMillis(10)))
+        );
+    }
+
+    private static EventoAluno evento(long seq) {
+        EventoAluno evento = new EventoAluno(seq, EventoAluno.Tipo.REMOVIDO, null, null, Instant.now());
+        evento.setSeq(seq);
+        return evento;
+    }
+}
@@ -0,0 +1,67 @@
+package com.letscode.alunos.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IndiceDeNomesTest {
+
+    IndiceDeNomes indice;
+
+    @BeforeEach
+    void setup() {
+        indice = new IndiceDeNomes();
+        indice.indexa(1L, "João da Silva");
+        indice.indexa(2L, "Maria Joana Souza");
+        indice.indexa(3L, "Marcos Silveira");
+        indice.indexa(4L, "Mário Sílvio");
+    }
+
+    @Test
+    @DisplayName("Deve achar pelo prefixo sem diferenciar acentos e maiusculas")
+    void deveAcharPeloPrefixoSemAcento() {
+        assertEquals(List.of(1L, 2L), indice.busca("JOA", 0, 10));
+        // Mário exato, Maria a uma letra de distancia
+        assertEquals(List.of(4L, 2L), indice.busca("mario", 0, 10));
+    }
+
+    @Test
+    @DisplayName("Deve exigir todas as palavras e ordenar exato, prefixo e aproximado")
+    void deveOrdenarPorRelevancia() {
+        indice.indexa(5L, "Ana Silvana");
+        indice.indexa(6L, "Bia Silvia");
+
+        assertEquals(List.of(1L, 5L, 6L), indice.busca("silva", 0, 10));
+        // Marcos exato + Silveira prefixo na frente de Mário aproximado + Sílvio prefixo
+        assertEquals(List.of(3L, 4L), indice.busca("marcos silv", 0, 10));
+        assertEquals(List.of(), indice.busca("joao souza", 0, 10));
+    }
+
+    @Test
+    @DisplayName("Deve tolerar erro de digitacao")
+    void deveTolerarErroDeDigitacao() {
+        assertEquals(List.of(2L), indice.busca("sousa", 0, 10));
+        assertEquals(List.of(3L), indice.busca("marcso silveria", 0, 10));
+    }
+
+    @Test
+    @DisplayName("Deve paginar o resultado")
+    void devePaginar() {
+        assertEquals(List.of(3L), indice.busca("silv", 1, 1));
+        assertEquals(List.of(), indice.busca("silv", 3, 1));
+    }
+
+    @Test
+    @DisplayName("Deve refletir alteracao e exclusao de nomes")
+    void deveRefletirAlteracaoEExclusao() {
+        indice.indexa(1L, "João Pereira");
+        indice.remove(3L);
+
+        assertEquals(List.of(4L), indice.busca("silv", 0, 10));
+        assertEquals(List.of(1L), indice.busca("pereira", 0, 10));
+    }
+}
@@ -0,0 +1,87 @@
+package com.letscode.alunos.service;
+
+import com.letscode.alunos.entity.Aluno;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveAlunoServiceImplTest {
+
+    @Mock
+    private AlunoService alunoService;
+
+    @InjectMocks
+    private ReactiveAlunoServiceImpl reactiveAlunoService;
+
+    Aluno aluno;
+
+    @BeforeEach
+    void setup() {
+        aluno = new Aluno(1L, "Aluno Teste", 18L, "436556565", "Rua teste");
+    }
+
+    @Test
+    @DisplayName("Deve buscar aluno pelo id")
+    void deveBuscarAlunoPeloId() throws Exception {
+        Mockito.when(alunoService.buscaPorId(1L)).thenReturn(aluno);
+
+        StepVerifier.create(reactiveAlunoService.buscaPorId(1L))
+                .expectNext(aluno)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Deve propagar o erro quando o aluno nao existe")
+    void devePropagarOErroQuandoOAlunoNaoExiste() throws Exception {
+        Mockito.when(alunoService.buscaPorId(anyLong())).thenThrow(new Exception("Aluno não foi encontrado"));
+
+        StepVerifier.create(reactiveAlunoService.buscaPorId(1L))
+                .expectErrorMessage("Aluno não foi encontrado")
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todas as paginas de alunos")
+    void devePercorrerTodasAsPaginasDeAlunos() {
+        int tamanho = ReactiveAlunoServiceImpl.TAMANHO_PAGINA;
+        Mockito.when(alunoService.buscaPagina(0L, tamanho)).thenReturn(alunos(1, tamanho));
+        Mockito.when(alunoService.buscaPagina((long) tamanho, tamanho)).thenReturn(alunos(tamanho + 1, tamanho + 3));
+
+        StepVerifier.create(reactiveAlunoService.buscaTodos())
+                .expectNextCount(tamanho + 3)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Nao deve buscar a proxima pagina antes do cliente pedir")
+    void naoDeveBuscarAProximaPaginaAntesDoClientePedir() {
+        int tamanho = ReactiveAlunoServiceImpl.TAMANHO_PAGINA;
+        Mockito.when(alunoService.buscaPagina(0L, tamanho)).thenReturn(alunos(1, tamanho));
+
+        StepVerifier.create(reactiveAlunoService.buscaTodos(), 10)
+                .expectNextCount(10)
+                .thenCancel()
+                .verify();
+
+        Mockito.verify(alunoService, Mockito.never()).buscaPagina((long) tamanho, tamanho);
+    }
+
+    private List<Aluno> alunos(long primeiro, long ultimo) {
+        return LongStream.rangeClosed(primeiro, ultimo)
+                .mapToObj(id -> new Aluno(id, "Aluno " + id, 20L, "doc" + id, "Rua"))
+                .collect(Collectors.toList());
+    }
+}